@@ -0,0 +1,84 @@
+// JSI side of com.reactnativesunmiprinter.RawDataJsi: copies the bytes of an ArrayBuffer (or a
+// typed array view of one) into a Java byte[] and stages it for sendRAWDataStaged, so raw print
+// data reaches the printer service without a base64 round trip.
+
+#include <jni.h>
+#include <jsi/jsi.h>
+
+#include <string>
+
+using namespace facebook;
+
+namespace {
+
+constexpr const char *kFunctionName = "__sunmiPrinterStageRawData";
+
+JavaVM *gVm = nullptr;
+jclass gRawDataJsi = nullptr;
+jmethodID gStage = nullptr;
+
+// The JS thread is a Java thread, so it is always attached to the VM.
+JNIEnv *currentEnv() {
+  JNIEnv *env = nullptr;
+  if (gVm->GetEnv(reinterpret_cast<void **>(&env), JNI_VERSION_1_6) != JNI_OK) {
+    return nullptr;
+  }
+  return env;
+}
+
+jsi::Value stageRawData(jsi::Runtime &rt, const jsi::Value &, const jsi::Value *args, size_t count) {
+  if (count < 1 || !args[0].isObject()) {
+    throw jsi::JSError(rt, std::string(kFunctionName) + " expects an ArrayBuffer or a Uint8Array");
+  }
+  jsi::Object view = args[0].asObject(rt);
+  bool isBuffer = view.isArrayBuffer(rt);
+  jsi::ArrayBuffer buffer =
+      isBuffer ? view.getArrayBuffer(rt) : view.getPropertyAsObject(rt, "buffer").getArrayBuffer(rt);
+  size_t offset = isBuffer ? 0 : static_cast<size_t>(view.getProperty(rt, "byteOffset").asNumber());
+  size_t length = isBuffer ? buffer.size(rt) : static_cast<size_t>(view.getProperty(rt, "byteLength").asNumber());
+  if (offset + length > buffer.size(rt)) {
+    throw jsi::JSError(rt, "Raw data view is out of the bounds of its buffer");
+  }
+
+  JNIEnv *env = currentEnv();
+  if (env == nullptr) {
+    throw jsi::JSError(rt, std::string(kFunctionName) + " must be called on the JS thread");
+  }
+  jbyteArray bytes = env->NewByteArray(static_cast<jsize>(length));
+  if (bytes == nullptr) {
+    env->ExceptionClear();
+    throw jsi::JSError(rt, "Out of memory copying " + std::to_string(length) + " bytes of raw data");
+  }
+  env->SetByteArrayRegion(
+      bytes, 0, static_cast<jsize>(length), reinterpret_cast<const jbyte *>(buffer.data(rt) + offset));
+  jint handle = env->CallStaticIntMethod(gRawDataJsi, gStage, reinterpret_cast<jlong>(&rt), bytes);
+  env->DeleteLocalRef(bytes);
+  if (env->ExceptionCheck()) {
+    env->ExceptionClear();
+    throw jsi::JSError(rt, "Failed to stage raw data");
+  }
+  if (handle < 0) {
+    throw jsi::JSError(rt, "Too much raw data is waiting to be sent; await earlier sendRAWDataBuffer calls");
+  }
+  return jsi::Value(static_cast<int>(handle));
+}
+
+} // namespace
+
+extern "C" JNIEXPORT jint JNI_OnLoad(JavaVM *vm, void *) {
+  gVm = vm;
+  return JNI_VERSION_1_6;
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_reactnativesunmiprinter_RawDataJsi_nativeInstall(JNIEnv *env, jclass clazz, jlong runtimePointer) {
+  if (gRawDataJsi == nullptr) {
+    gRawDataJsi = static_cast<jclass>(env->NewGlobalRef(clazz));
+    gStage = env->GetStaticMethodID(clazz, "stage", "(J[B)I");
+  }
+  auto &rt = *reinterpret_cast<jsi::Runtime *>(runtimePointer);
+  rt.global().setProperty(
+      rt,
+      kFunctionName,
+      jsi::Function::createFromHostFunction(rt, jsi::PropNameID::forAscii(rt, kFunctionName), 1, stageRawData));
+}
@@ -0,0 +1,146 @@
+package com.reactnativesunmiprinter;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.FileDescriptor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes images for printing without materialising the full-size bitmap. The bounds are read
+ * first so the image can be subsampled while decoding to the smallest power-of-two size that is
+ * still at least the target width, and opaque formats are decoded as RGB_565, which is plenty
+ * for a thermal head. Only the remaining (at most 2x) downscale is done with
+ * {@link Bitmap#createScaledBitmap}.
+ *
+ * <p>Images can come from base64 strings or straight from a file descriptor, in which case the
+ * encoded bytes are streamed by the decoder and never held in memory.
+ */
+final class BitmapDecoder {
+
+  /** One encoded image that BitmapFactory can decode more than once (bounds pass, then pixels). */
+  private interface Source {
+    @Nullable
+    Bitmap decode(BitmapFactory.Options options);
+  }
+
+  private final AtomicLong decodedCount = new AtomicLong();
+  private final AtomicLong maxPeakBytes = new AtomicLong();
+  private volatile long lastPeakBytes;
+  private volatile int lastSampleSize = 1;
+
+  @Nullable
+  Bitmap decodeBase64(String encodedString, int targetWidth) {
+    try {
+      String base64 = encodedString;
+      int commaIndex = base64.indexOf(',');
+      if (commaIndex >= 0) {
+        base64 = base64.substring(commaIndex + 1);
+      }
+      return decode(Base64.decode(base64, Base64.DEFAULT), targetWidth);
+    } catch (IllegalArgumentException exception) {
+      Log.e(SunmiPrinterModule.TAG, "decodeBitmap: invalid image data", exception);
+      return null;
+    }
+  }
+
+  @Nullable
+  Bitmap decode(byte[] data, int targetWidth) {
+    return decode(options -> BitmapFactory.decodeByteArray(data, 0, data.length, options), data.length, targetWidth);
+  }
+
+  /**
+   * Decodes from {@code fd}, which must be seekable; BitmapFactory restores its offset after each
+   * pass.
+   */
+  @Nullable
+  Bitmap decode(FileDescriptor fd, int targetWidth) {
+    return decode(options -> BitmapFactory.decodeFileDescriptor(fd, null, options), 0, targetWidth);
+  }
+
+  /** {@code heldBytes} is the encoded data kept in memory while decoding, if any. */
+  @Nullable
+  private Bitmap decode(Source source, long heldBytes, int targetWidth) {
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    source.decode(options);
+    if (options.outWidth <= 0 || options.outHeight <= 0) {
+      return null;
+    }
+    int sourceWidth = options.outWidth;
+
+    options.inJustDecodeBounds = false;
+    options.inSampleSize = calculateSampleSize(sourceWidth, targetWidth);
+    options.inPreferredConfig = hasAlphaChannel(options.outMimeType)
+      ? Bitmap.Config.ARGB_8888
+      : Bitmap.Config.RGB_565;
+    Bitmap decoded = source.decode(options);
+    if (decoded == null) {
+      return null;
+    }
+    long peakBytes = heldBytes + decoded.getAllocationByteCount();
+
+    Bitmap result = decoded;
+    if (targetWidth > 0 && decoded.getWidth() != targetWidth && decoded.getWidth() > 0) {
+      int scaledHeight = Math.max(1, (int) (((float) targetWidth / decoded.getWidth()) * decoded.getHeight()));
+      result = Bitmap.createScaledBitmap(decoded, targetWidth, scaledHeight, true);
+      if (result != decoded) {
+        peakBytes += result.getAllocationByteCount();
+        decoded.recycle();
+      }
+    }
+
+    record(peakBytes, options.inSampleSize);
+    return result;
+  }
+
+  /**
+   * Largest power of two that keeps the decoded width at or above {@code targetWidth}, so the
+   * final scale is always a downscale and never loses detail.
+   */
+  static int calculateSampleSize(int sourceWidth, int targetWidth) {
+    int sampleSize = 1;
+    if (targetWidth <= 0) {
+      return sampleSize;
+    }
+    while (sourceWidth / (sampleSize * 2) >= targetWidth) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+
+  private static boolean hasAlphaChannel(@Nullable String mimeType) {
+    return mimeType == null || !"image/jpeg".equals(mimeType);
+  }
+
+  private void record(long peakBytes, int sampleSize) {
+    decodedCount.incrementAndGet();
+    lastPeakBytes = peakBytes;
+    lastSampleSize = sampleSize;
+    long max;
+    do {
+      max = maxPeakBytes.get();
+    } while (peakBytes > max && !maxPeakBytes.compareAndSet(max, peakBytes));
+  }
+
+  long decodedCount() {
+    return decodedCount.get();
+  }
+
+  /** Encoded bytes held in memory plus every bitmap alive at once while decoding the last image. */
+  long lastPeakBytes() {
+    return lastPeakBytes;
+  }
+
+  long maxPeakBytes() {
+    return maxPeakBytes.get();
+  }
+
+  int lastSampleSize() {
+    return lastSampleSize;
+  }
+}
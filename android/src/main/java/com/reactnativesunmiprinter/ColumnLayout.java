@@ -0,0 +1,263 @@
+package com.reactnativesunmiprinter;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed column widths for a table on one paper width, measured in half-width characters of the
+ * printer's default font. Full-width (CJK, fullwidth forms) characters count as two. Cells are
+ * wrapped to their column and padded according to the column alignment, so a whole table can be
+ * sent as one block of text.
+ *
+ * <p>Layouts are cached per column spec and line width with {@link #forSpec}.
+ */
+final class ColumnLayout {
+
+  static final int ALIGN_LEFT = 0;
+  static final int ALIGN_CENTER = 1;
+  static final int ALIGN_RIGHT = 2;
+
+  static final int DEFAULT_GAP = 1;
+  static final int CHARS_PER_LINE_58MM = 32;
+  static final int CHARS_PER_LINE_80MM = 48;
+
+  private static final int MAX_CACHED_LAYOUTS = 32;
+  /** Printed instead of a full-width character in a column only one character wide. */
+  private static final char NARROW_PLACEHOLDER = '?';
+
+  private static final Map<String, ColumnLayout> CACHE = new LinkedHashMap<String, ColumnLayout>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, ColumnLayout> eldest) {
+      return size() > MAX_CACHED_LAYOUTS;
+    }
+  };
+
+  final int[] widths;
+  final int[] aligns;
+  final int gap;
+
+  ColumnLayout(int[] widths, int[] aligns, int gap) {
+    this.widths = widths;
+    this.aligns = aligns;
+    this.gap = gap;
+  }
+
+  /**
+   * Layout for {@code spec} ({@code { columns: [{ width, align }], gap }}, where column widths are
+   * relative weights) on a line of {@code lineWidth} characters.
+   */
+  static ColumnLayout forSpec(ReadableMap spec, int lineWidth) {
+    ReadableArray columns = PrintCommand.requireArray(spec, "columns");
+    int count = columns.size();
+    if (count == 0) {
+      throw new IllegalArgumentException("Table needs at least one column");
+    }
+    int[] weights = new int[count];
+    int[] aligns = new int[count];
+    for (int i = 0; i < count; i++) {
+      ReadableMap column = columns.getMap(i);
+      if (column == null) {
+        throw new IllegalArgumentException("Column " + i + " is not an object");
+      }
+      weights[i] = Math.max(1, PrintCommand.optInt(column, "width", 1));
+      aligns[i] = PrintCommand.optInt(column, "align", ALIGN_LEFT);
+    }
+    int gap = Math.max(0, PrintCommand.optInt(spec, "gap", DEFAULT_GAP));
+
+    StringBuilder key = new StringBuilder().append(lineWidth).append('|').append(gap);
+    for (int i = 0; i < count; i++) {
+      key.append('|').append(weights[i]).append(':').append(aligns[i]);
+    }
+    String cacheKey = key.toString();
+    synchronized (CACHE) {
+      ColumnLayout layout = CACHE.get(cacheKey);
+      if (layout == null) {
+        layout = new ColumnLayout(distribute(weights, lineWidth - gap * (count - 1)), aligns, gap);
+        CACHE.put(cacheKey, layout);
+      }
+      return layout;
+    }
+  }
+
+  /** Splits {@code available} characters by weight, handing rounding leftovers out left to right. */
+  static int[] distribute(int[] weights, int available) {
+    int count = weights.length;
+    if (available < count) {
+      throw new IllegalArgumentException(count + " columns do not fit in " + available + " characters");
+    }
+    long totalWeight = 0;
+    for (int weight : weights) {
+      totalWeight += weight;
+    }
+    int[] widths = new int[count];
+    int used = 0;
+    for (int i = 0; i < count; i++) {
+      widths[i] = Math.max(1, (int) (available * weights[i] / totalWeight));
+      used += widths[i];
+    }
+    for (int i = 0; used < available; i = (i + 1) % count) {
+      widths[i]++;
+      used++;
+    }
+    for (int i = count - 1; used > available; i = (i + count - 1) % count) {
+      if (widths[i] > 1) {
+        widths[i]--;
+        used--;
+      }
+    }
+    return widths;
+  }
+
+  /** Formats {@code rows} (arrays of cell strings) into newline-terminated lines. */
+  String format(ReadableArray rows) {
+    StringBuilder out = new StringBuilder(rows.size() * (total() + 1));
+    String[] cells = new String[widths.length];
+    StringBuilder[][] wrapped = new StringBuilder[widths.length][];
+    for (int r = 0; r < rows.size(); r++) {
+      ReadableArray row = rows.getArray(r);
+      if (row == null) {
+        throw new IllegalArgumentException("Table row " + r + " is not an array");
+      }
+      for (int c = 0; c < widths.length; c++) {
+        cells[c] = c < row.size() && !row.isNull(c) ? row.getString(c) : "";
+      }
+      appendRow(out, cells, wrapped);
+    }
+    return out.toString();
+  }
+
+  private void appendRow(StringBuilder out, String[] cells, StringBuilder[][] wrapped) {
+    int lines = 1;
+    for (int c = 0; c < widths.length; c++) {
+      wrapped[c] = wrap(cells[c], widths[c]);
+      lines = Math.max(lines, wrapped[c].length);
+    }
+    for (int line = 0; line < lines; line++) {
+      int lineStart = out.length();
+      for (int c = 0; c < widths.length; c++) {
+        if (c > 0) {
+          appendSpaces(out, gap);
+        }
+        StringBuilder cell = line < wrapped[c].length ? wrapped[c][line] : null;
+        appendAligned(out, cell, widths[c], aligns[c]);
+      }
+      int end = out.length();
+      while (end > lineStart && out.charAt(end - 1) == ' ') {
+        end--;
+      }
+      out.setLength(end);
+      out.append('\n');
+    }
+  }
+
+  private static void appendAligned(StringBuilder out, @Nullable StringBuilder cell, int width, int align) {
+    int padding = cell == null ? width : width - displayWidth(cell);
+    int left = align == ALIGN_RIGHT ? padding : align == ALIGN_CENTER ? padding / 2 : 0;
+    appendSpaces(out, left);
+    if (cell != null) {
+      out.append(cell);
+    }
+    appendSpaces(out, padding - left);
+  }
+
+  /**
+   * Wraps {@code text} into lines no wider than {@code width}, breaking after the last space when
+   * a word would overflow and inside the word otherwise. Embedded newlines always break. A
+   * full-width character that cannot fit even on a line of its own is replaced with
+   * {@code '?'}, so no line is ever wider than {@code width}.
+   */
+  static StringBuilder[] wrap(String text, int width) {
+    List<StringBuilder> lines = new ArrayList<>(2);
+    StringBuilder line = new StringBuilder();
+    int lineWidth = 0;
+    int lastSpace = -1;
+    for (int i = 0; i < text.length(); ) {
+      int codePoint = text.codePointAt(i);
+      i += Character.charCount(codePoint);
+      if (codePoint == '\n') {
+        lines.add(line);
+        line = new StringBuilder();
+        lineWidth = 0;
+        lastSpace = -1;
+        continue;
+      }
+      int charWidth = charWidth(codePoint);
+      if (charWidth > width) {
+        codePoint = NARROW_PLACEHOLDER;
+        charWidth = 1;
+      }
+      if (lineWidth + charWidth > width && line.length() > 0) {
+        StringBuilder next = new StringBuilder();
+        if (codePoint != ' ' && lastSpace > 0) {
+          next.append(line, lastSpace + 1, line.length());
+          line.setLength(lastSpace);
+        }
+        lines.add(line);
+        line = next;
+        lineWidth = displayWidth(line);
+        lastSpace = -1;
+        if (codePoint == ' ') {
+          continue;
+        }
+      }
+      if (codePoint == ' ') {
+        lastSpace = line.length();
+      }
+      line.appendCodePoint(codePoint);
+      lineWidth += charWidth;
+    }
+    lines.add(line);
+    return lines.toArray(new StringBuilder[0]);
+  }
+
+  static int displayWidth(CharSequence text) {
+    int width = 0;
+    for (int i = 0; i < text.length(); ) {
+      int codePoint = Character.codePointAt(text, i);
+      width += charWidth(codePoint);
+      i += Character.charCount(codePoint);
+    }
+    return width;
+  }
+
+  /** 2 for East Asian wide and fullwidth characters, 0 for combining marks, 1 otherwise. */
+  static int charWidth(int codePoint) {
+    if (codePoint < 0x1100) {
+      int type = Character.getType(codePoint);
+      return type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK ? 0 : 1;
+    }
+    if ((codePoint <= 0x115F)
+      || (codePoint >= 0x2E80 && codePoint <= 0xA4CF && codePoint != 0x303F)
+      || (codePoint >= 0xAC00 && codePoint <= 0xD7A3)
+      || (codePoint >= 0xF900 && codePoint <= 0xFAFF)
+      || (codePoint >= 0xFE30 && codePoint <= 0xFE4F)
+      || (codePoint >= 0xFF00 && codePoint <= 0xFF60)
+      || (codePoint >= 0xFFE0 && codePoint <= 0xFFE6)
+      || (codePoint >= 0x1F300 && codePoint <= 0x1F64F)
+      || (codePoint >= 0x20000 && codePoint <= 0x3FFFD)) {
+      return 2;
+    }
+    return 1;
+  }
+
+  private int total() {
+    int total = gap * (widths.length - 1);
+    for (int width : widths) {
+      total += width;
+    }
+    return total;
+  }
+
+  private static void appendSpaces(StringBuilder out, int count) {
+    for (int i = 0; i < count; i++) {
+      out.append(' ');
+    }
+  }
+}
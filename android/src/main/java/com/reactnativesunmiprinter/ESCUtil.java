@@ -1,5 +1,10 @@
 package com.reactnativesunmiprinter;
 
+/**
+ * ESC/POS control bytes. The command helpers are kept for compatibility; new code should build
+ * commands with {@link EscPosEncoder}, which writes into a reused buffer instead of allocating an
+ * array per command.
+ */
 public class ESCUtil {
 
   public static final byte ESC = 0x1B;  // 换码
@@ -18,23 +23,19 @@ public class ESCUtil {
 
   /**
    * 字体加粗
+   * @deprecated 使用 {@link EscPosEncoder#bold}
    */
+  @Deprecated
   public static byte[] boldOn() {
-    byte[] result = new byte[3];
-    result[0] = ESC;
-    result[1] = 69;
-    result[2] = 0xF;
-    return result;
+    return EscPosEncoder.BOLD_ON.clone();
   }
 
   /**
    * 取消字体加粗
+   * @deprecated 使用 {@link EscPosEncoder#bold}
    */
+  @Deprecated
   public static byte[] boldOff() {
-    byte[] result = new byte[3];
-    result[0] = ESC;
-    result[1] = 69;
-    result[2] = 0;
-    return result;
+    return EscPosEncoder.BOLD_OFF.clone();
   }
 }
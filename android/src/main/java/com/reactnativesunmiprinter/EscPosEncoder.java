@@ -0,0 +1,305 @@
+package com.reactnativesunmiprinter;
+
+import android.graphics.Bitmap;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Builds ESC/POS byte streams in one growable buffer that is reused between documents, so a whole
+ * receipt is encoded without allocating per command and sent with a single sendRAWData call.
+ * Commands return {@code this} for chaining; {@link #toByteArray} copies out the finished stream
+ * and {@link #reset} makes the buffer ready for the next one.
+ *
+ * <p>Not thread-safe. The module only uses its encoder on the print queue thread.
+ */
+final class EscPosEncoder {
+
+  static final byte[] BOLD_ON = {ESCUtil.ESC, 'E', 1};
+  static final byte[] BOLD_OFF = {ESCUtil.ESC, 'E', 0};
+
+  static final String DEFAULT_CHARSET = "GB18030";
+
+  /** Barcode systems for {@link #barcode}, as used by {@code GS k} function B. */
+  static final int BARCODE_UPC_A = 65;
+  static final int BARCODE_UPC_E = 66;
+  static final int BARCODE_EAN13 = 67;
+  static final int BARCODE_EAN8 = 68;
+  static final int BARCODE_CODE39 = 69;
+  static final int BARCODE_ITF = 70;
+  static final int BARCODE_CODABAR = 71;
+  static final int BARCODE_CODE93 = 72;
+  static final int BARCODE_CODE128 = 73;
+
+  /** Buffers grown past this by a large document are dropped on {@link #reset}. */
+  static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+
+  private final int initialCapacity;
+  private byte[] buffer;
+  private int size;
+  private CharsetEncoder textEncoder;
+
+  EscPosEncoder(int initialCapacity) {
+    this.initialCapacity = Math.max(16, initialCapacity);
+    buffer = new byte[this.initialCapacity];
+    charset(DEFAULT_CHARSET);
+  }
+
+  /** Empties the buffer and restores the default charset. */
+  EscPosEncoder reset() {
+    size = 0;
+    if (buffer.length > MAX_RETAINED_CAPACITY) {
+      buffer = new byte[initialCapacity];
+    }
+    return charset(DEFAULT_CHARSET);
+  }
+
+  int size() {
+    return size;
+  }
+
+  int capacity() {
+    return buffer.length;
+  }
+
+  byte[] toByteArray() {
+    return Arrays.copyOf(buffer, size);
+  }
+
+  /** ESC @: clears styles and the print buffer. */
+  EscPosEncoder initialize() {
+    return put(ESCUtil.ESC, '@');
+  }
+
+  /** Charset used by {@link #text}; pair it with the matching {@link #codePage}. */
+  EscPosEncoder charset(String name) {
+    Charset charset = Charset.forName(name);
+    if (textEncoder == null || !textEncoder.charset().equals(charset)) {
+      textEncoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+    return this;
+  }
+
+  /**
+   * Encodes {@code text} straight into the buffer with the current charset. Characters the
+   * charset cannot represent are replaced.
+   */
+  EscPosEncoder text(CharSequence text) {
+    CharBuffer in = CharBuffer.wrap(text);
+    textEncoder.reset();
+    ensureCapacity((int) Math.ceil(text.length() * textEncoder.averageBytesPerChar()));
+    CoderResult result;
+    do {
+      ByteBuffer out = ByteBuffer.wrap(buffer, size, buffer.length - size);
+      result = textEncoder.encode(in, out, true);
+      if (!result.isOverflow()) {
+        result = textEncoder.flush(out);
+      }
+      size = out.position();
+      if (result.isOverflow()) {
+        ensureCapacity(Math.max(16, (int) Math.ceil(in.remaining() * textEncoder.maxBytesPerChar())));
+      }
+    } while (result.isOverflow());
+    return this;
+  }
+
+  EscPosEncoder newline() {
+    return put(ESCUtil.LF);
+  }
+
+  /** ESC d n: prints the buffer and feeds {@code lines} lines. */
+  EscPosEncoder feed(int lines) {
+    return put(ESCUtil.ESC, 'd', clamp(lines));
+  }
+
+  /** ESC E n */
+  EscPosEncoder bold(boolean on) {
+    return put(ESCUtil.ESC, 'E', on ? 1 : 0);
+  }
+
+  /** ESC - n, where {@code thickness} is 0 (off), 1 or 2 dots. */
+  EscPosEncoder underline(int thickness) {
+    return put(ESCUtil.ESC, '-', Math.max(0, Math.min(2, thickness)));
+  }
+
+  /** GS B n: white text on black. */
+  EscPosEncoder inverse(boolean on) {
+    return put(ESCUtil.GS, 'B', on ? 1 : 0);
+  }
+
+  /** ESC { n: upside-down printing. */
+  EscPosEncoder upsideDown(boolean on) {
+    return put(ESCUtil.ESC, '{', on ? 1 : 0);
+  }
+
+  /** GS ! n, with width and height multipliers from 1 to 8. */
+  EscPosEncoder textSize(int width, int height) {
+    int w = Math.max(1, Math.min(8, width)) - 1;
+    int h = Math.max(1, Math.min(8, height)) - 1;
+    return put(ESCUtil.GS, '!', (w << 4) | h);
+  }
+
+  /** ESC a n, with {@code alignment} 0 left, 1 center, 2 right. */
+  EscPosEncoder align(int alignment) {
+    return put(ESCUtil.ESC, 'a', Math.max(0, Math.min(2, alignment)));
+  }
+
+  /** ESC 3 n: line spacing in dots. */
+  EscPosEncoder lineSpacing(int dots) {
+    return put(ESCUtil.ESC, '3', clamp(dots));
+  }
+
+  /** ESC 2: default line spacing. */
+  EscPosEncoder defaultLineSpacing() {
+    return put(ESCUtil.ESC, '2');
+  }
+
+  /** ESC t n: selects the printer's character code table. */
+  EscPosEncoder codePage(int page) {
+    return put(ESCUtil.ESC, 't', clamp(page));
+  }
+
+  /** Appends {@code bitmap} as 1-bit {@code GS v 0} raster data, see {@link MonochromeEncoder}. */
+  EscPosEncoder raster(Bitmap bitmap, int dither, int threshold) {
+    int length = MonochromeEncoder.rasterSize(bitmap.getWidth(), bitmap.getHeight());
+    ensureCapacity(length);
+    MonochromeEncoder.encodeRaster(bitmap, dither, threshold, buffer, size);
+    size += length;
+    return this;
+  }
+
+  /**
+   * GS h / GS w / GS H / GS k: a 1D barcode. {@code system} is one of the {@code BARCODE_*}
+   * constants, {@code textPosition} is 0 none, 1 above, 2 below, 3 both. CODE128 data that does
+   * not start with a code set selector ("{A", "{B" or "{C") is sent in code set B.
+   */
+  EscPosEncoder barcode(int system, String data, int height, int moduleWidth, int textPosition) {
+    if (system < BARCODE_UPC_A || system > BARCODE_CODE128) {
+      throw new IllegalArgumentException("Unknown barcode system: " + system);
+    }
+    if (system == BARCODE_CODE128 && !data.startsWith("{")) {
+      data = "{B" + data;
+    }
+    if (data.isEmpty() || data.length() > 255) {
+      throw new IllegalArgumentException("Barcode data must be 1-255 characters");
+    }
+    put(ESCUtil.GS, 'h', Math.max(1, clamp(height)));
+    put(ESCUtil.GS, 'w', Math.max(2, Math.min(6, moduleWidth)));
+    put(ESCUtil.GS, 'H', Math.max(0, Math.min(3, textPosition)));
+    put(ESCUtil.GS, 'k', system);
+    put(data.length());
+    return ascii(data);
+  }
+
+  /**
+   * GS ( k: a model 2 QR code. {@code moduleSize} is 1-16 dots and {@code errorLevel} 0-3 for
+   * L, M, Q and H.
+   */
+  EscPosEncoder qrCode(String data, int moduleSize, int errorLevel) {
+    byte[] payload = data.getBytes(textEncoder.charset());
+    int storeLength = payload.length + 3;
+    if (storeLength > 0xFFFF) {
+      throw new IllegalArgumentException("QR code data is too long");
+    }
+    qrFunction(4, 65, 50, 0);
+    qrFunction(3, 67, Math.max(1, Math.min(16, moduleSize)));
+    qrFunction(3, 69, 48 + Math.max(0, Math.min(3, errorLevel)));
+    put(ESCUtil.GS, '(', 'k');
+    put(storeLength & 0xFF, (storeLength >> 8) & 0xFF, 49, 80, 48);
+    raw(payload);
+    return qrFunction(3, 81, 48);
+  }
+
+  /** GS ( k pL 0 49 fn args, where {@code length} (pL) counts cn, fn and the args. */
+  private EscPosEncoder qrFunction(int length, int function, int... args) {
+    put(ESCUtil.GS, '(', 'k');
+    put(length, 0, 49, function);
+    for (int arg : args) {
+      put(arg);
+    }
+    return this;
+  }
+
+  /** GS V 65/66 n: feeds {@code feedDots} and cuts, fully or partially. */
+  EscPosEncoder cut(boolean partial, int feedDots) {
+    return put(ESCUtil.GS, 'V', partial ? 66 : 65, clamp(feedDots));
+  }
+
+  /** ESC p: pulses drawer pin 2. */
+  EscPosEncoder openDrawer() {
+    return put(ESCUtil.ESC, 'p', 0, 25, 250);
+  }
+
+  EscPosEncoder raw(byte[] data) {
+    ensureCapacity(data.length);
+    System.arraycopy(data, 0, buffer, size, data.length);
+    size += data.length;
+    return this;
+  }
+
+  private EscPosEncoder ascii(String data) {
+    ensureCapacity(data.length());
+    for (int i = 0; i < data.length(); i++) {
+      buffer[size++] = (byte) data.charAt(i);
+    }
+    return this;
+  }
+
+  private EscPosEncoder put(int b) {
+    ensureCapacity(1);
+    buffer[size++] = (byte) b;
+    return this;
+  }
+
+  private EscPosEncoder put(int b0, int b1) {
+    ensureCapacity(2);
+    buffer[size++] = (byte) b0;
+    buffer[size++] = (byte) b1;
+    return this;
+  }
+
+  private EscPosEncoder put(int b0, int b1, int b2) {
+    ensureCapacity(3);
+    buffer[size++] = (byte) b0;
+    buffer[size++] = (byte) b1;
+    buffer[size++] = (byte) b2;
+    return this;
+  }
+
+  private EscPosEncoder put(int b0, int b1, int b2, int b3) {
+    ensureCapacity(4);
+    buffer[size++] = (byte) b0;
+    buffer[size++] = (byte) b1;
+    buffer[size++] = (byte) b2;
+    buffer[size++] = (byte) b3;
+    return this;
+  }
+
+  private EscPosEncoder put(int b0, int b1, int b2, int b3, int b4) {
+    ensureCapacity(5);
+    buffer[size++] = (byte) b0;
+    buffer[size++] = (byte) b1;
+    buffer[size++] = (byte) b2;
+    buffer[size++] = (byte) b3;
+    buffer[size++] = (byte) b4;
+    return this;
+  }
+
+  private void ensureCapacity(int extra) {
+    int required = size + extra;
+    if (required > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+    }
+  }
+
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(255, value));
+  }
+}
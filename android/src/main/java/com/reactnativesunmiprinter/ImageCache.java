@@ -0,0 +1,161 @@
+package com.reactnativesunmiprinter;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Size-bounded LRU cache of bitmaps that are ready to print, keyed by a hash of the encoded
+ * image (or its URI and size) plus the target width and print type. Store logos and footers
+ * that appear on every receipt are decoded once and reused afterwards.
+ *
+ * <p>Cached bitmaps are shared, so callers must not recycle them. Evicted bitmaps are left to the
+ * garbage collector because a print job may still be sending them to the service.
+ */
+final class ImageCache {
+
+  static final int DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+
+  /** Type used in keys for images printed without a printBitmapCustom type. */
+  static final int TYPE_DEFAULT = -1;
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final BitmapDecoder decoder;
+  private final LruCache<String, Bitmap> cache;
+
+  ImageCache(BitmapDecoder decoder, int maxBytes) {
+    this.decoder = decoder;
+    this.cache = new LruCache<String, Bitmap>(maxBytes) {
+      @Override
+      protected int sizeOf(String key, Bitmap bitmap) {
+        return bitmap.getAllocationByteCount();
+      }
+    };
+  }
+
+  /** Returns the cached bitmap for this image, decoding and caching it on a miss. */
+  @Nullable
+  Bitmap obtain(String encodedString, int targetWidth, int type) {
+    String key = keyFor(encodedString, targetWidth, type);
+    Bitmap bitmap = cache.get(key);
+    if (bitmap != null) {
+      return bitmap;
+    }
+    bitmap = decoder.decodeBase64(encodedString, targetWidth);
+    if (bitmap != null) {
+      cache.put(key, bitmap);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Returns the cached bitmap for a {@code file://} or {@code content://} URI, decoding it straight
+   * from a file descriptor on a miss. The key includes the file size, so a file that is replaced
+   * under the same URI is decoded again.
+   */
+  @Nullable
+  Bitmap obtain(ContentResolver resolver, Uri uri, int targetWidth, int type) throws IOException {
+    try (ParcelFileDescriptor descriptor = resolver.openFileDescriptor(uri, "r")) {
+      if (descriptor == null) {
+        throw new FileNotFoundException("No file descriptor for " + uri);
+      }
+      String key = keyForUri(uri, descriptor.getStatSize(), targetWidth, type);
+      Bitmap bitmap = cache.get(key);
+      if (bitmap != null) {
+        return bitmap;
+      }
+      bitmap = decoder.decode(descriptor.getFileDescriptor(), targetWidth);
+      if (bitmap != null) {
+        cache.put(key, bitmap);
+      }
+      return bitmap;
+    }
+  }
+
+  /** Decodes the image into the cache ahead of time and returns its key, or null if it is invalid. */
+  @Nullable
+  String preload(String encodedString, int targetWidth, int type) {
+    String key = keyFor(encodedString, targetWidth, type);
+    if (cache.get(key) == null) {
+      Bitmap bitmap = decoder.decodeBase64(encodedString, targetWidth);
+      if (bitmap == null) {
+        return null;
+      }
+      cache.put(key, bitmap);
+    }
+    return key;
+  }
+
+  boolean evict(String key) {
+    return cache.remove(key) != null;
+  }
+
+  void clear() {
+    cache.evictAll();
+  }
+
+  int hitCount() {
+    return cache.hitCount();
+  }
+
+  int missCount() {
+    return cache.missCount();
+  }
+
+  int entryCount() {
+    return cache.snapshot().size();
+  }
+
+  int sizeBytes() {
+    return cache.size();
+  }
+
+  int maxSizeBytes() {
+    return cache.maxSize();
+  }
+
+  /**
+   * SHA-1 of the base64 payload (without any data URI header) followed by the target width and
+   * type. The payload is hashed straight from the string, so a cache hit costs no decoding.
+   */
+  static String keyFor(String encodedString, int targetWidth, int type) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    byte[] chunk = new byte[4096];
+    int length = encodedString.length();
+    int offset = encodedString.indexOf(',') + 1;
+    while (offset < length) {
+      int count = Math.min(chunk.length, length - offset);
+      for (int i = 0; i < count; i++) {
+        chunk[i] = (byte) encodedString.charAt(offset + i);
+      }
+      digest.update(chunk, 0, count);
+      offset += count;
+    }
+    byte[] hash = digest.digest();
+    StringBuilder key = new StringBuilder(hash.length * 2 + 16);
+    for (byte b : hash) {
+      key.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+    return key.append(':').append(targetWidth).append(':').append(type).toString();
+  }
+
+  /** The URI and its size in bytes followed by the target width and type; nothing is read. */
+  static String keyForUri(Uri uri, long size, int targetWidth, int type) {
+    return "uri:" + uri + ':' + size + ':' + targetWidth + ':' + type;
+  }
+}
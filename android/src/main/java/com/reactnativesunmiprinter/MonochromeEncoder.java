@@ -0,0 +1,150 @@
+package com.reactnativesunmiprinter;
+
+import android.graphics.Bitmap;
+
+import java.util.Arrays;
+
+/**
+ * Converts a bitmap to 1-bit ESC/POS raster data ({@code GS v 0}) so the image crosses Binder as
+ * packed bits rather than a full-colour {@link Bitmap}, and the dither used on logos is chosen
+ * here instead of by the print service.
+ *
+ * <p>Transparent pixels print as white. Tall images are split into bands of at most
+ * {@link #MAX_BAND_HEIGHT} rows, each with its own {@code GS v 0} header.
+ */
+final class MonochromeEncoder {
+
+  static final int DITHER_THRESHOLD = 0;
+  static final int DITHER_FLOYD_STEINBERG = 1;
+  static final int DITHER_ORDERED = 2;
+
+  static final int DEFAULT_THRESHOLD = 128;
+  static final int MAX_BAND_HEIGHT = 256;
+
+  private static final int HEADER_SIZE = 8;
+
+  /** 8x8 Bayer matrix, scaled to 0..255 thresholds when used. */
+  private static final int[] BAYER_8X8 = {
+    0, 32, 8, 40, 2, 34, 10, 42,
+    48, 16, 56, 24, 50, 18, 58, 26,
+    12, 44, 4, 36, 14, 46, 6, 38,
+    60, 28, 52, 20, 62, 30, 54, 22,
+    3, 35, 11, 43, 1, 33, 9, 41,
+    51, 19, 59, 27, 49, 17, 57, 25,
+    15, 47, 7, 39, 13, 45, 5, 37,
+    63, 31, 55, 23, 61, 29, 53, 21,
+  };
+
+  /** Supplies ARGB pixels one row at a time. */
+  interface RowSource {
+    void readRow(int y, int[] pixels);
+  }
+
+  private MonochromeEncoder() {}
+
+  static int checkDither(int dither) {
+    if (dither != DITHER_THRESHOLD && dither != DITHER_FLOYD_STEINBERG && dither != DITHER_ORDERED) {
+      throw new IllegalArgumentException("Unknown dither mode: " + dither);
+    }
+    return dither;
+  }
+
+  /** Encodes {@code bitmap} as one or more {@code GS v 0} commands ready for sendRAWData. */
+  static byte[] encodeRaster(Bitmap bitmap, int dither, int threshold) {
+    byte[] out = new byte[rasterSize(bitmap.getWidth(), bitmap.getHeight())];
+    encodeRaster(bitmap, dither, threshold, out, 0);
+    return out;
+  }
+
+  /** Length of the raster commands {@link #encodeRaster} writes for an image of this size. */
+  static int rasterSize(int width, int height) {
+    int bands = (height + MAX_BAND_HEIGHT - 1) / MAX_BAND_HEIGHT;
+    return bands * HEADER_SIZE + (width + 7) / 8 * height;
+  }
+
+  /** Writes {@link #rasterSize} bytes of raster commands into {@code out} at {@code offset}. */
+  static void encodeRaster(Bitmap bitmap, int dither, int threshold, byte[] out, int offset) {
+    int width = bitmap.getWidth();
+    RowSource rows = (y, pixels) -> bitmap.getPixels(pixels, 0, width, 0, y, width, 1);
+    encodeRaster(rows, width, bitmap.getHeight(), dither, threshold, out, offset);
+  }
+
+  /** Same as the {@link Bitmap} variant, reading pixels from {@code rows}. */
+  static void encodeRaster(
+    RowSource rows,
+    int width,
+    int height,
+    int dither,
+    int threshold,
+    byte[] out,
+    int offset
+  ) {
+    checkDither(dither);
+    int bytesPerRow = (width + 7) / 8;
+
+    int[] pixels = new int[width];
+    // Floyd-Steinberg carries error into the next row; both rows are padded by one on each side.
+    int[] error = dither == DITHER_FLOYD_STEINBERG ? new int[width + 2] : null;
+    int[] nextError = dither == DITHER_FLOYD_STEINBERG ? new int[width + 2] : null;
+
+    for (int y = 0; y < height; y++) {
+      if (y % MAX_BAND_HEIGHT == 0) {
+        int bandHeight = Math.min(MAX_BAND_HEIGHT, height - y);
+        out[offset++] = ESCUtil.GS;
+        out[offset++] = 'v';
+        out[offset++] = '0';
+        out[offset++] = 0;
+        out[offset++] = (byte) (bytesPerRow & 0xFF);
+        out[offset++] = (byte) ((bytesPerRow >> 8) & 0xFF);
+        out[offset++] = (byte) (bandHeight & 0xFF);
+        out[offset++] = (byte) ((bandHeight >> 8) & 0xFF);
+      }
+      rows.readRow(y, pixels);
+      // out may be a reused buffer, so clear the row before setting bits.
+      Arrays.fill(out, offset, offset + bytesPerRow, (byte) 0);
+      for (int x = 0; x < width; x++) {
+        int gray = luminance(pixels[x]);
+        boolean black;
+        switch (dither) {
+          case DITHER_FLOYD_STEINBERG: {
+            int value = gray + error[x + 1];
+            black = value < threshold;
+            int quantError = value - (black ? 0 : 255);
+            error[x + 2] += quantError * 7 / 16;
+            nextError[x] += quantError * 3 / 16;
+            nextError[x + 1] += quantError * 5 / 16;
+            nextError[x + 2] += quantError / 16;
+            break;
+          }
+          case DITHER_ORDERED:
+            // Cell thresholds span 2..254 around 128; a custom threshold shifts the whole matrix.
+            black = gray < BAYER_8X8[(y & 7) * 8 + (x & 7)] * 4 + 2 + threshold - DEFAULT_THRESHOLD;
+            break;
+          default:
+            black = gray < threshold;
+            break;
+        }
+        if (black) {
+          out[offset + (x >> 3)] |= (byte) (0x80 >> (x & 7));
+        }
+      }
+      offset += bytesPerRow;
+      if (error != null) {
+        int[] swap = error;
+        error = nextError;
+        nextError = swap;
+        Arrays.fill(nextError, 0);
+      }
+    }
+  }
+
+  /** Rec. 601 luma of an ARGB pixel, with transparency blended onto white paper. */
+  static int luminance(int argb) {
+    int alpha = (argb >>> 24) & 0xFF;
+    int red = (argb >> 16) & 0xFF;
+    int green = (argb >> 8) & 0xFF;
+    int blue = argb & 0xFF;
+    int gray = (red * 299 + green * 587 + blue * 114) / 1000;
+    return (gray * alpha + 255 * (255 - alpha)) / 255;
+  }
+}
@@ -0,0 +1,243 @@
+package com.reactnativesunmiprinter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One step of a batched print document. The {@code type} of each command matches the name of
+ * the equivalent {@link SunmiPrinterModule} method and its fields match that method's arguments,
+ * e.g. {@code { type: 'printerText', text: 'Hello\n' }}.
+ */
+final class PrintCommand {
+
+  static final String PRINTER_INIT = "printerInit";
+  static final String PRINTER_TEXT = "printerText";
+  static final String PRINT_TEXT_WITH_FONT = "printTextWithFont";
+  static final String PRINT_ORIGINAL_TEXT = "printOriginalText";
+  static final String SET_ALIGNMENT = "setAlignment";
+  static final String SET_FONT_NAME = "setFontName";
+  static final String SET_FONT_SIZE = "setFontSize";
+  static final String SET_FONT_WEIGHT = "setFontWeight";
+  static final String SET_PRINTER_STYLE = "setPrinterStyle";
+  static final String PRINT_COLUMNS_TEXT = "printColumnsText";
+  static final String PRINT_COLUMNS_STRING = "printColumnsString";
+  static final String PRINT_BAR_CODE = "printBarCode";
+  static final String PRINT_QR_CODE = "printQRCode";
+  static final String PRINT_2D_CODE = "print2DCode";
+  static final String PRINT_BITMAP = "printBitmap";
+  static final String PRINT_BITMAP_CUSTOM = "printBitmapCustom";
+  static final String PRINT_BITMAP_URI = "printBitmapUri";
+  static final String PRINT_BITMAP_RASTER = "printBitmapRaster";
+  static final String SEND_RAW_DATA = "sendRAWData";
+  static final String LINE_WRAP = "lineWrap";
+  static final String CUT_PAPER = "cutPaper";
+  static final String OPEN_DRAWER = "openDrawer";
+
+  final String type;
+  @Nullable final String text;
+  @Nullable final String typeface;
+  final float fontSize;
+  final boolean flag;
+  final int[] values;
+  @Nullable final String[] texts;
+  @Nullable final int[] widths;
+  @Nullable final int[] aligns;
+
+  PrintCommand(
+    @NonNull String type,
+    @Nullable String text,
+    @Nullable String typeface,
+    float fontSize,
+    boolean flag,
+    int[] values,
+    @Nullable String[] texts,
+    @Nullable int[] widths,
+    @Nullable int[] aligns
+  ) {
+    this.type = type;
+    this.text = text;
+    this.typeface = typeface;
+    this.fontSize = fontSize;
+    this.flag = flag;
+    this.values = values;
+    this.texts = texts;
+    this.widths = widths;
+    this.aligns = aligns;
+  }
+
+  int value(int index) {
+    return values[index];
+  }
+
+  static List<PrintCommand> fromArray(ReadableArray ops) {
+    List<PrintCommand> commands = new ArrayList<>(ops.size());
+    for (int i = 0; i < ops.size(); i++) {
+      ReadableMap op = ops.getMap(i);
+      if (op == null) {
+        throw new IllegalArgumentException("Print command at index " + i + " is not an object");
+      }
+      commands.add(fromMap(op));
+    }
+    return commands;
+  }
+
+  static PrintCommand fromMap(ReadableMap op) {
+    String type = requireString(op, "type");
+    switch (type) {
+      case PRINTER_INIT:
+      case CUT_PAPER:
+      case OPEN_DRAWER:
+        return simple(type, null);
+      case PRINTER_TEXT:
+      case PRINT_ORIGINAL_TEXT:
+        return simple(type, requireString(op, "text"));
+      case PRINT_TEXT_WITH_FONT:
+        return new PrintCommand(
+          type,
+          requireString(op, "text"),
+          optString(op, "typeface", ""),
+          (float) requireNumber(op, "fontSize"),
+          false,
+          new int[0],
+          null,
+          null,
+          null
+        );
+      case SET_ALIGNMENT:
+        return numbers(type, null, requireInt(op, "alignment"));
+      case SET_FONT_NAME:
+        return new PrintCommand(type, null, requireString(op, "typeface"), 0, false, new int[0], null, null, null);
+      case SET_FONT_SIZE:
+        return new PrintCommand(type, null, null, (float) requireNumber(op, "fontSize"), false, new int[0], null, null, null);
+      case SET_FONT_WEIGHT:
+        return new PrintCommand(type, null, null, 0, requireBoolean(op, "isWeight"), new int[0], null, null, null);
+      case SET_PRINTER_STYLE:
+        return numbers(type, null, requireInt(op, "key"), requireInt(op, "value"));
+      case PRINT_COLUMNS_TEXT:
+      case PRINT_COLUMNS_STRING:
+        return new PrintCommand(
+          type,
+          null,
+          null,
+          0,
+          false,
+          new int[0],
+          toStringArray(requireArray(op, "texts")),
+          toIntArray(requireArray(op, "widths")),
+          toIntArray(requireArray(op, "aligns"))
+        );
+      case PRINT_BAR_CODE:
+        return numbers(
+          type,
+          requireString(op, "data"),
+          requireInt(op, "symbology"),
+          requireInt(op, "height"),
+          requireInt(op, "width"),
+          requireInt(op, "textPosition")
+        );
+      case PRINT_QR_CODE:
+        return numbers(type, requireString(op, "data"), requireInt(op, "modulesize"), requireInt(op, "errorlevel"));
+      case PRINT_2D_CODE:
+        return numbers(
+          type,
+          requireString(op, "data"),
+          requireInt(op, "symbology"),
+          requireInt(op, "modulesize"),
+          requireInt(op, "errorlevel")
+        );
+      case PRINT_BITMAP:
+        return numbers(type, requireString(op, "encodedString"), requireInt(op, "pixelWidth"));
+      case PRINT_BITMAP_CUSTOM:
+        return numbers(type, requireString(op, "encodedString"), requireInt(op, "pixelWidth"), requireInt(op, "imageType"));
+      case PRINT_BITMAP_URI:
+        return numbers(
+          type,
+          requireString(op, "uri"),
+          requireInt(op, "pixelWidth"),
+          optInt(op, "imageType", ImageCache.TYPE_DEFAULT)
+        );
+      case PRINT_BITMAP_RASTER:
+        return numbers(
+          type,
+          requireString(op, "encodedString"),
+          requireInt(op, "pixelWidth"),
+          MonochromeEncoder.checkDither(requireInt(op, "dither")),
+          optInt(op, "threshold", MonochromeEncoder.DEFAULT_THRESHOLD)
+        );
+      case SEND_RAW_DATA:
+        return simple(type, requireString(op, "data"));
+      case LINE_WRAP:
+        return numbers(type, null, requireInt(op, "lines"));
+      default:
+        throw new IllegalArgumentException("Unknown print command type: " + type);
+    }
+  }
+
+  private static PrintCommand simple(String type, @Nullable String text) {
+    return new PrintCommand(type, text, null, 0, false, new int[0], null, null, null);
+  }
+
+  private static PrintCommand numbers(String type, @Nullable String text, int... values) {
+    return new PrintCommand(type, text, null, 0, false, values, null, null, null);
+  }
+
+  private static void requireKey(ReadableMap op, String key) {
+    if (!op.hasKey(key) || op.isNull(key)) {
+      throw new IllegalArgumentException("Print command is missing '" + key + "'");
+    }
+  }
+
+  static String requireString(ReadableMap op, String key) {
+    requireKey(op, key);
+    return op.getString(key);
+  }
+
+  static String optString(ReadableMap op, String key, String fallback) {
+    return op.hasKey(key) && !op.isNull(key) ? op.getString(key) : fallback;
+  }
+
+  static double requireNumber(ReadableMap op, String key) {
+    requireKey(op, key);
+    return op.getDouble(key);
+  }
+
+  static int requireInt(ReadableMap op, String key) {
+    return (int) Math.round(requireNumber(op, key));
+  }
+
+  static int optInt(ReadableMap op, String key, int fallback) {
+    return op.hasKey(key) && !op.isNull(key) ? (int) Math.round(op.getDouble(key)) : fallback;
+  }
+
+  static boolean requireBoolean(ReadableMap op, String key) {
+    requireKey(op, key);
+    return op.getBoolean(key);
+  }
+
+  static ReadableArray requireArray(ReadableMap op, String key) {
+    requireKey(op, key);
+    return op.getArray(key);
+  }
+
+  private static String[] toStringArray(ReadableArray array) {
+    String[] result = new String[array.size()];
+    for (int i = 0; i < array.size(); i++) {
+      result[i] = array.getString(i);
+    }
+    return result;
+  }
+
+  private static int[] toIntArray(ReadableArray array) {
+    int[] result = new int[array.size()];
+    for (int i = 0; i < array.size(); i++) {
+      result[i] = (int) array.getDouble(i);
+    }
+    return result;
+  }
+}
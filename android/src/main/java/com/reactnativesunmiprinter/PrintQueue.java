@@ -0,0 +1,126 @@
+package com.reactnativesunmiprinter;
+
+import android.util.Log;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-writer worker for printer service calls. Every call made by the module is a blocking
+ * Binder transaction, so they run here instead of on the shared native-modules thread. The queue
+ * is bounded: {@link #submit} never blocks and returns {@code false} once the queue is full, which
+ * lets JS back off instead of piling up work.
+ */
+final class PrintQueue {
+
+  static final int DEFAULT_CAPACITY = 128;
+
+  private final int capacity;
+  private final ThreadPoolExecutor executor;
+
+  private final AtomicLong submitted = new AtomicLong();
+  private final AtomicLong started = new AtomicLong();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private volatile long lastWaitNanos;
+
+  PrintQueue(int capacity) {
+    this.capacity = capacity;
+    this.executor = new ThreadPoolExecutor(
+      1,
+      1,
+      0L,
+      TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(capacity),
+      runnable -> {
+        Thread thread = new Thread(runnable, "SunmiPrinterQueue");
+        thread.setDaemon(true);
+        return thread;
+      },
+      new ThreadPoolExecutor.AbortPolicy()
+    );
+  }
+
+  /**
+   * Enqueues {@code job} without blocking. Returns {@code false} when the queue is full or has
+   * been shut down. Unchecked exceptions thrown by {@code job} are logged and dropped.
+   */
+  boolean submit(Runnable job) {
+    final long enqueuedAt = System.nanoTime();
+    try {
+      executor.execute(() -> {
+        recordWait(System.nanoTime() - enqueuedAt);
+        try {
+          job.run();
+        } catch (RuntimeException e) {
+          // A failing job must not take the worker thread, and with it the app, down
+          Log.e(SunmiPrinterModule.TAG, "Print queue job failed", e);
+        } finally {
+          completed.incrementAndGet();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.incrementAndGet();
+      return false;
+    }
+    submitted.incrementAndGet();
+    return true;
+  }
+
+  private void recordWait(long waitNanos) {
+    started.incrementAndGet();
+    lastWaitNanos = waitNanos;
+    totalWaitNanos.addAndGet(waitNanos);
+    long max;
+    do {
+      max = maxWaitNanos.get();
+    } while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos));
+  }
+
+  int capacity() {
+    return capacity;
+  }
+
+  /** Jobs waiting to run, not counting the one currently running. */
+  int depth() {
+    return executor.getQueue().size();
+  }
+
+  boolean isBusy() {
+    return executor.getActiveCount() > 0 || !executor.getQueue().isEmpty();
+  }
+
+  long submittedCount() {
+    return submitted.get();
+  }
+
+  long completedCount() {
+    return completed.get();
+  }
+
+  long rejectedCount() {
+    return rejected.get();
+  }
+
+  double lastWaitMillis() {
+    return lastWaitNanos / 1e6;
+  }
+
+  double maxWaitMillis() {
+    return maxWaitNanos.get() / 1e6;
+  }
+
+  double averageWaitMillis() {
+    long count = started.get();
+    return count == 0 ? 0 : totalWaitNanos.get() / 1e6 / count;
+  }
+
+  void shutdown() {
+    executor.shutdown();
+  }
+}
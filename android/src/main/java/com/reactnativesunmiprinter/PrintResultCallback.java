@@ -0,0 +1,144 @@
+package com.reactnativesunmiprinter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.facebook.react.bridge.Promise;
+import com.sunmi.peripheral.printer.InnerResultCallback;
+
+/**
+ * Per-job callback that settles one promise with the outcome reported by the printer service.
+ * Plain commands report through {@link #onRunResult}, buffered transactions and
+ * {@code commitPrint} through {@link #onPrintResult} (code 0 means printed), and queries such as
+ * {@code getPrintedLength} through {@link #onReturnString}. {@link #onRaiseException} always
+ * rejects.
+ *
+ * <p>If the service never answers, for example because its process died after taking the call,
+ * the promise is rejected with {@link #TIMEOUT_CODE} once the mode's deadline has passed.
+ */
+class PrintResultCallback extends InnerResultCallback {
+
+  static final String TIMEOUT_CODE = "E_PRINT_TIMEOUT";
+  /** Deadline for commands and queries, which the service answers as soon as it has run them. */
+  static final long COMMAND_TIMEOUT_MS = 30_000;
+  /** Deadline for print results, which only arrive once the paper has been printed. */
+  static final long PRINT_TIMEOUT_MS = 120_000;
+
+  private static final Handler deadlines = new Handler(Looper.getMainLooper());
+
+  enum Mode {
+    RUN_RESULT,
+    PRINT_RESULT,
+    RETURN_STRING,
+  }
+
+  private final Promise promise;
+  private final Mode mode;
+  private final Runnable expire;
+  private boolean settled;
+
+  PrintResultCallback(Promise promise, Mode mode) {
+    this.promise = promise;
+    this.mode = mode;
+    long timeoutMs = mode == Mode.PRINT_RESULT ? PRINT_TIMEOUT_MS : COMMAND_TIMEOUT_MS;
+    expire = () -> timeOut(timeoutMs);
+    deadlines.postDelayed(expire, timeoutMs);
+  }
+
+  static PrintResultCallback forCommand(Promise promise) {
+    return new PrintResultCallback(promise, Mode.RUN_RESULT);
+  }
+
+  static PrintResultCallback forPrintResult(Promise promise) {
+    return new PrintResultCallback(promise, Mode.PRINT_RESULT);
+  }
+
+  static PrintResultCallback forReturnString(Promise promise) {
+    return new PrintResultCallback(promise, Mode.RETURN_STRING);
+  }
+
+  @Override
+  public void onRunResult(boolean isSuccess) {
+    Log.d(SunmiPrinterModule.TAG, "onRunResult: " + isSuccess);
+    if (mode != Mode.RUN_RESULT) {
+      return;
+    }
+    if (isSuccess) {
+      resolve(null);
+    } else {
+      reject(-1, "command was not executed");
+    }
+  }
+
+  @Override
+  public void onReturnString(String result) {
+    Log.d(SunmiPrinterModule.TAG, "onReturnString: " + result);
+    if (mode == Mode.RETURN_STRING) {
+      resolve(result);
+    }
+  }
+
+  @Override
+  public void onRaiseException(int code, String msg) {
+    reject(code, msg);
+  }
+
+  @Override
+  public void onPrintResult(int code, String msg) {
+    Log.d(SunmiPrinterModule.TAG, "onPrintResult: code=" + code + " message=" + msg);
+    if (mode != Mode.PRINT_RESULT) {
+      return;
+    }
+    if (code == 0) {
+      resolve(msg);
+    } else {
+      reject(code, msg);
+    }
+  }
+
+  synchronized void resolve(Object value) {
+    if (!settle()) {
+      return;
+    }
+    promise.resolve(value);
+  }
+
+  synchronized void reject(int code, String msg) {
+    if (!settle()) {
+      return;
+    }
+    Log.w(SunmiPrinterModule.TAG, "print job failed: code=" + code + " message=" + msg);
+    promise.reject(SunmiPrinterModule.ERROR_CODE, "Print failed (" + code + "): " + msg);
+  }
+
+  /**
+   * Rejects with {@code error}, for when the service call this callback was given to threw. Also
+   * cancels the deadline, so the promise is not rejected a second time when it passes.
+   */
+  synchronized void fail(Throwable error) {
+    if (!settle()) {
+      return;
+    }
+    Log.e(SunmiPrinterModule.TAG, error.getMessage(), error);
+    promise.reject(SunmiPrinterModule.ERROR_CODE, error.getMessage(), error);
+  }
+
+  private synchronized void timeOut(long timeoutMs) {
+    if (!settle()) {
+      return;
+    }
+    Log.w(SunmiPrinterModule.TAG, "print job got no answer from the printer service in " + timeoutMs + " ms");
+    promise.reject(TIMEOUT_CODE, "The printer service did not answer within " + timeoutMs + " ms");
+  }
+
+  /** Must hold the lock. Marks the callback settled; false if it already was. */
+  private boolean settle() {
+    if (settled) {
+      return false;
+    }
+    settled = true;
+    deadlines.removeCallbacks(expire);
+    return true;
+  }
+}
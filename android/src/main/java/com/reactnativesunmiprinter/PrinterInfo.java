@@ -0,0 +1,53 @@
+package com.reactnativesunmiprinter;
+
+import android.os.RemoteException;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import com.sunmi.peripheral.printer.SunmiPrinterService;
+
+/**
+ * Identity of the connected printer. None of it changes while the service is bound, so it is
+ * read once per connection and served from memory afterwards.
+ */
+final class PrinterInfo {
+
+  final String serialNo;
+  final String printerVersion;
+  final String model;
+  final String paper;
+  final String serviceVersion;
+
+  PrinterInfo(String serialNo, String printerVersion, String model, String paper, String serviceVersion) {
+    this.serialNo = serialNo;
+    this.printerVersion = printerVersion;
+    this.model = model;
+    this.paper = paper;
+    this.serviceVersion = serviceVersion;
+  }
+
+  static PrinterInfo read(SunmiPrinterService service) throws RemoteException {
+    return new PrinterInfo(
+      service.getPrinterSerialNo(),
+      service.getPrinterVersion(),
+      service.getPrinterModal(),
+      service.getPrinterPaper() == 1 ? "58mm" : "80mm",
+      service.getServiceVersion()
+    );
+  }
+
+  /** Characters per line in the default font, see {@link ColumnLayout}. */
+  int lineChars() {
+    return "58mm".equals(paper) ? ColumnLayout.CHARS_PER_LINE_58MM : ColumnLayout.CHARS_PER_LINE_80MM;
+  }
+
+  WritableMap toMap() {
+    WritableMap map = Arguments.createMap();
+    map.putString("serialNo", serialNo);
+    map.putString("printerVersion", printerVersion);
+    map.putString("model", model);
+    map.putString("paper", paper);
+    map.putString("serviceVersion", serviceVersion);
+    return map;
+  }
+}
@@ -0,0 +1,152 @@
+package com.reactnativesunmiprinter;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-method call counts, latency histograms, queue wait and payload bytes for the calls the
+ * module makes into the printer service. Recording is a few atomic increments per call, so it
+ * stays on in production.
+ *
+ * <p>Latency is the time spent in the call on the print queue thread: the Binder transactions
+ * plus any native work done for them, such as decoding an image. Wait is the time from the
+ * {@code @ReactMethod} call until the job started, including time spent waiting for the service
+ * to connect. Bytes are raw data and bitmap pixels handed to the service.
+ *
+ * <p>Histogram bucket {@code i} counts calls that took less than {@code 2^i} microseconds (and at
+ * least {@code 2^(i-1)}); the last bucket also holds everything slower.
+ */
+final class PrinterMetrics {
+
+  static final int BUCKETS = 24;
+
+  static final class MethodStats {
+    final AtomicLong calls = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+    final AtomicLong totalNanos = new AtomicLong();
+    final AtomicLong maxNanos = new AtomicLong();
+    final AtomicLong totalWaitNanos = new AtomicLong();
+    final AtomicLong maxWaitNanos = new AtomicLong();
+    final AtomicLong bytes = new AtomicLong();
+    final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    void record(long waitNanos, long nanos, long sentBytes, boolean failed) {
+      calls.incrementAndGet();
+      if (failed) {
+        errors.incrementAndGet();
+      }
+      totalNanos.addAndGet(nanos);
+      totalWaitNanos.addAndGet(waitNanos);
+      bytes.addAndGet(sentBytes);
+      histogram.incrementAndGet(bucketFor(nanos));
+      raiseTo(maxNanos, nanos);
+      raiseTo(maxWaitNanos, waitNanos);
+    }
+
+    /** Upper bound, in milliseconds, of the bucket holding the {@code quantile} call. */
+    double quantileMillis(double quantile) {
+      long count = 0;
+      long[] counts = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] = histogram.get(i);
+        count += counts[i];
+      }
+      if (count == 0) {
+        return 0;
+      }
+      long target = (long) Math.ceil(quantile * count);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += counts[i];
+        if (seen >= target) {
+          return (1L << i) / 1000.0;
+        }
+      }
+      return (1L << (BUCKETS - 1)) / 1000.0;
+    }
+  }
+
+  private final ConcurrentHashMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+  private volatile long sinceMillis = System.currentTimeMillis();
+
+  void record(String method, long waitNanos, long nanos, long sentBytes, boolean failed) {
+    stats(method).record(waitNanos, nanos, sentBytes, failed);
+  }
+
+  void reset() {
+    methods.clear();
+    sinceMillis = System.currentTimeMillis();
+  }
+
+  private MethodStats stats(String method) {
+    MethodStats stats = methods.get(method);
+    if (stats == null) {
+      MethodStats created = new MethodStats();
+      stats = methods.putIfAbsent(method, created);
+      if (stats == null) {
+        stats = created;
+      }
+    }
+    return stats;
+  }
+
+  private static void raiseTo(AtomicLong max, long value) {
+    long current;
+    do {
+      current = max.get();
+    } while (value > current && !max.compareAndSet(current, value));
+  }
+
+  static int bucketFor(long nanos) {
+    long micros = nanos / 1000;
+    int bucket = 64 - Long.numberOfLeadingZeros(micros);
+    return Math.min(BUCKETS - 1, bucket);
+  }
+
+  WritableMap toMap() {
+    WritableMap result = Arguments.createMap();
+    WritableMap methodsMap = Arguments.createMap();
+    long totalCalls = 0;
+    long totalBytes = 0;
+    for (Map.Entry<String, MethodStats> entry : methods.entrySet()) {
+      MethodStats stats = entry.getValue();
+      long calls = stats.calls.get();
+      WritableMap map = Arguments.createMap();
+      map.putDouble("calls", calls);
+      map.putDouble("errors", stats.errors.get());
+      map.putDouble("totalMs", stats.totalNanos.get() / 1e6);
+      map.putDouble("meanMs", calls == 0 ? 0 : stats.totalNanos.get() / 1e6 / calls);
+      map.putDouble("maxMs", stats.maxNanos.get() / 1e6);
+      map.putDouble("p50Ms", stats.quantileMillis(0.50));
+      map.putDouble("p95Ms", stats.quantileMillis(0.95));
+      map.putDouble("p99Ms", stats.quantileMillis(0.99));
+      map.putDouble("averageWaitMs", calls == 0 ? 0 : stats.totalWaitNanos.get() / 1e6 / calls);
+      map.putDouble("maxWaitMs", stats.maxWaitNanos.get() / 1e6);
+      map.putDouble("bytes", stats.bytes.get());
+      WritableArray histogram = Arguments.createArray();
+      for (int i = 0; i < BUCKETS; i++) {
+        histogram.pushDouble(stats.histogram.get(i));
+      }
+      map.putArray("histogram", histogram);
+      methodsMap.putMap(entry.getKey(), map);
+      totalCalls += calls;
+      totalBytes += stats.bytes.get();
+    }
+    WritableArray bounds = Arguments.createArray();
+    for (int i = 0; i < BUCKETS; i++) {
+      bounds.pushDouble(1L << i);
+    }
+    result.putMap("methods", methodsMap);
+    result.putArray("histogramBoundsUs", bounds);
+    result.putDouble("totalCalls", totalCalls);
+    result.putDouble("totalBytes", totalBytes);
+    result.putDouble("sinceMs", sinceMillis);
+    return result;
+  }
+}
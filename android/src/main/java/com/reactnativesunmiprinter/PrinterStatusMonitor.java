@@ -0,0 +1,150 @@
+package com.reactnativesunmiprinter;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.RemoteException;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Watches {@code updatePrinterState} on its own thread and reports only changes. The poll
+ * interval adapts: it stays at {@link #BUSY_INTERVAL_MS} while jobs are printing and doubles
+ * towards {@link #MAX_IDLE_INTERVAL_MS} while the printer is idle and its state is unchanged, so
+ * an idle terminal costs almost nothing. Any change, or new print work, drops back to the fast
+ * interval.
+ */
+final class PrinterStatusMonitor {
+
+  static final long BUSY_INTERVAL_MS = 250;
+  static final long MIN_IDLE_INTERVAL_MS = 1_000;
+  static final long MAX_IDLE_INTERVAL_MS = 10_000;
+
+  /** Status reported while the printer service is not connected. */
+  static final int STATUS_DISCONNECTED = -1;
+
+  interface StatusSource {
+    /** Returns the current status, or {@link #STATUS_DISCONNECTED}. */
+    int read() throws RemoteException;
+
+    boolean isBusy();
+  }
+
+  interface Listener {
+    void onStatusChanged(int status, int previous);
+  }
+
+  private final StatusSource source;
+  private final Listener listener;
+
+  @Nullable private HandlerThread thread;
+  @Nullable private volatile Handler handler;
+  private volatile int lastStatus = Integer.MIN_VALUE;
+  private volatile long idleInterval = MIN_IDLE_INTERVAL_MS;
+
+  private final Runnable poll = new Runnable() {
+    @Override
+    public void run() {
+      Handler current = handler;
+      if (current == null) {
+        return;
+      }
+      current.postDelayed(this, check());
+    }
+  };
+
+  PrinterStatusMonitor(StatusSource source, Listener listener) {
+    this.source = source;
+    this.listener = listener;
+  }
+
+  synchronized void start() {
+    if (thread != null) {
+      return;
+    }
+    thread = new HandlerThread("SunmiPrinterStatus");
+    thread.start();
+    handler = new Handler(thread.getLooper());
+    idleInterval = MIN_IDLE_INTERVAL_MS;
+    handler.post(poll);
+  }
+
+  synchronized void stop() {
+    if (thread == null) {
+      return;
+    }
+    handler.removeCallbacks(poll);
+    thread.quitSafely();
+    thread = null;
+    handler = null;
+    lastStatus = Integer.MIN_VALUE;
+  }
+
+  /**
+   * Asks for an immediate check, e.g. after a job was queued or the service reconnected. Does
+   * nothing while the monitor is already on its shortest interval.
+   */
+  synchronized void poke() {
+    if (handler != null && idleInterval > MIN_IDLE_INTERVAL_MS) {
+      idleInterval = MIN_IDLE_INTERVAL_MS;
+      handler.removeCallbacks(poll);
+      handler.post(poll);
+    }
+  }
+
+  /** Reads the status once, reports a change, and returns the delay until the next read. */
+  private long check() {
+    int status;
+    try {
+      status = source.read();
+    } catch (RemoteException | RuntimeException e) {
+      Log.w(SunmiPrinterModule.TAG, "updatePrinterState failed", e);
+      status = STATUS_DISCONNECTED;
+    }
+    boolean changed = status != lastStatus;
+    if (changed) {
+      int previous = lastStatus;
+      lastStatus = status;
+      listener.onStatusChanged(status, previous == Integer.MIN_VALUE ? STATUS_DISCONNECTED : previous);
+    }
+    if (changed || source.isBusy()) {
+      idleInterval = MIN_IDLE_INTERVAL_MS;
+      return BUSY_INTERVAL_MS;
+    }
+    long delay = idleInterval;
+    idleInterval = Math.min(MAX_IDLE_INTERVAL_MS, idleInterval * 2);
+    return delay;
+  }
+
+  /** Name of a {@code updatePrinterState} code, as documented by the Sunmi printer service. */
+  static String statusName(int status) {
+    switch (status) {
+      case STATUS_DISCONNECTED:
+        return "DISCONNECTED";
+      case 1:
+        return "NORMAL";
+      case 2:
+        return "PREPARING";
+      case 3:
+        return "COMMUNICATION_ERROR";
+      case 4:
+        return "OUT_OF_PAPER";
+      case 5:
+        return "OVERHEATED";
+      case 6:
+        return "COVER_OPEN";
+      case 7:
+        return "CUTTER_ERROR";
+      case 8:
+        return "CUTTER_RECOVERED";
+      case 9:
+        return "NO_BLACK_MARK";
+      case 505:
+        return "NO_PRINTER";
+      case 507:
+        return "FIRMWARE_UPDATE_FAILED";
+      default:
+        return "UNKNOWN";
+    }
+  }
+}
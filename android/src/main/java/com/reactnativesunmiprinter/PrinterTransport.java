@@ -0,0 +1,36 @@
+package com.reactnativesunmiprinter;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Where raw ESC/POS bytes are printed. The built-in Sunmi printer service is one backend; printers
+ * on the network that take raw ESC/POS over TCP are another, see {@link TcpPrinterTransport}.
+ * Backends are registered with the module under a printer id.
+ */
+interface PrinterTransport {
+
+  /** Builds a job's bytes; see {@link #send(String, Encoding, Promise)}. */
+  interface Encoding {
+    /** Encodes into {@code out}, which is owned by the backend, and returns a copy of the bytes. */
+    byte[] encode(EscPosEncoder out);
+  }
+
+  /**
+   * Sends {@code data} without blocking and settles {@code promise} once the backend has taken all
+   * of it. {@code method} names the call in {@link PrinterMetrics}.
+   */
+  void send(String method, byte[] data, Promise promise);
+
+  /**
+   * Like {@link #send(String, byte[], Promise)}, but the bytes are built by {@code encoding} on the
+   * backend's own thread with its own encoder, so decoding images for a job never blocks the
+   * caller. An exception thrown by {@code encoding} rejects {@code promise}.
+   */
+  void send(String method, Encoding encoding, Promise promise);
+
+  WritableMap stats();
+
+  /** Rejects anything not sent yet and releases the backend's resources. */
+  void close();
+}
@@ -0,0 +1,119 @@
+package com.reactnativesunmiprinter;
+
+import android.util.Log;
+
+import androidx.annotation.Keep;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSI binding that moves raw print data from a JS {@code ArrayBuffer} into Java without base64.
+ * {@link #install} adds {@code global.__sunmiPrinterStageRawData(buffer)} to the JS runtime. It
+ * copies the buffer's bytes straight into a {@code byte[]} (one copy), stages it here and returns
+ * a handle, which JS then passes to {@code sendRAWDataStaged} to print through the normal queue.
+ *
+ * <p>Payloads stay staged until {@code sendRAWDataStaged} takes them; nothing is evicted. Once
+ * {@link #MAX_STAGED_BYTES} are waiting, staging fails and the JS call throws, so a burst larger
+ * than that is rejected up front instead of losing its first jobs. The stage is shared by every
+ * React host in the process, so each payload remembers the runtime that staged it and
+ * {@link #clear} only drops the payloads of the runtime being torn down.
+ *
+ * <p>The native library is only built with the new architecture. Without it, or without a JS
+ * runtime pointer (remote debugging), {@link #install} returns false and JS falls back to
+ * {@code sendRAWData} with base64.
+ */
+final class RawDataJsi {
+
+  /** Bytes that may wait to be sent; a single larger payload is still accepted on its own. */
+  static final long MAX_STAGED_BYTES = 32L * 1024 * 1024;
+  /** Returned by {@link #stage} when the stage is full. */
+  static final int STAGE_FULL = -1;
+
+  private static final String LIBRARY = "reactnativesunmiprinter";
+
+  private static final class Staged {
+    final long runtime;
+    final byte[] data;
+
+    Staged(long runtime, byte[] data) {
+      this.runtime = runtime;
+      this.data = data;
+    }
+  }
+
+  private static final Map<Integer, Staged> staged = new LinkedHashMap<>();
+  private static long stagedBytes;
+  private static int nextHandle = 1;
+  @Nullable private static Boolean loaded;
+
+  private RawDataJsi() {}
+
+  /** Installs the binding into the runtime at {@code runtimePointer}; must run on the JS thread. */
+  static synchronized boolean install(long runtimePointer) {
+    if (runtimePointer == 0 || !loadLibrary()) {
+      return false;
+    }
+    nativeInstall(runtimePointer);
+    return true;
+  }
+
+  private static boolean loadLibrary() {
+    if (loaded == null) {
+      try {
+        System.loadLibrary(LIBRARY);
+        loaded = true;
+      } catch (UnsatisfiedLinkError e) {
+        Log.i(SunmiPrinterModule.TAG, "JSI raw data binding not available, using base64", e);
+        loaded = false;
+      }
+    }
+    return loaded;
+  }
+
+  /**
+   * Called from native code with the copied bytes and the runtime they came from; returns the
+   * handle for {@link #take}, or {@link #STAGE_FULL} if {@code data} does not fit next to what is
+   * already staged.
+   */
+  @Keep
+  static synchronized int stage(long runtime, byte[] data) {
+    if (!staged.isEmpty() && stagedBytes + data.length > MAX_STAGED_BYTES) {
+      return STAGE_FULL;
+    }
+    int handle = nextHandle++;
+    if (nextHandle == Integer.MAX_VALUE) {
+      nextHandle = 1;
+    }
+    staged.put(handle, new Staged(runtime, data));
+    stagedBytes += data.length;
+    return handle;
+  }
+
+  /** Removes and returns the payload staged under {@code handle}, or null if there is none. */
+  @Nullable
+  static synchronized byte[] take(int handle) {
+    Staged entry = staged.remove(handle);
+    if (entry == null) {
+      return null;
+    }
+    stagedBytes -= entry.data.length;
+    return entry.data;
+  }
+
+  /** Drops what the runtime at {@code runtimePointer} staged, for when that runtime goes away. */
+  static synchronized void clear(long runtimePointer) {
+    Iterator<Staged> entries = staged.values().iterator();
+    while (entries.hasNext()) {
+      Staged entry = entries.next();
+      if (entry.runtime == runtimePointer) {
+        stagedBytes -= entry.data.length;
+        entries.remove();
+      }
+    }
+  }
+
+  private static native void nativeInstall(long runtimePointer);
+}
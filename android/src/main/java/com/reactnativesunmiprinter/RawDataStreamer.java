@@ -0,0 +1,198 @@
+package com.reactnativesunmiprinter;
+
+import android.os.RemoteException;
+import android.util.Base64;
+
+import androidx.annotation.Nullable;
+
+import com.sunmi.peripheral.printer.InnerResultCallback;
+import com.sunmi.peripheral.printer.SunmiPrinterService;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends large raw payloads to the printer in fixed-size chunks, each in its own Binder
+ * transaction, so they stay well below the ~1 MB transaction limit. Chunks are sent in order and
+ * the next one is only sent after the service has acknowledged the previous one, which keeps the
+ * service's buffer from being flooded. Runs on the print queue thread and blocks it until the
+ * whole payload is sent.
+ */
+final class RawDataStreamer {
+
+  static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+  static final int MIN_CHUNK_SIZE = 512;
+  static final int MAX_CHUNK_SIZE = 256 * 1024;
+  static final long CHUNK_TIMEOUT_MS = 30_000;
+
+  interface ProgressListener {
+    void onProgress(int sentBytes, int totalBytes, int chunkIndex, int chunkCount);
+  }
+
+  /** A payload that hands out chunks on demand, so it never has to be fully decoded. */
+  interface Source {
+    int length();
+
+    byte[] read(int offset, int length);
+  }
+
+  private RawDataStreamer() {}
+
+  static Source bytes(byte[] data) {
+    return new Source() {
+      @Override
+      public int length() {
+        return data.length;
+      }
+
+      @Override
+      public byte[] read(int offset, int length) {
+        byte[] chunk = new byte[length];
+        System.arraycopy(data, offset, chunk, 0, length);
+        return chunk;
+      }
+    };
+  }
+
+  /**
+   * Decodes a base64 string one chunk at a time. Chunk offsets must be multiples of 3 so every
+   * chunk starts on a 4-character boundary; {@link #alignChunkSize} takes care of that. The
+   * trailing padding may be left out, as {@link Base64#decode} allows.
+   */
+  static Source base64(String encoded) {
+    String data = stripWhitespace(encoded);
+    int tail = data.length() % 4;
+    if (tail == 1) {
+      throw new IllegalArgumentException("Invalid base64 length: " + data.length());
+    }
+    int length;
+    if (tail == 0) {
+      int padding = data.endsWith("==") ? 2 : data.endsWith("=") ? 1 : 0;
+      length = data.length() / 4 * 3 - padding;
+    } else {
+      // An unpadded tail of 2 or 3 characters holds 1 or 2 bytes
+      length = data.length() / 4 * 3 + tail - 1;
+    }
+    return new Source() {
+      @Override
+      public int length() {
+        return length;
+      }
+
+      @Override
+      public byte[] read(int offset, int count) {
+        int start = offset / 3 * 4;
+        int end = Math.min(data.length(), (offset + count + 2) / 3 * 4);
+        return Base64.decode(data.substring(start, end), Base64.NO_WRAP);
+      }
+    };
+  }
+
+  /** Clamps {@code requested} to the allowed range and rounds it down to a multiple of 3. */
+  static int alignChunkSize(int requested) {
+    int size = requested <= 0 ? DEFAULT_CHUNK_SIZE : requested;
+    size = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size));
+    return size - size % 3;
+  }
+
+  /**
+   * Sends {@code source} in chunks of {@code chunkSize} bytes. Throws
+   * {@link IllegalStateException} if the service rejects a chunk or does not acknowledge it in
+   * time; chunks already sent stay sent.
+   */
+  static void stream(
+    SunmiPrinterService service,
+    Source source,
+    int chunkSize,
+    @Nullable ProgressListener listener
+  ) throws RemoteException {
+    stream(service, source, chunkSize, listener, true);
+  }
+
+  /**
+   * Like {@link #stream(SunmiPrinterService, Source, int, ProgressListener)}, but with
+   * {@code acknowledged} false the chunks are sent back to back without waiting for the service.
+   * Used while the printer buffer is open, where the service holds every answer until commit.
+   */
+  static void stream(
+    SunmiPrinterService service,
+    Source source,
+    int chunkSize,
+    @Nullable ProgressListener listener,
+    boolean acknowledged
+  ) throws RemoteException {
+    int size = alignChunkSize(chunkSize);
+    int total = source.length();
+    int chunkCount = Math.max(1, (total + size - 1) / size);
+    int sent = 0;
+    for (int index = 0; index < chunkCount; index++) {
+      int length = Math.min(size, total - sent);
+      if (acknowledged) {
+        ChunkCallback callback = new ChunkCallback();
+        service.sendRAWData(source.read(sent, length), callback);
+        callback.await(index, chunkCount);
+      } else {
+        service.sendRAWData(source.read(sent, length), null);
+      }
+      sent += length;
+      if (listener != null) {
+        listener.onProgress(sent, total, index, chunkCount);
+      }
+    }
+  }
+
+  private static String stripWhitespace(String encoded) {
+    int commaIndex = encoded.indexOf(',');
+    String data = commaIndex >= 0 ? encoded.substring(commaIndex + 1) : encoded;
+    for (int i = 0; i < data.length(); i++) {
+      if (Character.isWhitespace(data.charAt(i))) {
+        return data.replaceAll("\\s", "");
+      }
+    }
+    return data;
+  }
+
+  /** Waits for the service to report the outcome of one chunk. */
+  private static final class ChunkCallback extends InnerResultCallback {
+
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean success;
+    private volatile String failure;
+
+    @Override
+    public void onRunResult(boolean isSuccess) {
+      success = isSuccess;
+      if (!isSuccess) {
+        failure = "command was not executed";
+      }
+      done.countDown();
+    }
+
+    @Override
+    public void onReturnString(String result) {}
+
+    @Override
+    public void onRaiseException(int code, String msg) {
+      failure = "(" + code + ") " + msg;
+      done.countDown();
+    }
+
+    @Override
+    public void onPrintResult(int code, String msg) {}
+
+    void await(int index, int chunkCount) {
+      String chunk = "chunk " + (index + 1) + "/" + chunkCount;
+      try {
+        if (!done.await(CHUNK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+          throw new IllegalStateException(chunk + " was not acknowledged within " + CHUNK_TIMEOUT_MS + " ms");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(chunk + " interrupted", e);
+      }
+      if (!success) {
+        throw new IllegalStateException(chunk + " failed: " + failure);
+      }
+    }
+  }
+}
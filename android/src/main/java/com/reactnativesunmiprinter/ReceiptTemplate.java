@@ -0,0 +1,319 @@
+package com.reactnativesunmiprinter;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A receipt layout compiled once from {@link PrintCommand} ops and rendered per receipt with a
+ * data map. String fields ({@code text}, {@code data}, {@code encodedString}, column
+ * {@code texts}) may contain {@code {{name}}} placeholders. Two control ops are supported:
+ * {@code { type: 'repeat', each: 'items', ops }} renders {@code ops} once per element of the
+ * {@code items} array, with the element's keys shadowing the outer data, and
+ * {@code { type: 'if', key, ops }} renders {@code ops} only when {@code key} is set and not
+ * false, zero or empty.
+ *
+ * <p>Ops without placeholders are parsed into commands at compile time and reused as-is.
+ */
+final class ReceiptTemplate {
+
+  static final String REPEAT = "repeat";
+  static final String IF = "if";
+
+  private final List<Node> nodes;
+  private final int commandCount;
+
+  private ReceiptTemplate(List<Node> nodes, int commandCount) {
+    this.nodes = nodes;
+    this.commandCount = commandCount;
+  }
+
+  static ReceiptTemplate compile(ReadableArray ops) {
+    List<Node> nodes = compileNodes(ops);
+    return new ReceiptTemplate(nodes, countCommands(nodes));
+  }
+
+  List<PrintCommand> render(ReadableMap data) {
+    List<PrintCommand> out = new ArrayList<>(commandCount);
+    Scope scope = new Scope(data, null);
+    for (Node node : nodes) {
+      node.render(scope, out);
+    }
+    return out;
+  }
+
+  private interface Node {
+    void render(Scope scope, List<PrintCommand> out);
+
+    /** Commands in one rendering, counting a repeat body once. */
+    int commandCount();
+  }
+
+  private static List<Node> compileNodes(ReadableArray ops) {
+    List<Node> nodes = new ArrayList<>(ops.size());
+    for (int i = 0; i < ops.size(); i++) {
+      ReadableMap op = ops.getMap(i);
+      if (op == null) {
+        throw new IllegalArgumentException("Template op at index " + i + " is not an object");
+      }
+      String type = PrintCommand.requireString(op, "type");
+      if (REPEAT.equals(type)) {
+        nodes.add(new RepeatNode(PrintCommand.requireString(op, "each"), compileNodes(PrintCommand.requireArray(op, "ops"))));
+      } else if (IF.equals(type)) {
+        nodes.add(new IfNode(PrintCommand.requireString(op, "key"), compileNodes(PrintCommand.requireArray(op, "ops"))));
+      } else {
+        nodes.add(CommandNode.compile(PrintCommand.fromMap(op)));
+      }
+    }
+    return nodes;
+  }
+
+  /**
+   * Commands in one pass over the compiled template, counting each repeat body once. Counted from
+   * the nodes rather than the ops, which {@link #compileNodes} has already checked.
+   */
+  private static int countCommands(List<Node> nodes) {
+    int count = 0;
+    for (Node node : nodes) {
+      count += node.commandCount();
+    }
+    return count;
+  }
+
+  private static final class CommandNode implements Node {
+
+    private final PrintCommand prototype;
+    @Nullable private final TemplateString text;
+    @Nullable private final TemplateString[] texts;
+
+    private CommandNode(PrintCommand prototype, @Nullable TemplateString text, @Nullable TemplateString[] texts) {
+      this.prototype = prototype;
+      this.text = text;
+      this.texts = texts;
+    }
+
+    static CommandNode compile(PrintCommand command) {
+      TemplateString text = TemplateString.compile(command.text);
+      TemplateString[] texts = null;
+      if (command.texts != null) {
+        TemplateString[] compiled = new TemplateString[command.texts.length];
+        boolean dynamic = false;
+        for (int i = 0; i < compiled.length; i++) {
+          compiled[i] = TemplateString.compile(command.texts[i]);
+          dynamic |= compiled[i] != null;
+        }
+        texts = dynamic ? compiled : null;
+      }
+      return new CommandNode(command, text, texts);
+    }
+
+    @Override
+    public void render(Scope scope, List<PrintCommand> out) {
+      if (text == null && texts == null) {
+        out.add(prototype);
+        return;
+      }
+      String renderedText = text != null ? text.render(scope) : prototype.text;
+      String[] renderedTexts = prototype.texts;
+      if (texts != null) {
+        renderedTexts = new String[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+          renderedTexts[i] = texts[i] != null ? texts[i].render(scope) : prototype.texts[i];
+        }
+      }
+      out.add(new PrintCommand(
+        prototype.type,
+        renderedText,
+        prototype.typeface,
+        prototype.fontSize,
+        prototype.flag,
+        prototype.values,
+        renderedTexts,
+        prototype.widths,
+        prototype.aligns
+      ));
+    }
+
+    @Override
+    public int commandCount() {
+      return 1;
+    }
+  }
+
+  private static final class RepeatNode implements Node {
+
+    private final String key;
+    private final List<Node> body;
+
+    RepeatNode(String key, List<Node> body) {
+      this.key = key;
+      this.body = body;
+    }
+
+    @Override
+    public void render(Scope scope, List<PrintCommand> out) {
+      ReadableArray items = scope.array(key);
+      if (items == null) {
+        return;
+      }
+      for (int i = 0; i < items.size(); i++) {
+        Scope itemScope = new Scope(items.getType(i) == ReadableType.Map ? items.getMap(i) : null, scope);
+        for (Node node : body) {
+          node.render(itemScope, out);
+        }
+      }
+    }
+
+    @Override
+    public int commandCount() {
+      return countCommands(body);
+    }
+  }
+
+  private static final class IfNode implements Node {
+
+    private final String key;
+    private final List<Node> body;
+
+    IfNode(String key, List<Node> body) {
+      this.key = key;
+      this.body = body;
+    }
+
+    @Override
+    public void render(Scope scope, List<PrintCommand> out) {
+      if (!scope.isTruthy(key)) {
+        return;
+      }
+      for (Node node : body) {
+        node.render(scope, out);
+      }
+    }
+
+    @Override
+    public int commandCount() {
+      return countCommands(body);
+    }
+  }
+
+  /** A string split into literal and {@code {{name}}} segments. */
+  private static final class TemplateString {
+
+    private final String[] literals;
+    private final String[] keys;
+
+    private TemplateString(String[] literals, String[] keys) {
+      this.literals = literals;
+      this.keys = keys;
+    }
+
+    /** Returns null when {@code source} has no placeholders. */
+    @Nullable
+    static TemplateString compile(@Nullable String source) {
+      if (source == null || !source.contains("{{")) {
+        return null;
+      }
+      List<String> literals = new ArrayList<>();
+      List<String> keys = new ArrayList<>();
+      int position = 0;
+      while (true) {
+        int open = source.indexOf("{{", position);
+        int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+        if (open < 0 || close < 0) {
+          literals.add(source.substring(position));
+          break;
+        }
+        literals.add(source.substring(position, open));
+        keys.add(source.substring(open + 2, close).trim());
+        position = close + 2;
+      }
+      return new TemplateString(literals.toArray(new String[0]), keys.toArray(new String[0]));
+    }
+
+    String render(Scope scope) {
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < keys.length; i++) {
+        builder.append(literals[i]);
+        String value = scope.string(keys[i]);
+        if (value != null) {
+          builder.append(value);
+        }
+      }
+      return builder.append(literals[keys.length]).toString();
+    }
+  }
+
+  /** Data for one level of rendering; lookups fall back to the enclosing scope. */
+  private static final class Scope {
+
+    @Nullable private final ReadableMap data;
+    @Nullable private final Scope parent;
+
+    Scope(@Nullable ReadableMap data, @Nullable Scope parent) {
+      this.data = data;
+      this.parent = parent;
+    }
+
+    @Nullable
+    private ReadableMap owner(String key) {
+      for (Scope scope = this; scope != null; scope = scope.parent) {
+        if (scope.data != null && scope.data.hasKey(key) && !scope.data.isNull(key)) {
+          return scope.data;
+        }
+      }
+      return null;
+    }
+
+    @Nullable
+    String string(String key) {
+      ReadableMap map = owner(key);
+      if (map == null) {
+        return null;
+      }
+      switch (map.getType(key)) {
+        case String:
+          return map.getString(key);
+        case Number: {
+          double number = map.getDouble(key);
+          return number == Math.rint(number) && Math.abs(number) < 1e15
+            ? Long.toString((long) number)
+            : Double.toString(number);
+        }
+        case Boolean:
+          return Boolean.toString(map.getBoolean(key));
+        default:
+          return null;
+      }
+    }
+
+    @Nullable
+    ReadableArray array(String key) {
+      ReadableMap map = owner(key);
+      return map != null && map.getType(key) == ReadableType.Array ? map.getArray(key) : null;
+    }
+
+    boolean isTruthy(String key) {
+      ReadableMap map = owner(key);
+      if (map == null) {
+        return false;
+      }
+      switch (map.getType(key)) {
+        case Boolean:
+          return map.getBoolean(key);
+        case Number:
+          return map.getDouble(key) != 0;
+        case String:
+          return !map.getString(key).isEmpty();
+        case Array:
+          return map.getArray(key).size() > 0;
+        default:
+          return true;
+      }
+    }
+  }
+}
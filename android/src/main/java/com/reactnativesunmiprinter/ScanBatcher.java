@@ -0,0 +1,169 @@
+package com.reactnativesunmiprinter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sits between the scanner broadcast and JS. Repeats of a code within the dedupe window are
+ * dropped (scanner bounce, the same label read twice). With batching on, scans are collected for
+ * one window after the first scan of a burst, or until the batch is full, and delivered together,
+ * so a burst costs one bridge event instead of one per code.
+ *
+ * <p>Scans are offered on the looper's thread; options may be changed from any thread.
+ */
+final class ScanBatcher {
+
+  static final long DEFAULT_WINDOW_MS = 150;
+  static final int DEFAULT_MAX_BATCH_SIZE = 50;
+
+  /** Seen codes are pruned once this many are tracked. */
+  private static final int MAX_TRACKED_CODES = 256;
+
+  static final class Scan {
+    final String value;
+    /** Bytes as read by the scanner, before decoding to {@link #value}; null if not provided. */
+    @Nullable final byte[] raw;
+    /** Wall clock time of the scan, in milliseconds. */
+    final long timestamp;
+
+    Scan(String value, @Nullable byte[] raw, long timestamp) {
+      this.value = value;
+      this.raw = raw;
+      this.timestamp = timestamp;
+    }
+  }
+
+  interface Listener {
+    void onScan(Scan scan);
+
+    void onBatch(List<Scan> scans);
+  }
+
+  private final Handler handler;
+  private final Listener listener;
+  private final Runnable flush = this::flush;
+
+  private boolean batching;
+  private long windowMs = DEFAULT_WINDOW_MS;
+  private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+  private long dedupeWindowMs;
+
+  private List<Scan> batch = new ArrayList<>();
+  /** Uptime at which each code was last accepted. */
+  private final Map<String, Long> lastSeen = new HashMap<>();
+  private long dropped;
+
+  ScanBatcher(Looper looper, Listener listener) {
+    this.handler = new Handler(looper);
+    this.listener = listener;
+  }
+
+  /**
+   * Turning batching off delivers anything already collected. A {@code dedupeWindowMs} of 0
+   * keeps every scan.
+   */
+  void configure(boolean batching, long windowMs, int maxBatchSize, long dedupeWindowMs) {
+    if (windowMs < 0 || maxBatchSize < 1 || dedupeWindowMs < 0) {
+      throw new IllegalArgumentException("windowMs and dedupeWindowMs must not be negative and maxBatchSize must be at least 1");
+    }
+    synchronized (this) {
+      this.batching = batching;
+      this.windowMs = windowMs;
+      this.maxBatchSize = maxBatchSize;
+      this.dedupeWindowMs = dedupeWindowMs;
+      if (dedupeWindowMs == 0) {
+        lastSeen.clear();
+      }
+    }
+    if (!batching) {
+      handler.post(flush);
+    }
+  }
+
+  /** Returns the scan if it was accepted, or null if it was dropped as a duplicate. */
+  @Nullable
+  Scan offer(String value, @Nullable byte[] raw) {
+    long now = SystemClock.uptimeMillis();
+    Scan scan = new Scan(value, raw, System.currentTimeMillis());
+    List<Scan> full = null;
+    boolean single;
+    synchronized (this) {
+      if (isDuplicate(value, now)) {
+        dropped++;
+        return null;
+      }
+      single = !batching;
+      if (batching) {
+        batch.add(scan);
+        if (batch.size() >= maxBatchSize) {
+          full = batch;
+          batch = new ArrayList<>();
+          handler.removeCallbacks(flush);
+        } else if (batch.size() == 1) {
+          handler.postDelayed(flush, windowMs);
+        }
+      }
+    }
+    if (single) {
+      listener.onScan(scan);
+    } else if (full != null) {
+      listener.onBatch(full);
+    }
+    return scan;
+  }
+
+  /**
+   * Reports whether {@code value} was accepted less than the dedupe window ago; otherwise records
+   * it as accepted now.
+   */
+  private boolean isDuplicate(String value, long now) {
+    if (dedupeWindowMs == 0) {
+      return false;
+    }
+    Long previous = lastSeen.get(value);
+    if (previous != null && now - previous < dedupeWindowMs) {
+      return true;
+    }
+    lastSeen.put(value, now);
+    if (lastSeen.size() > MAX_TRACKED_CODES) {
+      Iterator<Long> it = lastSeen.values().iterator();
+      while (it.hasNext()) {
+        if (now - it.next() >= dedupeWindowMs) {
+          it.remove();
+        }
+      }
+    }
+    return false;
+  }
+
+  void flush() {
+    List<Scan> ready;
+    synchronized (this) {
+      handler.removeCallbacks(flush);
+      if (batch.isEmpty()) {
+        return;
+      }
+      ready = batch;
+      batch = new ArrayList<>();
+    }
+    listener.onBatch(ready);
+  }
+
+  /** Scans dropped as duplicates so far. */
+  synchronized long droppedCount() {
+    return dropped;
+  }
+
+  void stop() {
+    handler.removeCallbacks(flush);
+  }
+}
@@ -0,0 +1,40 @@
+package com.reactnativesunmiprinter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size ring buffer of the most recent accepted scans, so a screen that mounts after a scan
+ * can still read it. Once full, each new scan overwrites the oldest one.
+ */
+final class ScanHistory {
+
+  static final int DEFAULT_CAPACITY = 64;
+
+  private final ScanBatcher.Scan[] scans;
+  /** Slot the next scan is written to. */
+  private int head;
+  private int size;
+
+  ScanHistory(int capacity) {
+    scans = new ScanBatcher.Scan[capacity];
+  }
+
+  synchronized void add(ScanBatcher.Scan scan) {
+    scans[head] = scan;
+    head = (head + 1) % scans.length;
+    if (size < scans.length) {
+      size++;
+    }
+  }
+
+  /** Up to {@code count} scans, newest first. */
+  synchronized List<ScanBatcher.Scan> recent(int count) {
+    int n = Math.max(0, Math.min(count, size));
+    List<ScanBatcher.Scan> result = new ArrayList<>(n);
+    for (int i = 1; i <= n; i++) {
+      result.add(scans[(head - i + scans.length) % scans.length]);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,158 @@
+package com.reactnativesunmiprinter;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.Promise;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks whether the printer service is connected and holds calls made while it is not. Held
+ * calls wait in a bounded FIFO and are handed to the print queue, in order, as soon as the service
+ * connects; calls made after that go straight to the queue, so ordering is preserved across the
+ * switch.
+ */
+final class ServiceGate {
+
+  static final int DEFAULT_CAPACITY = 64;
+
+  static final String NOT_READY_CODE = "E_PRINTER_NOT_READY";
+
+  enum State {
+    CONNECTING,
+    CONNECTED,
+    UNAVAILABLE,
+  }
+
+  /** Hands a call to the print queue. */
+  interface Dispatcher {
+    void dispatch(String method, Promise promise, Runnable job);
+  }
+
+  private static final class PendingCall {
+    final String method;
+    final Promise promise;
+    final Runnable job;
+
+    PendingCall(String method, Promise promise, Runnable job) {
+      this.method = method;
+      this.promise = promise;
+      this.job = job;
+    }
+  }
+
+  private final int capacity;
+  private final Dispatcher dispatcher;
+  private final ArrayDeque<PendingCall> pending = new ArrayDeque<>();
+  private final List<Promise> readyWaiters = new ArrayList<>();
+  private State state = State.CONNECTING;
+
+  ServiceGate(int capacity, Dispatcher dispatcher) {
+    this.capacity = capacity;
+    this.dispatcher = dispatcher;
+  }
+
+  /**
+   * Dispatches {@code job} now if the service is connected, holds it if the service is still
+   * connecting, and rejects it if the service is unavailable or too many calls are waiting.
+   */
+  synchronized void submit(String method, Promise promise, Runnable job) {
+    switch (state) {
+      case CONNECTED:
+        dispatcher.dispatch(method, promise, job);
+        break;
+      case CONNECTING:
+        if (pending.size() >= capacity) {
+          promise.reject(
+            NOT_READY_CODE,
+            method + " rejected: printer service is not connected and " + capacity + " calls are already waiting"
+          );
+        } else {
+          pending.add(new PendingCall(method, promise, job));
+        }
+        break;
+      default:
+        promise.reject(SunmiPrinterModule.ERROR_CODE, "Sunmi printer service is not available on this device");
+        break;
+    }
+  }
+
+  synchronized void onConnected() {
+    state = State.CONNECTED;
+    if (!pending.isEmpty()) {
+      Log.i(SunmiPrinterModule.TAG, "Flushing " + pending.size() + " calls made before the service connected");
+    }
+    while (!pending.isEmpty()) {
+      PendingCall call = pending.poll();
+      dispatcher.dispatch(call.method, call.promise, call.job);
+    }
+    for (Promise waiter : readyWaiters) {
+      waiter.resolve(null);
+    }
+    readyWaiters.clear();
+  }
+
+  /** Calls are held again until the service reconnects. */
+  synchronized void onDisconnected() {
+    if (state != State.UNAVAILABLE) {
+      state = State.CONNECTING;
+    }
+  }
+
+  /** The service cannot be bound at all; everything waiting is rejected. */
+  synchronized void onUnavailable(String reason) {
+    state = State.UNAVAILABLE;
+    rejectAll(SunmiPrinterModule.ERROR_CODE, reason);
+  }
+
+  synchronized void close() {
+    state = State.UNAVAILABLE;
+    rejectAll(NOT_READY_CODE, "Printer module was destroyed before the service connected");
+  }
+
+  private void rejectAll(String code, String reason) {
+    while (!pending.isEmpty()) {
+      pending.poll().promise.reject(code, reason);
+    }
+    for (Promise waiter : readyWaiters) {
+      waiter.reject(code, reason);
+    }
+    readyWaiters.clear();
+  }
+
+  /** Resolves {@code promise} once the service is connected. */
+  synchronized void whenReady(Promise promise) {
+    switch (state) {
+      case CONNECTED:
+        promise.resolve(null);
+        break;
+      case CONNECTING:
+        readyWaiters.add(promise);
+        break;
+      default:
+        promise.reject(SunmiPrinterModule.ERROR_CODE, "Sunmi printer service is not available on this device");
+        break;
+    }
+  }
+
+  /** Rejects {@code promise} if it is still waiting in {@link #whenReady}. */
+  synchronized void expire(Promise promise, long timeoutMs) {
+    for (int i = 0; i < readyWaiters.size(); i++) {
+      if (readyWaiters.get(i) == promise) {
+        readyWaiters.remove(i);
+        promise.reject(NOT_READY_CODE, "Printer service did not connect within " + timeoutMs + " ms");
+        return;
+      }
+    }
+  }
+
+  synchronized int pendingCount() {
+    return pending.size();
+  }
+
+  synchronized State state() {
+    return state;
+  }
+}
@@ -0,0 +1,739 @@
+package com.reactnativesunmiprinter;
+
+import android.graphics.Bitmap;
+import android.os.RemoteException;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.sunmi.peripheral.printer.ICallback;
+import com.sunmi.peripheral.printer.SunmiPrinterService;
+import com.sunmi.peripheral.printer.TransBean;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A thermal printer simulated in-process, for load testing the print pipeline without a Sunmi
+ * device. It answers the {@link SunmiPrinterService} calls the module makes and interprets the
+ * ESC/POS stream sent with {@code sendRAWData}, then "prints" on its own thread at the configured
+ * paper feed speed. The printer has a bounded buffer: once it is full, calls block the caller the
+ * way a busy Binder service does. It can run out of paper after a given length and overheat after
+ * printing continuously for a while, and it records the text and length of every receipt (the
+ * output between two cuts) so receipts per minute can be measured.
+ *
+ * <p>Plain commands are answered through {@code onRunResult} once the printer has accepted them;
+ * buffered transactions report {@code onPrintResult} after they have been printed.
+ */
+final class SimulatedPrinterService implements InvocationHandler {
+
+  static final int DOTS_PER_MM = 8;
+  static final int DEFAULT_LINE_HEIGHT_DOTS = 30;
+  static final int DEFAULT_BARCODE_HEIGHT_DOTS = 162;
+  /** Height of a printed QR code in modules, including the quiet zone. */
+  static final int QR_CODE_MODULES = 33;
+  static final int DEFAULT_QR_MODULE_DOTS = 3;
+  static final int MAX_RECORDED_RECEIPTS = 100;
+
+  static final int STATUS_NORMAL = 1;
+  static final int STATUS_OUT_OF_PAPER = 4;
+  static final int STATUS_OVERHEATED = 5;
+
+  private static final Charset TEXT_CHARSET = Charset.forName(EscPosEncoder.DEFAULT_CHARSET);
+
+  static final class Options {
+    double feedSpeedMmPerSecond = 80;
+    int bufferBytes = 64 * 1024;
+    int paperWidthMm = 58;
+    /** Paper on the roll; 0 never runs out. */
+    double paperLengthMm;
+    /** Continuous printing before the head overheats; 0 never overheats. */
+    long overheatAfterMs;
+    long cooldownMs = 5_000;
+
+    static Options fromMap(@Nullable ReadableMap map) {
+      Options options = new Options();
+      if (map == null) {
+        return options;
+      }
+      if (map.hasKey("feedSpeedMmPerSecond")) {
+        options.feedSpeedMmPerSecond = PrintCommand.requireNumber(map, "feedSpeedMmPerSecond");
+      }
+      options.bufferBytes = PrintCommand.optInt(map, "bufferBytes", options.bufferBytes);
+      options.paperWidthMm = PrintCommand.optInt(map, "paperWidthMm", options.paperWidthMm);
+      if (map.hasKey("paperLengthMm")) {
+        options.paperLengthMm = PrintCommand.requireNumber(map, "paperLengthMm");
+      }
+      options.overheatAfterMs = PrintCommand.optInt(map, "overheatAfterMs", 0);
+      options.cooldownMs = PrintCommand.optInt(map, "cooldownMs", (int) options.cooldownMs);
+      if (options.feedSpeedMmPerSecond <= 0) {
+        throw new IllegalArgumentException("feedSpeedMmPerSecond must be positive");
+      }
+      if (options.bufferBytes <= 0) {
+        throw new IllegalArgumentException("bufferBytes must be positive");
+      }
+      if (options.paperWidthMm != 58 && options.paperWidthMm != 80) {
+        throw new IllegalArgumentException("paperWidthMm must be 58 or 80");
+      }
+      return options;
+    }
+  }
+
+  /** Output up to a cut, or the rest of a job when it has no cut. */
+  private static final class Piece {
+    final String text;
+    final int dots;
+    final boolean cut;
+
+    Piece(String text, int dots, boolean cut) {
+      this.text = text;
+      this.dots = dots;
+      this.cut = cut;
+    }
+  }
+
+  private static final class Job {
+    final List<Piece> pieces = new ArrayList<>(1);
+    final int bytes;
+    /** Receives {@code onPrintResult} once printed, for buffered transactions. */
+    @Nullable ICallback printResult;
+
+    Job(int bytes) {
+      this.bytes = bytes;
+    }
+  }
+
+  private static final class Receipt {
+    final String text;
+    final double lengthMm;
+    final long printedAt;
+
+    Receipt(String text, double lengthMm, long printedAt) {
+      this.text = text;
+      this.lengthMm = lengthMm;
+      this.printedAt = printedAt;
+    }
+  }
+
+  private final Options options;
+  private final SunmiPrinterService service = (SunmiPrinterService) Proxy.newProxyInstance(
+    SunmiPrinterService.class.getClassLoader(),
+    new Class<?>[] {SunmiPrinterService.class},
+    this
+  );
+  private final Thread printer = new Thread(this::printLoop, "SunmiPrinterSimulator");
+
+  // Everything below is guarded by this.
+  private final ArrayDeque<Job> pending = new ArrayDeque<>();
+  @Nullable private List<Job> transaction;
+  private final ArrayDeque<Receipt> receipts = new ArrayDeque<>();
+  private final StringBuilder receiptText = new StringBuilder();
+  private int receiptDots;
+  private int lineHeightDots = DEFAULT_LINE_HEIGHT_DOTS;
+  private int barcodeHeightDots = DEFAULT_BARCODE_HEIGHT_DOTS;
+  private int qrModuleDots = DEFAULT_QR_MODULE_DOTS;
+  private int status = STATUS_NORMAL;
+  private boolean running = true;
+  private int bufferedBytes;
+  private int bufferHighWater;
+  private long blockedNanos;
+  private long continuousPrintNanos;
+  private double paperUsedMm;
+  private double printedMm;
+  private long bytesReceived;
+  private long calls;
+  private long failedCalls;
+  private long receiptCount;
+  private int cuts;
+  private int drawerOpens;
+  private int overheats;
+  private long startedAt = now();
+  private boolean started;
+  private long firstJobAt;
+  private long lastCutAt;
+
+  SimulatedPrinterService(Options options) {
+    this.options = options;
+    printer.setDaemon(true);
+    printer.start();
+  }
+
+  SunmiPrinterService service() {
+    return service;
+  }
+
+  /** Wall time in milliseconds; the simulation runs in real time. */
+  private static long now() {
+    return System.nanoTime() / 1_000_000;
+  }
+
+  void shutdown() {
+    synchronized (this) {
+      running = false;
+      notifyAll();
+    }
+    printer.interrupt();
+  }
+
+  /**
+   * Forces a printer state: {@link #STATUS_NORMAL} loads a new roll and clears errors,
+   * {@link #STATUS_OUT_OF_PAPER} fails printing until paper is loaded, {@link #STATUS_OVERHEATED}
+   * pauses printing for the cooldown.
+   */
+  synchronized void setStatus(int value) {
+    if (value != STATUS_NORMAL && value != STATUS_OUT_OF_PAPER && value != STATUS_OVERHEATED) {
+      throw new IllegalArgumentException("Unsupported simulated status: " + value);
+    }
+    if (value == STATUS_NORMAL) {
+      paperUsedMm = 0;
+      continuousPrintNanos = 0;
+    }
+    status = value;
+    notifyAll();
+  }
+
+  synchronized int status() {
+    return status;
+  }
+
+  synchronized long receiptCount() {
+    return receiptCount;
+  }
+
+  /** Receipts cut per minute, from the first accepted job to the last cut. */
+  synchronized double receiptsPerMinute() {
+    long printingMs = lastCutAt - firstJobAt;
+    return !started || receiptCount == 0 || printingMs <= 0 ? 0 : receiptCount * 60_000.0 / printingMs;
+  }
+
+  /** Text of the most recent receipts, oldest first. */
+  synchronized List<String> receiptTexts() {
+    List<String> texts = new ArrayList<>(receipts.size());
+    for (Receipt receipt : receipts) {
+      texts.add(receipt.text);
+    }
+    return texts;
+  }
+
+  synchronized int bufferHighWaterBytes() {
+    return bufferHighWater;
+  }
+
+  synchronized WritableMap report(boolean clear) {
+    long now = now();
+    WritableMap map = Arguments.createMap();
+    map.putInt("status", status);
+    map.putString("name", PrinterStatusMonitor.statusName(status));
+    map.putDouble("receipts", receiptCount);
+    map.putDouble("receiptsPerMinute", receiptsPerMinute());
+    map.putDouble("printedMm", printedMm);
+    map.putDouble("bytes", bytesReceived);
+    map.putDouble("calls", calls);
+    map.putDouble("failedCalls", failedCalls);
+    map.putInt("bufferBytes", options.bufferBytes);
+    map.putInt("bufferedBytes", bufferedBytes);
+    map.putInt("bufferHighWaterBytes", bufferHighWater);
+    map.putDouble("blockedMs", blockedNanos / 1e6);
+    map.putInt("overheats", overheats);
+    map.putDouble("elapsedMs", now - startedAt);
+    WritableArray printed = Arguments.createArray();
+    for (Receipt receipt : receipts) {
+      WritableMap item = Arguments.createMap();
+      item.putString("text", receipt.text);
+      item.putDouble("lengthMm", receipt.lengthMm);
+      item.putDouble("printedAtMs", receipt.printedAt - startedAt);
+      printed.pushMap(item);
+    }
+    map.putArray("printed", printed);
+    if (clear) {
+      receipts.clear();
+      receiptCount = 0;
+      printedMm = 0;
+      bytesReceived = 0;
+      calls = 0;
+      failedCalls = 0;
+      bufferHighWater = bufferedBytes;
+      blockedNanos = 0;
+      overheats = 0;
+      startedAt = now;
+      started = false;
+      lastCutAt = firstJobAt;
+    }
+    return map;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    String name = method.getName();
+    if (method.getDeclaringClass() == Object.class) {
+      switch (name) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        default:
+          return "SimulatedPrinterService";
+      }
+    }
+    ICallback callback = null;
+    if (args != null) {
+      for (Object arg : args) {
+        if (arg instanceof ICallback) {
+          callback = (ICallback) arg;
+        }
+      }
+    }
+    synchronized (this) {
+      calls++;
+    }
+    switch (name) {
+      case "asBinder":
+        return null;
+      case "updatePrinterState":
+        synchronized (this) {
+          return status;
+        }
+      case "getPrinterPaper":
+        return options.paperWidthMm == 58 ? 1 : 2;
+      case "getPrinterSerialNo":
+        return "SIMULATED";
+      case "getPrinterVersion":
+        return "1.0.0";
+      case "getPrinterModal":
+        return "Simulated " + options.paperWidthMm + "mm";
+      case "getServiceVersion":
+        return "simulated";
+      case "getCutPaperTimes":
+        synchronized (this) {
+          return cuts;
+        }
+      case "getOpenDrawerTimes":
+        synchronized (this) {
+          return drawerOpens;
+        }
+      case "getPrintedLength":
+        if (callback != null) {
+          callback.onReturnString(String.valueOf(Math.round(paperUsedMm())));
+        }
+        return null;
+      case "enterPrinterBuffer":
+        synchronized (this) {
+          transaction = new ArrayList<>();
+        }
+        return null;
+      case "commitPrinterBuffer":
+      case "commitPrinterBufferWithCallback":
+        commitTransaction(callback, false);
+        return null;
+      case "exitPrinterBuffer":
+      case "exitPrinterBufferWithCallback":
+        commitTransaction(callback, !(Boolean) args[0]);
+        return null;
+      default:
+        break;
+    }
+    Job job = toJob(name, args);
+    if (job == null) {
+      if (callback != null) {
+        callback.onRunResult(true);
+      }
+      return defaultValue(method.getReturnType());
+    }
+    if ("commitPrint".equals(name)) {
+      job.printResult = callback;
+      submit(job, null);
+    } else {
+      submit(job, callback);
+    }
+    return defaultValue(method.getReturnType());
+  }
+
+  private synchronized double paperUsedMm() {
+    return paperUsedMm;
+  }
+
+  @Nullable
+  private static Object defaultValue(Class<?> type) {
+    if (type == int.class) {
+      return 0;
+    }
+    if (type == boolean.class) {
+      return false;
+    }
+    return null;
+  }
+
+  /** Turns one service call into printer output, or returns {@code null} if it prints nothing. */
+  @Nullable
+  private Job toJob(String name, Object[] args) {
+    switch (name) {
+      case "sendRAWData":
+        return interpret((byte[]) args[0]);
+      case "printText":
+      case "printOriginalText":
+      case "printTextWithFont":
+        return interpret(((String) args[0]).getBytes(TEXT_CHARSET));
+      case "lineWrap": {
+        byte[] feeds = new byte[(Integer) args[0]];
+        Arrays.fill(feeds, ESCUtil.LF);
+        return interpret(feeds);
+      }
+      case "printColumnsText":
+      case "printColumnsString": {
+        StringBuilder line = new StringBuilder();
+        for (String cell : (String[]) args[0]) {
+          line.append(line.length() > 0 ? " " : "").append(cell);
+        }
+        return interpret(line.append('\n').toString().getBytes(TEXT_CHARSET));
+      }
+      case "printBitmap":
+      case "printBitmapCustom": {
+        Bitmap bitmap = (Bitmap) args[0];
+        return graphic("[image " + bitmap.getWidth() + "x" + bitmap.getHeight() + "]", bitmap.getHeight(), (bitmap.getWidth() + 7) / 8 * bitmap.getHeight());
+      }
+      case "printBarCode":
+        return graphic(
+          "[barcode " + args[0] + "]",
+          (Integer) args[2] + ((Integer) args[4] != 0 ? lineHeight() : 0),
+          ((String) args[0]).length()
+        );
+      case "printQRCode":
+        return graphic("[qr " + args[0] + "]", (Integer) args[1] * QR_CODE_MODULES, ((String) args[0]).length());
+      case "print2DCode":
+        return graphic("[2d " + args[0] + "]", (Integer) args[2] * QR_CODE_MODULES, ((String) args[0]).length());
+      case "commitPrint": {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (TransBean bean : (TransBean[]) args[0]) {
+          if (bean.getData() != null) {
+            data.write(bean.getData(), 0, bean.getData().length);
+          } else if (bean.getText() != null) {
+            byte[] text = bean.getText().getBytes(TEXT_CHARSET);
+            data.write(text, 0, text.length);
+          }
+        }
+        return interpret(data.toByteArray());
+      }
+      case "cutPaper": {
+        Job job = new Job(1);
+        job.pieces.add(new Piece("", 0, true));
+        return job;
+      }
+      case "openDrawer":
+        synchronized (this) {
+          drawerOpens++;
+        }
+        return null;
+      case "printerInit":
+        synchronized (this) {
+          lineHeightDots = DEFAULT_LINE_HEIGHT_DOTS;
+          barcodeHeightDots = DEFAULT_BARCODE_HEIGHT_DOTS;
+          qrModuleDots = DEFAULT_QR_MODULE_DOTS;
+        }
+        return null;
+      default:
+        return null;
+    }
+  }
+
+  private synchronized int lineHeight() {
+    return lineHeightDots;
+  }
+
+  private static Job graphic(String label, int dots, int bytes) {
+    Job job = new Job(bytes);
+    job.pieces.add(new Piece(label + "\n", dots, false));
+    return job;
+  }
+
+  /**
+   * Measures an ESC/POS stream: line feeds, feeds, raster images, barcodes and QR codes advance
+   * the paper, cuts end a receipt, printable bytes are recorded as text. Commands that only
+   * change the print mode are skipped.
+   */
+  private synchronized Job interpret(byte[] data) {
+    Job job = new Job(data.length);
+    ByteArrayOutputStream text = new ByteArrayOutputStream();
+    int dots = 0;
+    int i = 0;
+    while (i < data.length) {
+      int b = data[i] & 0xFF;
+      if (b == ESCUtil.LF) {
+        text.write('\n');
+        dots += lineHeightDots;
+        i++;
+      } else if (b == ESCUtil.ESC && i + 1 < data.length) {
+        int command = data[i + 1];
+        int n = i + 2 < data.length ? data[i + 2] & 0xFF : 0;
+        switch (command) {
+          case '@':
+            lineHeightDots = DEFAULT_LINE_HEIGHT_DOTS;
+            i += 2;
+            break;
+          case '2':
+            lineHeightDots = DEFAULT_LINE_HEIGHT_DOTS;
+            i += 2;
+            break;
+          case '3':
+            lineHeightDots = n;
+            i += 3;
+            break;
+          case 'd':
+            dots += n * lineHeightDots;
+            i += 3;
+            break;
+          case 'J':
+            dots += n;
+            i += 3;
+            break;
+          case 'p':
+            drawerOpens++;
+            i += 5;
+            break;
+          default:
+            i += 3;
+            break;
+        }
+      } else if (b == ESCUtil.GS && i + 1 < data.length) {
+        int command = data[i + 1];
+        if (command == 'v' && i + 7 < data.length) {
+          int bytesPerRow = (data[i + 4] & 0xFF) | (data[i + 5] & 0xFF) << 8;
+          int rows = (data[i + 6] & 0xFF) | (data[i + 7] & 0xFF) << 8;
+          dots += rows;
+          i += 8 + bytesPerRow * rows;
+        } else if (command == 'V') {
+          int mode = i + 2 < data.length ? data[i + 2] & 0xFF : 0;
+          job.pieces.add(new Piece(new String(text.toByteArray(), TEXT_CHARSET), dots, true));
+          text.reset();
+          dots = 0;
+          i += mode >= 65 ? 4 : 3;
+        } else if (command == '(' && i + 6 < data.length && data[i + 2] == 'k') {
+          int length = (data[i + 3] & 0xFF) | (data[i + 4] & 0xFF) << 8;
+          int function = data[i + 6];
+          if (function == 67 && i + 7 < data.length) {
+            qrModuleDots = data[i + 7] & 0xFF;
+          } else if (function == 81) {
+            dots += QR_CODE_MODULES * qrModuleDots;
+          }
+          i += 5 + length;
+        } else if (command == 'k' && i + 3 < data.length) {
+          int system = data[i + 2] & 0xFF;
+          dots += barcodeHeightDots;
+          if (system >= 65) {
+            i += 4 + (data[i + 3] & 0xFF);
+          } else {
+            i += 3;
+            while (i < data.length && data[i] != 0) {
+              i++;
+            }
+            i++;
+          }
+        } else {
+          if (command == 'h') {
+            barcodeHeightDots = i + 2 < data.length ? data[i + 2] & 0xFF : DEFAULT_BARCODE_HEIGHT_DOTS;
+          }
+          i += 3;
+        }
+      } else if (b == ESCUtil.FS) {
+        i += 2;
+      } else {
+        if (b >= 0x20) {
+          text.write(b);
+        }
+        i++;
+      }
+    }
+    if (text.size() > 0 || dots > 0 || job.pieces.isEmpty()) {
+      job.pieces.add(new Piece(new String(text.toByteArray(), TEXT_CHARSET), dots, false));
+    }
+    return job;
+  }
+
+  /**
+   * Queues {@code job}, blocking while the buffer is full, then acknowledges it through
+   * {@code onRunResult}. Inside a printer-buffer transaction the job is held until commit.
+   */
+  private void submit(Job job, @Nullable ICallback callback) throws RemoteException {
+    String failure = null;
+    synchronized (this) {
+      bytesReceived += job.bytes;
+      if (transaction != null) {
+        transaction.add(job);
+      } else if (status == STATUS_OUT_OF_PAPER) {
+        failure = "Out of paper";
+        failedCalls++;
+      } else {
+        long blockedAt = System.nanoTime();
+        while (running && bufferedBytes > 0 && bufferedBytes + job.bytes > options.bufferBytes) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+        blockedNanos += System.nanoTime() - blockedAt;
+        bufferedBytes += job.bytes;
+        bufferHighWater = Math.max(bufferHighWater, bufferedBytes);
+        if (!started) {
+          started = true;
+          firstJobAt = now();
+        }
+        pending.add(job);
+        notifyAll();
+      }
+    }
+    if (failure != null) {
+      if (callback != null) {
+        callback.onRaiseException(STATUS_OUT_OF_PAPER, failure);
+      }
+      if (job.printResult != null) {
+        job.printResult.onPrintResult(STATUS_OUT_OF_PAPER, failure);
+      }
+    } else if (callback != null) {
+      callback.onRunResult(true);
+    }
+  }
+
+  private void commitTransaction(@Nullable ICallback callback, boolean discard) throws RemoteException {
+    Job combined;
+    synchronized (this) {
+      List<Job> jobs = transaction;
+      transaction = null;
+      if (jobs == null || discard) {
+        jobs = new ArrayList<>();
+      }
+      int bytes = 0;
+      for (Job job : jobs) {
+        bytes += job.bytes;
+      }
+      combined = new Job(bytes);
+      for (Job job : jobs) {
+        combined.pieces.addAll(job.pieces);
+      }
+      // Bytes were already counted as each call was held.
+      bytesReceived -= bytes;
+    }
+    combined.printResult = callback;
+    submit(combined, null);
+  }
+
+  private void printLoop() {
+    while (true) {
+      Job job;
+      synchronized (this) {
+        while (running && pending.isEmpty()) {
+          continuousPrintNanos = 0;
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (!running) {
+          return;
+        }
+        job = pending.peek();
+      }
+      String failure;
+      try {
+        failure = print(job);
+      } catch (InterruptedException e) {
+        return;
+      }
+      synchronized (this) {
+        pending.poll();
+        bufferedBytes -= job.bytes;
+        notifyAll();
+      }
+      if (job.printResult != null) {
+        try {
+          if (failure == null) {
+            job.printResult.onPrintResult(0, "");
+          } else {
+            job.printResult.onPrintResult(STATUS_OUT_OF_PAPER, failure);
+          }
+        } catch (RemoteException e) {
+          Log.w(SunmiPrinterModule.TAG, "Simulated printer callback failed", e);
+        }
+      }
+    }
+  }
+
+  /** Prints {@code job} in real time; returns a failure message if it could not be finished. */
+  @Nullable
+  private String print(Job job) throws InterruptedException {
+    double dotsPerNano = options.feedSpeedMmPerSecond * DOTS_PER_MM / 1e9;
+    for (Piece piece : job.pieces) {
+      double lengthMm = (double) piece.dots / DOTS_PER_MM;
+      synchronized (this) {
+        coolDownIfNeeded();
+        if (status == STATUS_OUT_OF_PAPER) {
+          failedCalls++;
+          return "Out of paper";
+        }
+        if (options.paperLengthMm > 0 && paperUsedMm + lengthMm > options.paperLengthMm) {
+          status = STATUS_OUT_OF_PAPER;
+          failedCalls++;
+          Log.i(SunmiPrinterModule.TAG, "Simulated printer ran out of paper after " + paperUsedMm + " mm");
+          return "Out of paper";
+        }
+      }
+      long nanos = (long) (piece.dots / dotsPerNano);
+      if (nanos > 0) {
+        Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+      }
+      synchronized (this) {
+        continuousPrintNanos += nanos;
+        paperUsedMm += lengthMm;
+        printedMm += lengthMm;
+        receiptText.append(piece.text);
+        receiptDots += piece.dots;
+        if (piece.cut) {
+          cuts++;
+          receiptCount++;
+          lastCutAt = now();
+          receipts.add(new Receipt(receiptText.toString(), (double) receiptDots / DOTS_PER_MM, lastCutAt));
+          if (receipts.size() > MAX_RECORDED_RECEIPTS) {
+            receipts.poll();
+          }
+          receiptText.setLength(0);
+          receiptDots = 0;
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Holds the print head for the cooldown once it has overheated. Called holding this. */
+  private void coolDownIfNeeded() throws InterruptedException {
+    if (status != STATUS_OVERHEATED
+      && options.overheatAfterMs > 0
+      && continuousPrintNanos >= options.overheatAfterMs * 1_000_000) {
+      status = STATUS_OVERHEATED;
+    }
+    if (status != STATUS_OVERHEATED) {
+      return;
+    }
+    overheats++;
+    long until = now() + options.cooldownMs;
+    long remaining;
+    while (status == STATUS_OVERHEATED && (remaining = until - now()) > 0) {
+      wait(remaining);
+    }
+    if (status == STATUS_OVERHEATED) {
+      status = STATUS_NORMAL;
+    }
+    continuousPrintNanos = 0;
+  }
+}
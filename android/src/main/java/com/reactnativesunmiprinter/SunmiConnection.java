@@ -0,0 +1,357 @@
+package com.reactnativesunmiprinter;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.RemoteException;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import com.sunmi.peripheral.printer.InnerPrinterCallback;
+import com.sunmi.peripheral.printer.InnerPrinterManager;
+import com.sunmi.peripheral.printer.SunmiPrinterService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One printer service binding and one scanner receiver per process, shared by every module
+ * instance. Modules created after a reload, or by a second React host, acquire the existing
+ * connection instead of binding again; the binding is dropped when the last module releases it.
+ * Rebinding after the service goes away is done here, once, with backoff.
+ *
+ * <p>When modules join is set per app with the {@link #BIND_MODE_META_DATA} manifest meta-data;
+ * see {@link BindMode}. How long binding took is kept for {@link #stats}.
+ *
+ * <p>Listeners are called on the main thread, except that a listener acquiring a connection that
+ * is already up or known to be unavailable is told so right away, on the calling thread.
+ */
+final class SunmiConnection {
+
+  static final long MIN_REBIND_DELAY_MS = 500;
+  static final long MAX_REBIND_DELAY_MS = 30_000;
+  /** How long a bind may take to connect before it is dropped and tried again. */
+  static final long CONNECT_TIMEOUT_MS = 10_000;
+
+  /** Application meta-data holding the {@link BindMode}: {@code lazy} or {@code background}. */
+  static final String BIND_MODE_META_DATA = "com.reactnativesunmiprinter.BIND_MODE";
+
+  enum BindMode {
+    /** Bind on the first call that needs the printer; apps that rarely print pay nothing. */
+    LAZY,
+    /** Bind as soon as the module is initialized, off the thread that initializes it. */
+    BACKGROUND,
+  }
+
+  static final String ACTION_DATA_CODE_RECEIVED = "com.sunmi.scanner.ACTION_DATA_CODE_RECEIVED";
+  private static final String DATA = "data";
+  private static final String SOURCE = "source_byte";
+
+  interface PrinterListener {
+    void onServiceConnected(SunmiPrinterService service);
+
+    void onServiceDisconnected();
+
+    /** The service cannot be bound on this device. */
+    void onServiceUnavailable(String reason);
+  }
+
+  interface ScanListener {
+    void onScanReceived(@Nullable String code, @Nullable byte[] raw);
+  }
+
+  /** Binds the printer service; {@link InnerPrinterManager} outside of tests. */
+  interface ServiceBinder {
+    /** Returns false if the service does not exist on this device. */
+    boolean bind(Context context, InnerPrinterCallback callback) throws RemoteException;
+
+    void unbind(Context context, InnerPrinterCallback callback) throws RemoteException;
+  }
+
+  private static final ServiceBinder PRINTER_MANAGER = new ServiceBinder() {
+    @Override
+    public boolean bind(Context context, InnerPrinterCallback callback) throws RemoteException {
+      return InnerPrinterManager.getInstance().bindService(context, callback);
+    }
+
+    @Override
+    public void unbind(Context context, InnerPrinterCallback callback) throws RemoteException {
+      InnerPrinterManager.getInstance().unBindService(context, callback);
+    }
+  };
+
+  private static final SunmiConnection INSTANCE = new SunmiConnection(PRINTER_MANAGER);
+
+  static SunmiConnection get() {
+    return INSTANCE;
+  }
+
+  private final ServiceBinder binder;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Runnable rebind = this::rebindService;
+
+  private final List<PrinterListener> printerListeners = new ArrayList<>();
+  @Nullable private Context printerContext;
+  @Nullable private SunmiPrinterService service;
+  @Nullable private String unavailableReason;
+  private int rebindAttempts;
+  private long bindStartedNanos;
+  private long lastBindCallNanos;
+  private long lastConnectNanos;
+  private int bindCount;
+
+  private final List<ScanListener> scanListeners = new ArrayList<>();
+  @Nullable private Context scanContext;
+
+  private final InnerPrinterCallback printerCallback = new InnerPrinterCallback() {
+    @Override
+    protected void onConnected(SunmiPrinterService connected) {
+      onServiceConnected(connected);
+    }
+
+    @Override
+    protected void onDisconnected() {
+      onServiceDisconnected();
+    }
+  };
+
+  private final BroadcastReceiver scanReceiver = new BroadcastReceiver() {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+      if (!ACTION_DATA_CODE_RECEIVED.equals(intent.getAction())) {
+        return;
+      }
+      String code = intent.getStringExtra(DATA);
+      byte[] raw = intent.getByteArrayExtra(SOURCE);
+      ScanListener[] listeners;
+      synchronized (SunmiConnection.this) {
+        listeners = scanListeners.toArray(new ScanListener[0]);
+      }
+      for (ScanListener listener : listeners) {
+        listener.onScanReceived(code, raw);
+      }
+    }
+  };
+
+  SunmiConnection(ServiceBinder binder) {
+    this.binder = binder;
+  }
+
+  void onServiceConnected(SunmiPrinterService connected) {
+    PrinterListener[] listeners;
+    synchronized (this) {
+      if (printerContext == null) {
+        return;
+      }
+      lastConnectNanos = System.nanoTime() - bindStartedNanos;
+      Log.i(
+        SunmiPrinterModule.TAG,
+        "Sunmi printer service connected in " + lastConnectNanos / 1_000_000 + " ms (bindService took "
+          + lastBindCallNanos / 1_000_000 + " ms)"
+      );
+      mainHandler.removeCallbacks(rebind);
+      service = connected;
+      unavailableReason = null;
+      rebindAttempts = 0;
+      listeners = printerListeners.toArray(new PrinterListener[0]);
+    }
+    for (PrinterListener listener : listeners) {
+      listener.onServiceConnected(connected);
+    }
+  }
+
+  void onServiceDisconnected() {
+    PrinterListener[] listeners;
+    synchronized (this) {
+      service = null;
+      if (printerContext == null) {
+        return;
+      }
+      long delay = nextRebindDelay();
+      Log.w(SunmiPrinterModule.TAG, "Sunmi printer service disconnected, rebinding in " + delay + " ms");
+      mainHandler.removeCallbacks(rebind);
+      mainHandler.postDelayed(rebind, delay);
+      listeners = printerListeners.toArray(new PrinterListener[0]);
+    }
+    for (PrinterListener listener : listeners) {
+      listener.onServiceDisconnected();
+    }
+  }
+
+  /** Reads the app's {@link BindMode}; {@link BindMode#BACKGROUND} unless set otherwise. */
+  static BindMode bindMode(Context context) {
+    String value = null;
+    try {
+      ApplicationInfo info = context.getPackageManager()
+        .getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
+      Bundle metaData = info.metaData;
+      value = metaData != null ? metaData.getString(BIND_MODE_META_DATA) : null;
+    } catch (PackageManager.NameNotFoundException e) {
+      Log.w(SunmiPrinterModule.TAG, "Could not read " + BIND_MODE_META_DATA, e);
+    }
+    if ("lazy".equalsIgnoreCase(value)) {
+      return BindMode.LAZY;
+    }
+    if (value != null && !"background".equalsIgnoreCase(value)) {
+      Log.w(SunmiPrinterModule.TAG, "Unknown " + BIND_MODE_META_DATA + " '" + value + "', using background");
+    }
+    return BindMode.BACKGROUND;
+  }
+
+  /** Adds {@code listener} to the printer connection, binding the service if it is the first. */
+  void acquirePrinter(Context context, PrinterListener listener) {
+    SunmiPrinterService connected;
+    String unavailable;
+    synchronized (this) {
+      if (printerListeners.contains(listener)) {
+        return;
+      }
+      printerListeners.add(listener);
+      if (printerContext == null) {
+        printerContext = context.getApplicationContext();
+        rebindAttempts = 0;
+        unavailableReason = bindService();
+      }
+      connected = service;
+      unavailable = unavailableReason;
+    }
+    if (connected != null) {
+      listener.onServiceConnected(connected);
+    } else if (unavailable != null) {
+      listener.onServiceUnavailable(unavailable);
+    }
+  }
+
+  /** Removes {@code listener}; the service is unbound once no listener is left. */
+  synchronized void releasePrinter(PrinterListener listener) {
+    if (!printerListeners.remove(listener) || !printerListeners.isEmpty() || printerContext == null) {
+      return;
+    }
+    mainHandler.removeCallbacks(rebind);
+    unbindService();
+    printerContext = null;
+    service = null;
+  }
+
+  /** Adds {@code listener} to the scanner broadcast, registering the receiver if it is the first. */
+  synchronized void acquireScanner(Context context, ScanListener listener) {
+    if (scanListeners.contains(listener)) {
+      return;
+    }
+    scanListeners.add(listener);
+    if (scanContext != null) {
+      return;
+    }
+    scanContext = context.getApplicationContext();
+    IntentFilter filter = new IntentFilter(ACTION_DATA_CODE_RECEIVED);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+      scanContext.registerReceiver(scanReceiver, filter, Context.RECEIVER_EXPORTED);
+    } else {
+      scanContext.registerReceiver(scanReceiver, filter);
+    }
+  }
+
+  /** Removes {@code listener}; the receiver is unregistered once no listener is left. */
+  synchronized void releaseScanner(ScanListener listener) {
+    if (!scanListeners.remove(listener) || !scanListeners.isEmpty() || scanContext == null) {
+      return;
+    }
+    try {
+      scanContext.unregisterReceiver(scanReceiver);
+    } catch (IllegalArgumentException ignored) {
+      // Receiver already unregistered
+    }
+    scanContext = null;
+  }
+
+  /**
+   * Must hold the lock. Returns why the service cannot be bound, or null if binding started. The
+   * connection arrives later; if it has not after {@link #CONNECT_TIMEOUT_MS}, binding is retried.
+   */
+  @Nullable
+  private String bindService() {
+    String reason = null;
+    bindStartedNanos = System.nanoTime();
+    lastConnectNanos = 0;
+    bindCount++;
+    try {
+      if (!binder.bind(printerContext, printerCallback)) {
+        reason = "Sunmi printer service is not available on this device";
+      }
+    } catch (RemoteException e) {
+      Log.e(SunmiPrinterModule.TAG, "Failed to bind printer service", e);
+      reason = "Failed to bind printer service: " + e.getMessage();
+    }
+    lastBindCallNanos = System.nanoTime() - bindStartedNanos;
+    if (reason == null) {
+      mainHandler.removeCallbacks(rebind);
+      mainHandler.postDelayed(rebind, CONNECT_TIMEOUT_MS);
+    }
+    return reason;
+  }
+
+  /**
+   * Cost of the most recent bind: {@code bindCallMs} is the time spent in {@code bindService} on the
+   * binding thread, {@code connectMs} the time from starting it until the service connected (0
+   * until it has).
+   */
+  synchronized WritableMap stats() {
+    WritableMap stats = Arguments.createMap();
+    stats.putBoolean("connected", service != null);
+    stats.putInt("modules", printerListeners.size());
+    stats.putInt("binds", bindCount);
+    stats.putDouble("bindCallMs", lastBindCallNanos / 1e6);
+    stats.putDouble("connectMs", lastConnectNanos / 1e6);
+    return stats;
+  }
+
+  /** Must hold the lock. */
+  private void unbindService() {
+    try {
+      binder.unbind(printerContext, printerCallback);
+    } catch (RemoteException e) {
+      Log.w(SunmiPrinterModule.TAG, "Failed to unbind printer service", e);
+    }
+  }
+
+  /**
+   * Drops the dead or stalled binding and binds again; scheduled with backoff after a disconnect,
+   * and after {@link #CONNECT_TIMEOUT_MS} when a bind has not connected.
+   */
+  private void rebindService() {
+    String reason;
+    PrinterListener[] listeners;
+    synchronized (this) {
+      if (printerContext == null || service != null) {
+        return;
+      }
+      unbindService();
+      reason = bindService();
+      if (reason == null) {
+        return;
+      }
+      unavailableReason = reason;
+      listeners = printerListeners.toArray(new PrinterListener[0]);
+    }
+    for (PrinterListener listener : listeners) {
+      listener.onServiceUnavailable(reason);
+    }
+  }
+
+  /** Must hold the lock. Returns the delay before the next rebind, doubling with each attempt. */
+  private long nextRebindDelay() {
+    long delay = MIN_REBIND_DELAY_MS << Math.min(rebindAttempts, 16);
+    rebindAttempts++;
+    return Math.min(MAX_REBIND_DELAY_MS, delay);
+  }
+}
@@ -1,7 +1,9 @@
 package com.reactnativesunmiprinter;
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.RemoteException;
 import android.util.Base64;
 import android.util.Log;
@@ -9,87 +11,251 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaScriptContextHolder;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.module.annotations.ReactModule;
-import com.sunmi.peripheral.printer.InnerPrinterCallback;
-import com.sunmi.peripheral.printer.InnerPrinterManager;
-import com.sunmi.peripheral.printer.InnerResultCallback;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.sunmi.peripheral.printer.SunmiPrinterService;
+import com.sunmi.peripheral.printer.TransBean;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @ReactModule(name = SunmiPrinterModule.NAME)
 public class SunmiPrinterModule extends NativeSunmiPrinterSpec {
 
   public static final String NAME = "SunmiPrinter";
 
-  private static final String TAG = "SunmiPrinter";
-  private static final String ERROR_CODE = "E_SUNMI_PRINTER";
+  static final String TAG = "SunmiPrinter";
+  static final String ERROR_CODE = "E_SUNMI_PRINTER";
+  static final String QUEUE_FULL_CODE = "E_PRINT_QUEUE_FULL";
+  private static final String RAW_DATA_PROGRESS_EVENT = "onRawDataProgress";
+  private static final String STATUS_CHANGED_EVENT = "onPrinterStatusChanged";
+  /** Printer id of the built-in printer in the {@link PrinterTransport} registry. */
+  static final String BUILT_IN_PRINTER_ID = "sunmi";
+
+  private volatile SunmiPrinterService printerService;
+  /** Identity of the connected printer, read once per connection. */
+  @Nullable private volatile PrinterInfo printerInfo;
+
+  private final PrintQueue printQueue = new PrintQueue(PrintQueue.DEFAULT_CAPACITY);
+  private final ServiceGate serviceGate = new ServiceGate(ServiceGate.DEFAULT_CAPACITY, this::submitToQueue);
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final BitmapDecoder bitmapDecoder = new BitmapDecoder();
+  private final ImageCache imageCache = new ImageCache(bitmapDecoder, ImageCache.DEFAULT_MAX_BYTES);
+  private final Map<String, ReceiptTemplate> templates = new ConcurrentHashMap<>();
+  private final PrinterStatusMonitor statusMonitor = new PrinterStatusMonitor(
+    new PrinterStatusMonitor.StatusSource() {
+      @Override
+      public int read() throws RemoteException {
+        SunmiPrinterService service = printerService;
+        return service != null ? service.updatePrinterState() : PrinterStatusMonitor.STATUS_DISCONNECTED;
+      }
 
-  private SunmiPrinterService printerService;
+      @Override
+      public boolean isBusy() {
+        return printQueue.isBusy();
+      }
+    },
+    (status, previous) -> {
+      WritableMap event = Arguments.createMap();
+      event.putInt("status", status);
+      event.putString("name", PrinterStatusMonitor.statusName(status));
+      event.putInt("previous", previous);
+      emit(STATUS_CHANGED_EVENT, event);
+    }
+  );
+  /** Only used on the print queue thread. */
+  private final EscPosEncoder escPosEncoder = new EscPosEncoder(4096);
+  private final PrinterMetrics metrics = new PrinterMetrics();
+  /** Bytes handed to the service by the running job; only touched on the print queue thread. */
+  private long jobBytes;
+  /**
+   * Whether JS has the printer buffer open; only touched on the print queue thread. The service
+   * does not answer buffered commands until the buffer is committed, so they settle on return.
+   */
+  private boolean printerBufferOpen;
+  /** The running job's command callback while the buffer is open; only touched on the print queue. */
+  @Nullable
+  private PrintResultCallback bufferedCallback;
+  /** The callback made for the running job's promise; only touched on the print queue thread. */
+  @Nullable
+  private PrintResultCallback jobCallback;
 
-  private final InnerResultCallback innerResultCallback = new InnerResultCallback() {
+  /** The built-in printer as a {@link PrinterTransport}; data goes through the print queue. */
+  private final PrinterTransport serviceTransport = new PrinterTransport() {
     @Override
-    public void onRunResult(boolean isSuccess) {
-      Log.d(TAG, "onRunResult: " + isSuccess);
+    public void send(String method, byte[] data, Promise promise) {
+      enqueue(method, promise, service -> sendToService(service, data, promise));
     }
 
     @Override
-    public void onReturnString(String result) {
-      Log.d(TAG, "onReturnString: " + result);
+    public void send(String method, Encoding encoding, Promise promise) {
+      enqueue(method, promise, service -> sendToService(service, encoding.encode(escPosEncoder), promise));
     }
 
     @Override
-    public void onRaiseException(int code, String msg) {
-      Log.w(TAG, "onRaiseException: code=" + code + " message=" + msg);
+    public WritableMap stats() {
+      WritableMap stats = queueStats();
+      stats.putString("type", "sunmi");
+      return stats;
     }
 
     @Override
-    public void onPrintResult(int code, String msg) {
-      Log.d(TAG, "onPrintResult: code=" + code + " message=" + msg);
+    public void close() {
+      // The service connection is owned by the module
     }
   };
+  /** Printers raw data can be sent to, by id; always holds the built-in one. */
+  private final Map<String, PrinterTransport> transports = new ConcurrentHashMap<>();
+
+  /** Set once the module has been pointed at the simulated printer; the real one is released. */
+  @Nullable private volatile SimulatedPrinterService simulator;
+
+  /** Read from the app's meta-data on first use, see {@link #bindMode()}. */
+  @Nullable private volatile SunmiConnection.BindMode bindMode;
+  /** Whether the module has asked to join the shared connection; written under {@code this}. */
+  private volatile boolean joined;
+  private boolean destroyed;
+  /** Runtime the JSI binding was installed into, so teardown only clears what it staged. */
+  private volatile long rawDataRuntime;
 
-  private final InnerPrinterCallback innerPrinterCallback = new InnerPrinterCallback() {
+  private final SunmiConnection.PrinterListener serviceListener = new SunmiConnection.PrinterListener() {
     @Override
-    protected void onConnected(SunmiPrinterService service) {
-      printerService = service;
-      Log.i(TAG, "Sunmi printer service connected");
+    public void onServiceConnected(SunmiPrinterService service) {
+      attachService(service);
     }
 
     @Override
-    protected void onDisconnected() {
+    public void onServiceDisconnected() {
       printerService = null;
-      Log.w(TAG, "Sunmi printer service disconnected");
+      printerInfo = null;
+      serviceGate.onDisconnected();
+      statusMonitor.poke();
+    }
+
+    @Override
+    public void onServiceUnavailable(String reason) {
+      serviceGate.onUnavailable(reason);
     }
   };
 
+  private void attachService(SunmiPrinterService service) {
+    printerService = service;
+    printerInfo = null;
+    printQueue.submit(this::preloadPrinterInfo);
+    serviceGate.onConnected();
+    statusMonitor.poke();
+  }
+
+  /** Reads one field of the cached {@link PrinterInfo}. */
+  private interface InfoField {
+    Object get(PrinterInfo info);
+  }
+
+  /**
+   * A blocking call into the printer service, run on the print queue. It gets the service read
+   * once for the job, so a disconnect while it runs cannot swap the field out from under it.
+   */
+  private interface PrinterCall {
+    void run(SunmiPrinterService service) throws RemoteException;
+  }
+
   public SunmiPrinterModule(ReactApplicationContext reactContext) {
     super(reactContext);
-    bindService();
+    transports.put(BUILT_IN_PRINTER_ID, serviceTransport);
   }
 
-  private void bindService() {
-    try {
-      InnerPrinterManager.getInstance().bindService(getReactApplicationContext(), innerPrinterCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "Failed to bind printer service", e);
+  /**
+   * In {@link SunmiConnection.BindMode#BACKGROUND} mode, joins the process-wide printer connection.
+   * Done here rather than in the constructor so module instances that are built but never
+   * registered do not hold a reference to it. The mode is read on the print queue thread, since
+   * reading the app's meta-data is a PackageManager call.
+   */
+  @Override
+  public void initialize() {
+    super.initialize();
+    printQueue.submit(() -> {
+      if (bindMode() == SunmiConnection.BindMode.BACKGROUND) {
+        joinConnection();
+      }
+    });
+  }
+
+  private SunmiConnection.BindMode bindMode() {
+    SunmiConnection.BindMode mode = bindMode;
+    if (mode == null) {
+      mode = SunmiConnection.bindMode(getReactApplicationContext());
+      bindMode = mode;
     }
+    return mode;
   }
 
-  private void unbindService() {
-    try {
-      InnerPrinterManager.getInstance().unBindService(getReactApplicationContext(), innerPrinterCallback);
-    } catch (RemoteException e) {
-      Log.w(TAG, "Failed to unbind printer service", e);
+  /**
+   * Joins the shared connection once. Binding runs on the print queue thread, so neither the
+   * thread initializing the module nor the JS call that triggered a lazy bind waits for it.
+   */
+  private void joinConnection() {
+    if (joined) {
+      return;
+    }
+    synchronized (this) {
+      if (joined || destroyed || simulator != null) {
+        return;
+      }
+      joined = true;
+    }
+    boolean submitted = printQueue.submit(() -> {
+      synchronized (this) {
+        if (joined && simulator == null) {
+          SunmiConnection.get().acquirePrinter(getReactApplicationContext(), serviceListener);
+        }
+      }
+    });
+    if (!submitted) {
+      synchronized (this) {
+        joined = false;
+      }
+    }
+  }
+
+  private synchronized void leaveConnection() {
+    if (joined) {
+      joined = false;
+      SunmiConnection.get().releasePrinter(serviceListener);
     }
   }
 
   @Override
   public void onCatalystInstanceDestroy() {
     super.onCatalystInstanceDestroy();
-    unbindService();
+    synchronized (this) {
+      destroyed = true;
+    }
+    serviceGate.close();
+    statusMonitor.stop();
+    printQueue.shutdown();
+    imageCache.clear();
+    if (rawDataRuntime != 0) {
+      RawDataJsi.clear(rawDataRuntime);
+    }
+    for (PrinterTransport transport : transports.values()) {
+      transport.close();
+    }
+    SimulatedPrinterService current = simulator;
+    if (current != null) {
+      current.shutdown();
+    } else {
+      leaveConnection();
+    }
   }
 
   @Override
@@ -98,8 +264,8 @@ public class SunmiPrinterModule extends NativeSunmiPrinterSpec {
     return NAME;
   }
 
-  private boolean ensureService(@Nullable Promise promise) {
-    if (printerService == null) {
+  private boolean ensureService(@Nullable SunmiPrinterService service, @Nullable Promise promise) {
+    if (service == null) {
       String message = "Sunmi printer service is not connected";
       if (promise != null) {
         promise.reject(ERROR_CODE, message);
@@ -115,118 +281,231 @@ public class SunmiPrinterModule extends NativeSunmiPrinterSpec {
     promise.reject(ERROR_CODE, throwable.getMessage(), throwable);
   }
 
+  /**
+   * Runs {@code call} on the print queue. {@code call} settles {@code promise} itself, either
+   * directly or through a {@link PrintResultCallback}; errors thrown by it, including unchecked
+   * ones, reject the promise instead of killing the queue thread. Calls made before the service
+   * connects are held by the {@link ServiceGate} and queued once it does; in lazy bind mode the
+   * first call is what starts binding. When the queue is full the call is dropped and the promise
+   * is rejected with {@code E_PRINT_QUEUE_FULL}.
+   */
+  private void enqueue(String method, Promise promise, PrinterCall call) {
+    long submittedAt = System.nanoTime();
+    joinConnection();
+    serviceGate.submit(method, promise, () -> {
+      SunmiPrinterService service = printerService;
+      if (!ensureService(service, promise)) {
+        return;
+      }
+      long startedAt = System.nanoTime();
+      boolean failed = false;
+      jobBytes = 0;
+      bufferedCallback = null;
+      jobCallback = null;
+      try {
+        call.run(service);
+        if (bufferedCallback != null) {
+          bufferedCallback.resolve(null);
+        }
+      } catch (RuntimeException | RemoteException e) {
+        failed = true;
+        if (jobCallback != null) {
+          jobCallback.fail(e);
+        } else {
+          reject(promise, e);
+        }
+      } finally {
+        metrics.record(method, startedAt - submittedAt, System.nanoTime() - startedAt, jobBytes, failed);
+      }
+    });
+  }
+
+  /**
+   * Callback for a command on the print queue. While the printer buffer is open it is also
+   * resolved once the service call returns, since the service only answers on commit.
+   */
+  private PrintResultCallback commandCallback(Promise promise) {
+    PrintResultCallback callback = track(PrintResultCallback.forCommand(promise));
+    if (printerBufferOpen) {
+      bufferedCallback = callback;
+    }
+    return callback;
+  }
+
+  private PrintResultCallback printResultCallback(Promise promise) {
+    return track(PrintResultCallback.forPrintResult(promise));
+  }
+
+  private PrintResultCallback returnStringCallback(Promise promise) {
+    return track(PrintResultCallback.forReturnString(promise));
+  }
+
+  /**
+   * Remembers {@code callback} as the running job's, so that if the service call then throws,
+   * {@link #enqueue} rejects through it and its deadline is cancelled.
+   */
+  private PrintResultCallback track(PrintResultCallback callback) {
+    jobCallback = callback;
+    return callback;
+  }
+
+  /** Counts {@code data} towards the running job's bytes and returns it. */
+  private byte[] sent(byte[] data) {
+    jobBytes += data.length;
+    return data;
+  }
+
+  private Bitmap sent(Bitmap bitmap) {
+    jobBytes += bitmap.getByteCount();
+    return bitmap;
+  }
+
+  private RawDataStreamer.Source sent(RawDataStreamer.Source source) {
+    jobBytes += source.length();
+    return source;
+  }
+
+  private void submitToQueue(String method, Promise promise, Runnable job) {
+    if (printQueue.submit(job)) {
+      statusMonitor.poke();
+    } else {
+      String message = method + " rejected: print queue is full (" + printQueue.capacity() + " jobs)";
+      Log.w(TAG, message);
+      promise.reject(QUEUE_FULL_CODE, message);
+    }
+  }
+
   /**
    * 初始化打印机，重置打印逻辑程序，但不清空缓存区数据，因此
    * 未完成的打印工作将在重置后继续。
    */
   @ReactMethod
-  public void printerInit() {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      printerService.printerInit(innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "printerInit failed", e);
-    }
+  public void printerInit(Promise promise) {
+    enqueue("printerInit", promise, service -> service.printerInit(commandCallback(promise)));
   }
 
   /**
    * 打印自检。
    */
   @ReactMethod
-  public void printerSelfChecking() {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      printerService.printerSelfChecking(innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "printerSelfChecking failed", e);
-    }
+  public void printerSelfChecking(Promise promise) {
+    enqueue(
+      "printerSelfChecking",
+      promise,
+      service -> service.printerSelfChecking(commandCallback(promise))
+    );
+  }
+
+  /**
+   * Resolves with the serial number, firmware version, model, paper width and service version
+   * in one call. They are read when the service connects and cached until it reconnects.
+   */
+  @ReactMethod
+  public void getPrinterInfo(Promise promise) {
+    resolveInfo("getPrinterInfo", promise, PrinterInfo::toMap);
   }
 
   @ReactMethod
   public void getPrinterSerialNo(Promise promise) {
-    if (!ensureService(promise)) {
-      return;
-    }
-    try {
-      promise.resolve(printerService.getPrinterSerialNo());
-    } catch (RemoteException e) {
-      reject(promise, e);
-    }
+    resolveInfo("getPrinterSerialNo", promise, info -> info.serialNo);
   }
 
   @ReactMethod
   public void getPrinterVersion(Promise promise) {
-    if (!ensureService(promise)) {
-      return;
-    }
-    try {
-      promise.resolve(printerService.getPrinterVersion());
-    } catch (RemoteException e) {
-      reject(promise, e);
-    }
+    resolveInfo("getPrinterVersion", promise, info -> info.printerVersion);
   }
 
   @ReactMethod
   public void getPrinterModal(Promise promise) {
-    if (!ensureService(promise)) {
-      return;
-    }
-    try {
-      promise.resolve(printerService.getPrinterModal());
-    } catch (RemoteException e) {
-      reject(promise, e);
-    }
+    resolveInfo("getPrinterModal", promise, info -> info.model);
   }
 
   @ReactMethod
   public void getPrinterPaper(Promise promise) {
-    if (!ensureService(promise)) {
+    resolveInfo("getPrinterPaper", promise, info -> info.paper);
+  }
+
+  /** Answers from the cached printer info, reading it on the print queue if it is not loaded yet. */
+  private void resolveInfo(String method, Promise promise, InfoField field) {
+    PrinterInfo info = printerInfo;
+    if (info != null) {
+      promise.resolve(field.get(info));
       return;
     }
-    try {
-      promise.resolve(printerService.getPrinterPaper() == 1 ? "58mm" : "80mm");
-    } catch (RemoteException e) {
-      reject(promise, e);
-    }
+    enqueue(method, promise, service -> promise.resolve(field.get(printerInfo(service))));
   }
 
-  @ReactMethod
-  public void updatePrinterState(Promise promise) {
-    if (!ensureService(promise)) {
+  /** Returns the cached printer info, reading it from the service first if needed. */
+  private PrinterInfo printerInfo(SunmiPrinterService service) throws RemoteException {
+    PrinterInfo info = printerInfo;
+    if (info == null) {
+      info = PrinterInfo.read(service);
+      printerInfo = info;
+    }
+    return info;
+  }
+
+  private void preloadPrinterInfo() {
+    SunmiPrinterService service = printerService;
+    if (service == null) {
       return;
     }
     try {
-      promise.resolve(printerService.updatePrinterState());
+      printerInfo(service);
     } catch (RemoteException e) {
-      reject(promise, e);
+      Log.w(TAG, "Failed to read printer info", e);
     }
   }
 
+  @ReactMethod
+  public void updatePrinterState(Promise promise) {
+    enqueue("updatePrinterState", promise, service -> promise.resolve(service.updatePrinterState()));
+  }
+
+  /**
+   * Starts watching the printer status natively. {@code onPrinterStatusChanged} is emitted with
+   * {@code { status, name, previous }} once with the current status and then only on changes;
+   * {@code status} uses the updatePrinterState codes, or -1 while the service is disconnected.
+   */
+  @ReactMethod
+  public void startStatusMonitor(Promise promise) {
+    joinConnection();
+    statusMonitor.start();
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void stopStatusMonitor(Promise promise) {
+    statusMonitor.stop();
+    promise.resolve(null);
+  }
+
   @ReactMethod
   public void getServiceVersion(Promise promise) {
-    if (!ensureService(promise)) {
-      return;
-    }
-    try {
-      promise.resolve(printerService.getServiceVersion());
-    } catch (RemoteException e) {
-      reject(promise, e);
-    }
+    resolveInfo("getServiceVersion", promise, info -> info.serviceVersion);
   }
 
   @ReactMethod
-  public void getPrintedLength() {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      printerService.getPrintedLength(innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "getPrintedLength failed", e);
+  public void getPrintedLength(Promise promise) {
+    enqueue(
+      "getPrintedLength",
+      promise,
+      service -> service.getPrintedLength(returnStringCallback(promise))
+    );
+  }
+
+  /**
+   * Resolves once the printer service is connected, or rejects with {@code E_PRINTER_NOT_READY}
+   * after {@code timeoutMs} (0 waits indefinitely). Print calls do not need to wait for this;
+   * calls made earlier are held and run once the service connects.
+   */
+  @ReactMethod
+  public void whenReady(double timeoutMs, Promise promise) {
+    joinConnection();
+    serviceGate.whenReady(promise);
+    long timeout = Math.round(timeoutMs);
+    if (timeout > 0) {
+      mainHandler.postDelayed(() -> serviceGate.expire(promise, timeout), timeout);
     }
   }
 
@@ -235,365 +514,992 @@ public class SunmiPrinterModule extends NativeSunmiPrinterSpec {
     promise.resolve(printerService != null);
   }
 
+  /**
+   * Reports the print queue so JS can pace itself: {@code depth} jobs are waiting out of
+   * {@code capacity}, and wait times are how long jobs sat in the queue before running.
+   */
   @ReactMethod
-  public void sendRAWData(String base64Data) {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      byte[] bytes = Base64.decode(base64Data, Base64.DEFAULT);
-      printerService.sendRAWData(bytes, innerResultCallback);
-    } catch (IllegalArgumentException | RemoteException e) {
-      Log.e(TAG, "sendRAWData failed", e);
-    }
+  public void getPrintQueueStats(Promise promise) {
+    promise.resolve(queueStats());
   }
 
+  private WritableMap queueStats() {
+    WritableMap stats = Arguments.createMap();
+    stats.putInt("depth", printQueue.depth());
+    stats.putInt("capacity", printQueue.capacity());
+    stats.putBoolean("busy", printQueue.isBusy());
+    stats.putInt("waitingForService", serviceGate.pendingCount());
+    stats.putDouble("submitted", printQueue.submittedCount());
+    stats.putDouble("completed", printQueue.completedCount());
+    stats.putDouble("rejected", printQueue.rejectedCount());
+    stats.putDouble("lastWaitMs", printQueue.lastWaitMillis());
+    stats.putDouble("maxWaitMs", printQueue.maxWaitMillis());
+    stats.putDouble("averageWaitMs", printQueue.averageWaitMillis());
+    return stats;
+  }
+
+  /**
+   * Reports image decoding cost and image cache usage. Peak bytes are the encoded data plus every
+   * bitmap held at once while decoding a single image.
+   */
   @ReactMethod
-  public void setFontName(String typeface) {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      printerService.setFontName(typeface, innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "setFontName failed", e);
-    }
+  public void getImageStats(Promise promise) {
+    promise.resolve(imageStats());
   }
 
+  private WritableMap imageStats() {
+    WritableMap stats = Arguments.createMap();
+    stats.putDouble("decoded", bitmapDecoder.decodedCount());
+    stats.putDouble("lastPeakBytes", bitmapDecoder.lastPeakBytes());
+    stats.putDouble("maxPeakBytes", bitmapDecoder.maxPeakBytes());
+    stats.putInt("lastSampleSize", bitmapDecoder.lastSampleSize());
+    stats.putInt("cacheHits", imageCache.hitCount());
+    stats.putInt("cacheMisses", imageCache.missCount());
+    stats.putInt("cacheEntries", imageCache.entryCount());
+    stats.putInt("cacheBytes", imageCache.sizeBytes());
+    stats.putInt("cacheMaxBytes", imageCache.maxSizeBytes());
+    return stats;
+  }
+
+  /**
+   * Points the module at an in-process simulated printer instead of the Sunmi service, for load
+   * testing without a device. {@code options} sets {@code feedSpeedMmPerSecond},
+   * {@code bufferBytes}, {@code paperWidthMm}, {@code paperLengthMm}, {@code overheatAfterMs} and
+   * {@code cooldownMs}; see {@link SimulatedPrinterService}. Calling it again starts a fresh
+   * simulator. The module stops using the shared service connection until it is recreated.
+   */
   @ReactMethod
-  public void setPrinterStyle(double key, double value) {
-    if (!ensureService(null)) {
-      return;
-    }
+  public void useSimulatedPrinter(ReadableMap options, Promise promise) {
+    SimulatedPrinterService.Options parsed;
     try {
-      printerService.setPrinterStyle((int) Math.round(key), (int) Math.round(value));
-    } catch (RemoteException e) {
-      Log.e(TAG, "setPrinterStyle failed", e);
+      parsed = SimulatedPrinterService.Options.fromMap(options);
+    } catch (IllegalArgumentException e) {
+      reject(promise, e);
+      return;
     }
+    mainHandler.post(() -> {
+      SimulatedPrinterService previous = simulator;
+      SimulatedPrinterService next = new SimulatedPrinterService(parsed);
+      simulator = next;
+      if (previous != null) {
+        previous.shutdown();
+      } else {
+        leaveConnection();
+      }
+      Log.i(TAG, "Using simulated printer at " + parsed.feedSpeedMmPerSecond + " mm/s");
+      attachService(next.service());
+      promise.resolve(null);
+    });
   }
 
+  /**
+   * Reports what the simulated printer has printed: receipt count and receipts per minute, paper
+   * used, buffer use and the text of the last receipts. {@code clear} starts a new measurement.
+   */
   @ReactMethod
-  public void setAlignment(double alignment) {
-    if (!ensureService(null)) {
+  public void getSimulatedPrinterReport(boolean clear, Promise promise) {
+    SimulatedPrinterService current = simulator;
+    if (current == null) {
+      promise.reject(ERROR_CODE, "The simulated printer is not in use");
       return;
     }
-    try {
-      printerService.setAlignment((int) Math.round(alignment), innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "setAlignment failed", e);
-    }
+    promise.resolve(current.report(clear));
   }
 
+  /** Puts the simulated printer into a state: 1 loads paper and clears errors, 4 out of paper, 5 overheated. */
   @ReactMethod
-  public void setFontSize(double fontSize) {
-    if (!ensureService(null)) {
+  public void setSimulatedPrinterStatus(double status, Promise promise) {
+    SimulatedPrinterService current = simulator;
+    if (current == null) {
+      promise.reject(ERROR_CODE, "The simulated printer is not in use");
       return;
     }
     try {
-      printerService.setFontSize((float) fontSize, innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "setFontSize failed", e);
+      current.setStatus((int) Math.round(status));
+    } catch (IllegalArgumentException e) {
+      reject(promise, e);
+      return;
     }
+    statusMonitor.poke();
+    promise.resolve(null);
   }
 
+  /**
+   * Reports per-method call counts, latency (with a log2 histogram and percentiles), queue wait
+   * and bytes sent, together with the print queue and image stats.
+   */
   @ReactMethod
-  public void setFontWeight(boolean isWeight) {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      if (isWeight) {
-        printerService.sendRAWData(ESCUtil.boldOn(), null);
-      } else {
-        printerService.sendRAWData(ESCUtil.boldOff(), null);
+  public void getPrinterMetrics(Promise promise) {
+    WritableMap result = metrics.toMap();
+    result.putMap("queue", queueStats());
+    result.putMap("images", imageStats());
+    WritableMap connection = SunmiConnection.get().stats();
+    connection.putString("bindMode", bindMode() == SunmiConnection.BindMode.LAZY ? "lazy" : "background");
+    result.putMap("connection", connection);
+    WritableMap printers = Arguments.createMap();
+    for (Map.Entry<String, PrinterTransport> entry : transports.entrySet()) {
+      printers.putMap(entry.getKey(), entry.getValue().stats());
+    }
+    result.putMap("transports", printers);
+    promise.resolve(result);
+  }
+
+  @ReactMethod
+  public void resetPrinterMetrics(Promise promise) {
+    metrics.reset();
+    promise.resolve(null);
+  }
+
+  /**
+   * Sends raw ESC/POS bytes. Payloads larger than one chunk are streamed with
+   * {@link RawDataStreamer} instead of failing with TransactionTooLargeException.
+   */
+  @ReactMethod
+  public void sendRAWData(String base64Data, Promise promise) {
+    enqueue("sendRAWData", promise, service -> {
+      RawDataStreamer.Source source = RawDataStreamer.base64(base64Data);
+      if (source.length() > RawDataStreamer.MAX_CHUNK_SIZE) {
+        RawDataStreamer.stream(
+          service,
+          sent(source),
+          RawDataStreamer.DEFAULT_CHUNK_SIZE,
+          null,
+          !printerBufferOpen
+        );
+        promise.resolve(null);
+        return;
       }
-    } catch (RemoteException e) {
-      Log.e(TAG, "setFontWeight failed", e);
+      byte[] bytes = source.read(0, source.length());
+      service.sendRAWData(sent(bytes), commandCallback(promise));
+    });
+  }
+
+  /**
+   * Installs the JSI binding used by {@code sendRAWDataBuffer}; see {@link RawDataJsi}. Runs
+   * synchronously on the JS thread, which JSI requires. Returns false when it is not available,
+   * in which case JS sends the bytes through {@link #sendRAWData} instead.
+   */
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public boolean installRawDataBinding() {
+    JavaScriptContextHolder holder = getReactApplicationContext().getJavaScriptContextHolder();
+    if (holder == null || !RawDataJsi.install(holder.get())) {
+      return false;
     }
+    rawDataRuntime = holder.get();
+    return true;
   }
 
+  /** Sends the payload staged by the JSI binding under {@code handle}, like {@link #sendRAWData}. */
   @ReactMethod
-  public void printerText(String text) {
-    if (!ensureService(null)) {
+  public void sendRAWDataStaged(double handle, Promise promise) {
+    byte[] bytes = RawDataJsi.take((int) handle);
+    if (bytes == null) {
+      promise.reject(ERROR_CODE, "No staged raw data for handle " + (int) handle);
       return;
     }
-    try {
-      printerService.printText(text, null);
-    } catch (RemoteException e) {
-      Log.e(TAG, "printerText failed", e);
-    }
+    serviceTransport.send("sendRAWDataStaged", bytes, promise);
   }
 
-  @ReactMethod
-  public void printTextWithFont(String text, String typeface, double fontSize) {
-    if (!ensureService(null)) {
+  /**
+   * Sends {@code data} to the printer service on the print queue, streaming it with
+   * {@link RawDataStreamer} when it is larger than one chunk. While the printer buffer is open
+   * the chunks are not acknowledged, so they are sent without waiting.
+   */
+  private void sendToService(SunmiPrinterService service, byte[] data, Promise promise) throws RemoteException {
+    if (data.length > RawDataStreamer.MAX_CHUNK_SIZE) {
+      RawDataStreamer.stream(
+        service,
+        sent(RawDataStreamer.bytes(data)),
+        RawDataStreamer.DEFAULT_CHUNK_SIZE,
+        null,
+        !printerBufferOpen
+      );
+      promise.resolve(null);
       return;
     }
-    try {
-      printerService.printTextWithFont(text, typeface, (float) fontSize, null);
-    } catch (RemoteException e) {
-      Log.e(TAG, "printTextWithFont failed", e);
-    }
+    service.sendRAWData(sent(data), commandCallback(promise));
   }
 
+  /**
+   * Streams a large raw payload in chunks of {@code chunkSize} bytes, waiting for the service to
+   * acknowledge each chunk before sending the next. Emits {@code onRawDataProgress} with
+   * {@code jobId} after every chunk and resolves once the last one is acknowledged. While the
+   * printer buffer is open the service does not acknowledge chunks, so they are sent without
+   * waiting and the promise resolves once all of them are sent.
+   */
   @ReactMethod
-  public void printOriginalText(String text) {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      printerService.printOriginalText(text, null);
-    } catch (RemoteException e) {
-      Log.e(TAG, "printOriginalText failed", e);
+  public void sendRAWDataChunked(String base64Data, double chunkSize, String jobId, Promise promise) {
+    int size = (int) Math.round(chunkSize);
+    enqueue("sendRAWDataChunked", promise, service -> {
+      RawDataStreamer.stream(
+        service,
+        sent(RawDataStreamer.base64(base64Data)),
+        size,
+        (sentBytes, totalBytes, chunkIndex, chunkCount) -> {
+          WritableMap progress = Arguments.createMap();
+          progress.putString("jobId", jobId);
+          progress.putDouble("sentBytes", sentBytes);
+          progress.putDouble("totalBytes", totalBytes);
+          progress.putInt("chunk", chunkIndex + 1);
+          progress.putInt("chunks", chunkCount);
+          emit(RAW_DATA_PROGRESS_EVENT, progress);
+        },
+        !printerBufferOpen
+      );
+      promise.resolve(null);
+    });
+  }
+
+  private void emit(String eventName, Object payload) {
+    ReactApplicationContext context = getReactApplicationContext();
+    if (context.hasActiveReactInstance()) {
+      context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(eventName, payload);
     }
   }
 
   @ReactMethod
-  public void printColumnsText(ReadableArray textsArray, ReadableArray widthsArray, ReadableArray alignsArray) {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      String[] texts = readableArrayToStringArray(textsArray);
-      int[] widths = readableArrayToIntArray(widthsArray);
-      int[] aligns = readableArrayToIntArray(alignsArray);
-      printerService.printColumnsText(texts, widths, aligns, null);
-    } catch (RemoteException e) {
-      Log.e(TAG, "printColumnsText failed", e);
-    }
+  public void setFontName(String typeface, Promise promise) {
+    enqueue(
+      "setFontName",
+      promise,
+      service -> service.setFontName(typeface, commandCallback(promise))
+    );
   }
 
   @ReactMethod
-  public void printColumnsString(ReadableArray textsArray, ReadableArray widthsArray, ReadableArray alignsArray) {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      String[] texts = readableArrayToStringArray(textsArray);
-      int[] widths = readableArrayToIntArray(widthsArray);
-      int[] aligns = readableArrayToIntArray(alignsArray);
-      printerService.printColumnsString(texts, widths, aligns, null);
-    } catch (RemoteException e) {
-      Log.e(TAG, "printColumnsString failed", e);
-    }
+  public void setPrinterStyle(double key, double value, Promise promise) {
+    enqueue("setPrinterStyle", promise, service -> {
+      service.setPrinterStyle((int) Math.round(key), (int) Math.round(value));
+      promise.resolve(null);
+    });
   }
 
   @ReactMethod
-  public void printBitmap(String encodedString, double pixelWidth) {
-    if (!ensureService(null)) {
-      return;
-    }
+  public void setAlignment(double alignment, Promise promise) {
+    enqueue(
+      "setAlignment",
+      promise,
+      service -> service.setAlignment((int) Math.round(alignment), commandCallback(promise))
+    );
+  }
+
+  @ReactMethod
+  public void setFontSize(double fontSize, Promise promise) {
+    enqueue(
+      "setFontSize",
+      promise,
+      service -> service.setFontSize((float) fontSize, commandCallback(promise))
+    );
+  }
+
+  @ReactMethod
+  public void setFontWeight(boolean isWeight, Promise promise) {
+    enqueue("setFontWeight", promise, service -> service.sendRAWData(
+      isWeight ? EscPosEncoder.BOLD_ON : EscPosEncoder.BOLD_OFF,
+      commandCallback(promise)
+    ));
+  }
+
+  @ReactMethod
+  public void printerText(String text, Promise promise) {
+    enqueue("printerText", promise, service -> service.printText(text, commandCallback(promise)));
+  }
+
+  @ReactMethod
+  public void printTextWithFont(String text, String typeface, double fontSize, Promise promise) {
+    enqueue(
+      "printTextWithFont",
+      promise,
+      service -> service.printTextWithFont(
+        text,
+        typeface,
+        (float) fontSize,
+        commandCallback(promise)
+      )
+    );
+  }
+
+  @ReactMethod
+  public void printOriginalText(String text, Promise promise) {
+    enqueue(
+      "printOriginalText",
+      promise,
+      service -> service.printOriginalText(text, commandCallback(promise))
+    );
+  }
+
+  @ReactMethod
+  public void printColumnsText(
+    ReadableArray textsArray,
+    ReadableArray widthsArray,
+    ReadableArray alignsArray,
+    Promise promise
+  ) {
+    String[] texts = readableArrayToStringArray(textsArray);
+    int[] widths = readableArrayToIntArray(widthsArray);
+    int[] aligns = readableArrayToIntArray(alignsArray);
+    enqueue(
+      "printColumnsText",
+      promise,
+      service -> service.printColumnsText(texts, widths, aligns, commandCallback(promise))
+    );
+  }
+
+  @ReactMethod
+  public void printColumnsString(
+    ReadableArray textsArray,
+    ReadableArray widthsArray,
+    ReadableArray alignsArray,
+    Promise promise
+  ) {
+    String[] texts = readableArrayToStringArray(textsArray);
+    int[] widths = readableArrayToIntArray(widthsArray);
+    int[] aligns = readableArrayToIntArray(alignsArray);
+    enqueue(
+      "printColumnsString",
+      promise,
+      service -> service.printColumnsString(texts, widths, aligns, commandCallback(promise))
+    );
+  }
+
+  /**
+   * Prints a table as one pre-formatted block of text. {@code rows} are arrays of cell strings;
+   * {@code columnSpec} is {@code { columns: [{ width, align }], gap, charsPerLine }} where widths
+   * are relative weights. Cells are wrapped and padded natively, counting full-width characters
+   * as two, and the line width follows the paper width unless {@code charsPerLine} is given.
+   */
+  @ReactMethod
+  public void printTable(ReadableArray rows, ReadableMap columnSpec, Promise promise) {
+    enqueue("printTable", promise, service -> {
+      int lineWidth = PrintCommand.optInt(columnSpec, "charsPerLine", 0);
+      ColumnLayout layout = ColumnLayout.forSpec(columnSpec, lineWidth > 0 ? lineWidth : printerInfo(service).lineChars());
+      service.printText(layout.format(rows), commandCallback(promise));
+    });
+  }
+
+  @ReactMethod
+  public void printBitmap(String encodedString, double pixelWidth, Promise promise) {
     int targetWidth = (int) Math.round(pixelWidth);
-    Bitmap bitmap = decodeBitmap(encodedString, targetWidth);
-    if (bitmap == null) {
-      Log.w(TAG, "printBitmap: failed to decode image");
-      return;
-    }
-    try {
-      printerService.printBitmap(bitmap, innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "printBitmap failed", e);
-    } finally {
-      bitmap.recycle();
-    }
+    enqueue("printBitmap", promise, service -> service.printBitmap(
+      sent(obtainBitmap(encodedString, targetWidth, ImageCache.TYPE_DEFAULT)),
+      commandCallback(promise)
+    ));
   }
 
   @ReactMethod
-  public void printBitmapCustom(String encodedString, double pixelWidth, double type) {
-    printBitmapBase64Custom(encodedString, pixelWidth, type);
+  public void printBitmapCustom(String encodedString, double pixelWidth, double type, Promise promise) {
+    printBitmapBase64Custom(encodedString, pixelWidth, type, promise);
   }
 
   @ReactMethod
-  public void printBitmapBase64Custom(String encodedString, double pixelWidth, double type) {
-    if (!ensureService(null)) {
-      return;
-    }
+  public void printBitmapBase64Custom(String encodedString, double pixelWidth, double type, Promise promise) {
+    int targetWidth = (int) Math.round(pixelWidth);
+    int bitmapType = (int) Math.round(type);
+    enqueue("printBitmapBase64Custom", promise, service -> service.printBitmapCustom(
+      sent(obtainBitmap(encodedString, targetWidth, bitmapType)),
+      bitmapType,
+      commandCallback(promise)
+    ));
+  }
+
+  /**
+   * Prints an image from a {@code file://} or {@code content://} URI (or an absolute path). The
+   * file is decoded natively from a file descriptor, so the image never passes through JS.
+   */
+  @ReactMethod
+  public void printBitmapUri(String uri, double pixelWidth, Promise promise) {
     int targetWidth = (int) Math.round(pixelWidth);
-    Bitmap bitmap = decodeBitmap(encodedString, targetWidth);
+    enqueue("printBitmapUri", promise, service -> service.printBitmap(
+      sent(obtainBitmapFromUri(uri, targetWidth, ImageCache.TYPE_DEFAULT)),
+      commandCallback(promise)
+    ));
+  }
+
+  @ReactMethod
+  public void printBitmapUriCustom(String uri, double pixelWidth, double type, Promise promise) {
+    int targetWidth = (int) Math.round(pixelWidth);
+    int bitmapType = (int) Math.round(type);
+    enqueue("printBitmapUriCustom", promise, service -> service.printBitmapCustom(
+      sent(obtainBitmapFromUri(uri, targetWidth, bitmapType)),
+      bitmapType,
+      commandCallback(promise)
+    ));
+  }
+
+  /**
+   * Prints an image as 1-bit ESC/POS raster data ({@code GS v 0}) sent through sendRAWData, so
+   * only packed bits cross Binder. {@code dither} is 0 for a plain threshold, 1 for
+   * Floyd-Steinberg and 2 for an ordered (Bayer) dither; {@code threshold} is the 0-255 grey
+   * level below which a pixel prints black.
+   */
+  @ReactMethod
+  public void printBitmapRaster(
+    String encodedString,
+    double pixelWidth,
+    double dither,
+    double threshold,
+    Promise promise
+  ) {
+    int targetWidth = (int) Math.round(pixelWidth);
+    int ditherMode = (int) Math.round(dither);
+    int grayThreshold = (int) Math.round(threshold);
+    enqueue("printBitmapRaster", promise, service -> service.sendRAWData(
+      sent(rasterize(encodedString, targetWidth, ditherMode, grayThreshold)),
+      commandCallback(promise)
+    ));
+  }
+
+  private byte[] rasterize(String encodedString, int targetWidth, int dither, int threshold) {
+    Bitmap bitmap = obtainBitmap(encodedString, targetWidth, ImageCache.TYPE_DEFAULT);
+    return MonochromeEncoder.encodeRaster(bitmap, dither, threshold);
+  }
+
+  /**
+   * Loads an image into the cache so later prints of it skip decoding. Resolves with the cache
+   * key, which {@link #evictImage} accepts.
+   */
+  @ReactMethod
+  public void preloadImage(String encodedString, double pixelWidth, double type, Promise promise) {
+    int targetWidth = (int) Math.round(pixelWidth);
+    int bitmapType = (int) Math.round(type);
+    enqueue("preloadImage", promise, service -> {
+      String key = imageCache.preload(encodedString, targetWidth, bitmapType);
+      if (key == null) {
+        throw new IllegalArgumentException("preloadImage: failed to decode image");
+      }
+      promise.resolve(key);
+    });
+  }
+
+  @ReactMethod
+  public void evictImage(String key, Promise promise) {
+    promise.resolve(imageCache.evict(key));
+  }
+
+  /** Returns a cached or freshly decoded bitmap. It is shared with the cache, so never recycle it. */
+  private Bitmap obtainBitmap(String encodedString, int targetWidth, int type) {
+    Bitmap bitmap = imageCache.obtain(encodedString, targetWidth, type);
     if (bitmap == null) {
-      Log.w(TAG, "printBitmapBase64Custom: failed to decode image");
-      return;
+      throw new IllegalArgumentException("failed to decode image");
     }
+    return bitmap;
+  }
+
+  /** Like {@link #obtainBitmap} for a file or content URI; paths without a scheme are files. */
+  private Bitmap obtainBitmapFromUri(String uriString, int targetWidth, int type) {
+    Uri uri = uriString.startsWith("/") ? Uri.parse("file://" + uriString) : Uri.parse(uriString);
+    String scheme = uri.getScheme();
+    if (!"file".equals(scheme) && !"content".equals(scheme)) {
+      throw new IllegalArgumentException("Unsupported image URI: " + uriString);
+    }
+    Bitmap bitmap;
     try {
-      printerService.printBitmapCustom(bitmap, (int) Math.round(type), innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "printBitmapBase64Custom failed", e);
-    } finally {
-      bitmap.recycle();
+      bitmap = imageCache.obtain(getReactApplicationContext().getContentResolver(), uri, targetWidth, type);
+    } catch (IOException | SecurityException e) {
+      throw new IllegalArgumentException("failed to open image " + uriString + ": " + e.getMessage(), e);
+    }
+    if (bitmap == null) {
+      throw new IllegalArgumentException("failed to decode image " + uriString);
     }
+    return bitmap;
   }
 
   @ReactMethod
-  public void printBarCode(String data, double symbology, double height, double width, double textPosition) {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      printerService.printBarCode(
-        data,
-        (int) Math.round(symbology),
-        (int) Math.round(height),
-        (int) Math.round(width),
-        (int) Math.round(textPosition),
-        innerResultCallback
-      );
-    } catch (RemoteException e) {
-      Log.e(TAG, "printBarCode failed", e);
-    }
+  public void printBarCode(
+    String data,
+    double symbology,
+    double height,
+    double width,
+    double textPosition,
+    Promise promise
+  ) {
+    enqueue("printBarCode", promise, service -> service.printBarCode(
+      data,
+      (int) Math.round(symbology),
+      (int) Math.round(height),
+      (int) Math.round(width),
+      (int) Math.round(textPosition),
+      commandCallback(promise)
+    ));
   }
 
   @ReactMethod
-  public void printQRCode(String data, double modulesize, double errorlevel) {
-    if (!ensureService(null)) {
-      return;
-    }
+  public void printQRCode(String data, double modulesize, double errorlevel, Promise promise) {
+    enqueue("printQRCode", promise, service -> service.printQRCode(
+      data,
+      (int) Math.round(modulesize),
+      (int) Math.round(errorlevel),
+      commandCallback(promise)
+    ));
+  }
+
+  @ReactMethod
+  public void print2DCode(String data, double symbology, double modulesize, double errorlevel, Promise promise) {
+    enqueue("print2DCode", promise, service -> service.print2DCode(
+      data,
+      (int) Math.round(symbology),
+      (int) Math.round(modulesize),
+      (int) Math.round(errorlevel),
+      commandCallback(promise)
+    ));
+  }
+
+  @ReactMethod
+  public void commitPrint(ReadableArray transactions, Promise promise) {
+    TransBean[] beans;
     try {
-      printerService.printQRCode(
-        data,
-        (int) Math.round(modulesize),
-        (int) Math.round(errorlevel),
-        innerResultCallback
-      );
-    } catch (RemoteException e) {
-      Log.e(TAG, "printQRCode failed", e);
+      beans = readableArrayToTransBeans(transactions);
+    } catch (IllegalArgumentException e) {
+      reject(promise, e);
+      return;
     }
+    enqueue(
+      "commitPrint",
+      promise,
+      service -> service.commitPrint(beans, printResultCallback(promise))
+    );
   }
 
+  /**
+   * Prints a whole document in a single printer buffer transaction, so a receipt costs one
+   * bridge call instead of one per line. Resolves once the service reports the print result.
+   */
   @ReactMethod
-  public void print2DCode(String data, double symbology, double modulesize, double errorlevel) {
-    if (!ensureService(null)) {
+  public void printDocument(ReadableArray ops, Promise promise) {
+    List<PrintCommand> commands;
+    try {
+      commands = PrintCommand.fromArray(ops);
+    } catch (IllegalArgumentException e) {
+      reject(promise, e);
       return;
     }
+    printCommands("printDocument", commands, promise);
+  }
+
+  /**
+   * Compiles a receipt template and stores it under {@code id}, replacing any template with the
+   * same id. See {@link ReceiptTemplate} for the placeholder and control op syntax.
+   */
+  @ReactMethod
+  public void registerTemplate(String id, ReadableArray ops, Promise promise) {
     try {
-      printerService.print2DCode(
-        data,
-        (int) Math.round(symbology),
-        (int) Math.round(modulesize),
-        (int) Math.round(errorlevel),
-        innerResultCallback
-      );
-    } catch (RemoteException e) {
-      Log.e(TAG, "print2DCode failed", e);
+      templates.put(id, ReceiptTemplate.compile(ops));
+      promise.resolve(null);
+    } catch (IllegalArgumentException e) {
+      reject(promise, e);
     }
   }
 
   @ReactMethod
-  public void commitPrint(ReadableArray transactions) {
-    Log.w(TAG, "commitPrint is not supported in the React Native binding");
+  public void unregisterTemplate(String id, Promise promise) {
+    promise.resolve(templates.remove(id) != null);
   }
 
+  /** Renders the template registered as {@code id} with {@code data} and prints it like printDocument. */
   @ReactMethod
-  public void enterPrinterBuffer(boolean clear) {
-    if (!ensureService(null)) {
+  public void printTemplate(String id, ReadableMap data, Promise promise) {
+    ReceiptTemplate template = templates.get(id);
+    if (template == null) {
+      promise.reject(ERROR_CODE, "No template registered as '" + id + "'");
       return;
     }
+    List<PrintCommand> commands;
     try {
-      printerService.enterPrinterBuffer(clear);
-    } catch (RemoteException e) {
-      Log.e(TAG, "enterPrinterBuffer failed", e);
+      commands = template.render(data);
+    } catch (IllegalArgumentException e) {
+      reject(promise, e);
+      return;
     }
+    printCommands("printTemplate", commands, promise);
   }
 
+  /**
+   * Runs {@code commands} in one printer buffer transaction settled by its print result. Rejected
+   * while JS has its own buffer open, since entering the buffer again would clear it.
+   */
+  private void printCommands(String method, List<PrintCommand> commands, Promise promise) {
+    enqueue(method, promise, service -> {
+      if (printerBufferOpen) {
+        promise.reject(ERROR_CODE, method + " cannot run inside enterPrinterBuffer; call exitPrinterBuffer first");
+        return;
+      }
+      service.enterPrinterBuffer(true);
+      try {
+        for (PrintCommand command : commands) {
+          runCommand(service, command);
+        }
+        service.commitPrinterBufferWithCallback(printResultCallback(promise));
+      } finally {
+        exitBufferQuietly(service);
+      }
+    });
+  }
+
+  /**
+   * Encodes a list of ESC/POS operations into one byte stream and sends it with a single
+   * sendRAWData call. Encoding happens on the print queue into a reused buffer, so a receipt
+   * costs one array copy regardless of how many commands it has.
+   */
   @ReactMethod
-  public void exitPrinterBuffer(boolean commit) {
-    if (!ensureService(null)) {
-      return;
-    }
-    try {
-      printerService.exitPrinterBuffer(commit);
-    } catch (RemoteException e) {
-      Log.e(TAG, "exitPrinterBuffer failed", e);
+  public void printEscPos(ReadableArray ops, Promise promise) {
+    serviceTransport.send("printEscPos", out -> encodeEscPos(ops, out), promise);
+  }
+
+  /**
+   * Encodes {@code ops} into {@code out} and copies the result. {@code out} is reset first; it is
+   * the encoder of the transport running the job, see {@link PrinterTransport.Encoding}.
+   */
+  private byte[] encodeEscPos(ReadableArray ops, EscPosEncoder out) {
+    out.reset();
+    for (int i = 0; i < ops.size(); i++) {
+      ReadableMap op = ops.getMap(i);
+      if (op == null) {
+        throw new IllegalArgumentException("ESC/POS op at index " + i + " is not an object");
+      }
+      encodeEscPos(op, out);
     }
+    return out.toByteArray();
   }
 
+  /**
+   * Registers a network printer that takes raw ESC/POS over TCP (port 9100 by default) under
+   * {@code id}, for {@link #sendRAWDataTo} and {@link #printEscPosTo}. Connections are opened on
+   * the first job and kept alive; see {@link TcpPrinterTransport}. Replaces a printer already
+   * registered under {@code id}.
+   */
   @ReactMethod
-  public void commitPrinterBuffer() {
-    if (!ensureService(null)) {
+  public void addNetworkPrinter(String id, ReadableMap options, Promise promise) {
+    if (BUILT_IN_PRINTER_ID.equals(id)) {
+      promise.reject(ERROR_CODE, "'" + BUILT_IN_PRINTER_ID + "' is the built-in printer");
       return;
     }
+    TcpPrinterTransport.Options parsed;
     try {
-      printerService.commitPrinterBuffer();
-    } catch (RemoteException e) {
-      Log.e(TAG, "commitPrinterBuffer failed", e);
+      parsed = TcpPrinterTransport.Options.fromMap(options);
+    } catch (IllegalArgumentException e) {
+      reject(promise, e);
+      return;
     }
+    PrinterTransport previous = transports.put(id, new TcpPrinterTransport(id, parsed, metrics));
+    if (previous != null) {
+      previous.close();
+    }
+    Log.i(TAG, "Network printer '" + id + "' at " + parsed.host + ":" + parsed.port);
+    promise.resolve(null);
   }
 
+  /** Removes a network printer; jobs not sent yet are rejected. */
   @ReactMethod
-  public void commitPrinterBufferWithCallbacka() {
-    if (!ensureService(null)) {
+  public void removeNetworkPrinter(String id, Promise promise) {
+    if (BUILT_IN_PRINTER_ID.equals(id)) {
+      promise.reject(ERROR_CODE, "The built-in printer cannot be removed");
       return;
     }
-    try {
-      printerService.commitPrinterBufferWithCallback(innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "commitPrinterBufferWithCallbacka failed", e);
+    PrinterTransport removed = transports.remove(id);
+    if (removed != null) {
+      removed.close();
     }
+    promise.resolve(removed != null);
   }
 
+  /** Sends raw bytes to the printer registered as {@code printerId}, like {@link #sendRAWData}. */
   @ReactMethod
-  public void lineWrap(double lines) {
-    if (!ensureService(null)) {
+  public void sendRAWDataTo(String printerId, String base64Data, Promise promise) {
+    PrinterTransport transport = transport(printerId, promise);
+    if (transport == null) {
       return;
     }
-
-    int wrappedLines = (int) Math.round(lines);
-
+    byte[] data;
     try {
-      printerService.lineWrap(wrappedLines, innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "lineWrap failed", e);
+      data = Base64.decode(base64Data, Base64.DEFAULT);
+    } catch (IllegalArgumentException e) {
+      reject(promise, e);
+      return;
     }
+    transport.send("sendRAWData", data, promise);
   }
 
+  /**
+   * Encodes ESC/POS operations like {@link #printEscPos} and sends them to the printer registered
+   * as {@code printerId}. The ops are encoded by that printer's transport, on its own thread and
+   * with its own encoder, so network printers never wait behind the built-in printer's queue.
+   */
   @ReactMethod
-  public void cutPaper() {
-    if (!ensureService(null)) {
-      return;
+  public void printEscPosTo(String printerId, ReadableArray ops, Promise promise) {
+    PrinterTransport transport = transport(printerId, promise);
+    if (transport != null) {
+      transport.send("printEscPos", out -> encodeEscPos(ops, out), promise);
     }
-    try {
-      printerService.cutPaper(innerResultCallback);
-    } catch (RemoteException e) {
-      Log.e(TAG, "cutPaper failed", e);
+  }
+
+  @Nullable
+  private PrinterTransport transport(String printerId, Promise promise) {
+    PrinterTransport transport = transports.get(printerId);
+    if (transport == null) {
+      promise.reject(ERROR_CODE, "No printer registered as '" + printerId + "'");
     }
+    return transport;
   }
 
-  @ReactMethod
-  public void openDrawer() {
-    if (!ensureService(null)) {
-      return;
+  private void encodeEscPos(ReadableMap op, EscPosEncoder out) {
+    String type = PrintCommand.requireString(op, "type");
+    switch (type) {
+      case "initialize":
+        out.initialize();
+        break;
+      case "text":
+        out.text(PrintCommand.requireString(op, "text"));
+        break;
+      case "newline":
+        out.newline();
+        break;
+      case "feed":
+        out.feed(PrintCommand.requireInt(op, "lines"));
+        break;
+      case "bold":
+        out.bold(PrintCommand.requireBoolean(op, "on"));
+        break;
+      case "underline":
+        out.underline(PrintCommand.requireInt(op, "thickness"));
+        break;
+      case "inverse":
+        out.inverse(PrintCommand.requireBoolean(op, "on"));
+        break;
+      case "upsideDown":
+        out.upsideDown(PrintCommand.requireBoolean(op, "on"));
+        break;
+      case "textSize":
+        out.textSize(PrintCommand.requireInt(op, "width"), PrintCommand.requireInt(op, "height"));
+        break;
+      case "align":
+        out.align(PrintCommand.requireInt(op, "alignment"));
+        break;
+      case "lineSpacing":
+        out.lineSpacing(PrintCommand.requireInt(op, "dots"));
+        break;
+      case "defaultLineSpacing":
+        out.defaultLineSpacing();
+        break;
+      case "codePage":
+        out.codePage(PrintCommand.requireInt(op, "page"));
+        break;
+      case "charset":
+        out.charset(PrintCommand.requireString(op, "name"));
+        break;
+      case "image":
+      case "imageUri": {
+        int width = PrintCommand.requireInt(op, "pixelWidth");
+        Bitmap bitmap = "image".equals(type)
+          ? obtainBitmap(PrintCommand.requireString(op, "encodedString"), width, ImageCache.TYPE_DEFAULT)
+          : obtainBitmapFromUri(PrintCommand.requireString(op, "uri"), width, ImageCache.TYPE_DEFAULT);
+        out.raster(
+          bitmap,
+          PrintCommand.optInt(op, "dither", MonochromeEncoder.DITHER_THRESHOLD),
+          PrintCommand.optInt(op, "threshold", MonochromeEncoder.DEFAULT_THRESHOLD)
+        );
+        break;
+      }
+      case "barcode":
+        out.barcode(
+          PrintCommand.optInt(op, "system", EscPosEncoder.BARCODE_CODE128),
+          PrintCommand.requireString(op, "data"),
+          PrintCommand.optInt(op, "height", 162),
+          PrintCommand.optInt(op, "width", 3),
+          PrintCommand.optInt(op, "textPosition", 2)
+        );
+        break;
+      case "qrCode":
+        out.qrCode(
+          PrintCommand.requireString(op, "data"),
+          PrintCommand.optInt(op, "moduleSize", 6),
+          PrintCommand.optInt(op, "errorLevel", 1)
+        );
+        break;
+      case "cut":
+        out.cut(
+          op.hasKey("partial") && !op.isNull("partial") && op.getBoolean("partial"),
+          PrintCommand.optInt(op, "feed", 0)
+        );
+        break;
+      case "openDrawer":
+        out.openDrawer();
+        break;
+      case "raw":
+        out.raw(Base64.decode(PrintCommand.requireString(op, "data"), Base64.DEFAULT));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown ESC/POS op type: " + type);
     }
+  }
+
+  private void exitBufferQuietly(SunmiPrinterService service) {
     try {
-      printerService.openDrawer(innerResultCallback);
+      service.exitPrinterBuffer(false);
     } catch (RemoteException e) {
-      Log.e(TAG, "openDrawer failed", e);
+      Log.w(TAG, "exitPrinterBuffer failed", e);
+    }
+  }
+
+  private void runCommand(SunmiPrinterService service, PrintCommand command) throws RemoteException {
+    switch (command.type) {
+      case PrintCommand.PRINTER_INIT:
+        service.printerInit(null);
+        break;
+      case PrintCommand.PRINTER_TEXT:
+        service.printText(command.text, null);
+        break;
+      case PrintCommand.PRINT_TEXT_WITH_FONT:
+        service.printTextWithFont(command.text, command.typeface, command.fontSize, null);
+        break;
+      case PrintCommand.PRINT_ORIGINAL_TEXT:
+        service.printOriginalText(command.text, null);
+        break;
+      case PrintCommand.SET_ALIGNMENT:
+        service.setAlignment(command.value(0), null);
+        break;
+      case PrintCommand.SET_FONT_NAME:
+        service.setFontName(command.typeface, null);
+        break;
+      case PrintCommand.SET_FONT_SIZE:
+        service.setFontSize(command.fontSize, null);
+        break;
+      case PrintCommand.SET_FONT_WEIGHT:
+        service.sendRAWData(command.flag ? EscPosEncoder.BOLD_ON : EscPosEncoder.BOLD_OFF, null);
+        break;
+      case PrintCommand.SET_PRINTER_STYLE:
+        service.setPrinterStyle(command.value(0), command.value(1));
+        break;
+      case PrintCommand.PRINT_COLUMNS_TEXT:
+        service.printColumnsText(command.texts, command.widths, command.aligns, null);
+        break;
+      case PrintCommand.PRINT_COLUMNS_STRING:
+        service.printColumnsString(command.texts, command.widths, command.aligns, null);
+        break;
+      case PrintCommand.PRINT_BAR_CODE:
+        service.printBarCode(
+          command.text,
+          command.value(0),
+          command.value(1),
+          command.value(2),
+          command.value(3),
+          null
+        );
+        break;
+      case PrintCommand.PRINT_QR_CODE:
+        service.printQRCode(command.text, command.value(0), command.value(1), null);
+        break;
+      case PrintCommand.PRINT_2D_CODE:
+        service.print2DCode(command.text, command.value(0), command.value(1), command.value(2), null);
+        break;
+      case PrintCommand.PRINT_BITMAP:
+        service.printBitmap(sent(obtainBitmap(command.text, command.value(0), ImageCache.TYPE_DEFAULT)), null);
+        break;
+      case PrintCommand.PRINT_BITMAP_CUSTOM:
+        service.printBitmapCustom(
+          sent(obtainBitmap(command.text, command.value(0), command.value(1))),
+          command.value(1),
+          null
+        );
+        break;
+      case PrintCommand.PRINT_BITMAP_URI:
+        if (command.value(1) == ImageCache.TYPE_DEFAULT) {
+          service.printBitmap(
+            sent(obtainBitmapFromUri(command.text, command.value(0), ImageCache.TYPE_DEFAULT)),
+            null
+          );
+        } else {
+          service.printBitmapCustom(
+            sent(obtainBitmapFromUri(command.text, command.value(0), command.value(1))),
+            command.value(1),
+            null
+          );
+        }
+        break;
+      case PrintCommand.PRINT_BITMAP_RASTER:
+        service.sendRAWData(
+          sent(rasterize(command.text, command.value(0), command.value(1), command.value(2))),
+          null
+        );
+        break;
+      case PrintCommand.SEND_RAW_DATA:
+        service.sendRAWData(sent(Base64.decode(command.text, Base64.DEFAULT)), null);
+        break;
+      case PrintCommand.LINE_WRAP:
+        service.lineWrap(command.value(0), null);
+        break;
+      case PrintCommand.CUT_PAPER:
+        service.cutPaper(null);
+        break;
+      case PrintCommand.OPEN_DRAWER:
+        service.openDrawer(null);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown print command type: " + command.type);
     }
   }
 
+  @ReactMethod
+  public void enterPrinterBuffer(boolean clear, Promise promise) {
+    enqueue("enterPrinterBuffer", promise, service -> {
+      service.enterPrinterBuffer(clear);
+      printerBufferOpen = true;
+      promise.resolve(null);
+    });
+  }
+
+  @ReactMethod
+  public void exitPrinterBuffer(boolean commit, Promise promise) {
+    enqueue("exitPrinterBuffer", promise, service -> {
+      service.exitPrinterBuffer(commit);
+      printerBufferOpen = false;
+      promise.resolve(null);
+    });
+  }
+
+  @ReactMethod
+  public void commitPrinterBuffer(Promise promise) {
+    enqueue("commitPrinterBuffer", promise, service -> {
+      service.commitPrinterBuffer();
+      promise.resolve(null);
+    });
+  }
+
+  @ReactMethod
+  public void commitPrinterBufferWithCallbacka(Promise promise) {
+    enqueue(
+      "commitPrinterBufferWithCallbacka",
+      promise,
+      service -> service.commitPrinterBufferWithCallback(printResultCallback(promise))
+    );
+  }
+
+  @ReactMethod
+  public void lineWrap(double lines, Promise promise) {
+    int wrappedLines = (int) Math.round(lines);
+    enqueue("lineWrap", promise, service -> service.lineWrap(wrappedLines, commandCallback(promise)));
+  }
+
+  @ReactMethod
+  public void cutPaper(Promise promise) {
+    enqueue("cutPaper", promise, service -> service.cutPaper(commandCallback(promise)));
+  }
+
+  @ReactMethod
+  public void openDrawer(Promise promise) {
+    enqueue("openDrawer", promise, service -> service.openDrawer(commandCallback(promise)));
+  }
+
   @ReactMethod
   public void getDrawerStatus(Promise promise) {
-    if (!ensureService(promise)) {
-      return;
-    }
-    try {
-      promise.resolve(printerService.getDrawerStatus());
-    } catch (RemoteException e) {
-      reject(promise, e);
-    }
+    enqueue("getDrawerStatus", promise, service -> promise.resolve(service.getDrawerStatus()));
   }
 
   @ReactMethod
   public void getCutPaperTimes(Promise promise) {
-    if (!ensureService(promise)) {
-      return;
-    }
-    try {
-      promise.resolve(printerService.getCutPaperTimes());
-    } catch (RemoteException e) {
-      reject(promise, e);
-    }
+    enqueue("getCutPaperTimes", promise, service -> promise.resolve(service.getCutPaperTimes()));
   }
 
-  private String[] readableArrayToStringArray(ReadableArray array) {
+  static String[] readableArrayToStringArray(ReadableArray array) {
     String[] result = new String[array.size()];
     for (int i = 0; i < array.size(); i++) {
       result[i] = array.getString(i);
@@ -601,7 +1507,7 @@ public class SunmiPrinterModule extends NativeSunmiPrinterSpec {
     return result;
   }
 
-  private int[] readableArrayToIntArray(ReadableArray array) {
+  static int[] readableArrayToIntArray(ReadableArray array) {
     int[] result = new int[array.size()];
     for (int i = 0; i < array.size(); i++) {
       result[i] = (int) array.getDouble(i);
@@ -609,36 +1515,25 @@ public class SunmiPrinterModule extends NativeSunmiPrinterSpec {
     return result;
   }
 
-  @Nullable
-  private Bitmap decodeBitmap(String encodedString, int pixelWidth) {
-    try {
-      String base64 = encodedString;
-      int commaIndex = base64.indexOf(',');
-      if (commaIndex >= 0) {
-        base64 = base64.substring(commaIndex + 1);
-      }
-      byte[] data = Base64.decode(base64, Base64.DEFAULT);
-      Bitmap decoded = BitmapFactory.decodeByteArray(data, 0, data.length);
-      if (decoded == null) {
-        return null;
-      }
-      if (pixelWidth <= 0 || decoded.getWidth() == pixelWidth) {
-        return decoded;
-      }
-      int width = decoded.getWidth();
-      int height = decoded.getHeight();
-      if (width == 0 || height == 0) {
-        return decoded;
-      }
-      int scaledHeight = Math.max(1, (int) (((float) pixelWidth / width) * height));
-      Bitmap scaled = Bitmap.createScaledBitmap(decoded, pixelWidth, scaledHeight, false);
-      if (scaled != decoded) {
-        decoded.recycle();
+  /**
+   * Converts {@code { type, text, data }} entries into the service's TransBean batch. {@code data}
+   * is base64 encoded raw bytes; either {@code text} or {@code data} may be omitted.
+   */
+  private TransBean[] readableArrayToTransBeans(ReadableArray array) {
+    TransBean[] result = new TransBean[array.size()];
+    for (int i = 0; i < array.size(); i++) {
+      ReadableMap transaction = array.getMap(i);
+      if (transaction == null || !transaction.hasKey("type")) {
+        throw new IllegalArgumentException("Transaction at index " + i + " has no type");
       }
-      return scaled;
-    } catch (IllegalArgumentException exception) {
-      Log.e(TAG, "decodeBitmap: invalid image data", exception);
-      return null;
+      String text = transaction.hasKey("text") && !transaction.isNull("text")
+        ? transaction.getString("text")
+        : "";
+      byte[] data = transaction.hasKey("data") && !transaction.isNull("data")
+        ? Base64.decode(transaction.getString("data"), Base64.DEFAULT)
+        : null;
+      result[i] = new TransBean((byte) transaction.getInt("type"), text, data);
     }
+    return result;
   }
 }
@@ -1,46 +1,74 @@
 package com.reactnativesunmiprinter;
 
 import android.app.Activity;
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.os.Build;
 import android.os.Bundle;
+import android.os.Looper;
+import android.util.Base64;
+
+import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.ActivityEventListener;
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.BaseActivityEventListener;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.facebook.react.module.annotations.ReactModule;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 
 @ReactModule(name = SunmiScanModule.NAME)
 public class SunmiScanModule extends NativeSunmiScanModuleSpec {
   public static final String NAME = "SunmiScanModule";
-  private static ReactApplicationContext reactContext;
-  private static final int START_SCAN = 0x0000;
+  /** Distinctive request code, so results for other activities started by the app are ignored. */
+  private static final int START_SCAN = 0x5C4E;
   private static final String E_ACTIVITY_DOES_NOT_EXIST = "E_ACTIVITY_DOES_NOT_EXIST";
   private static final String E_FAILED_TO_SHOW_SCAN = "E_FAILED_TO_SHOW_SCAN";
-  private static final String ACTION_DATA_CODE_RECEIVED = "com.sunmi.scanner.ACTION_DATA_CODE_RECEIVED";
-  private static final String DATA = "data";
-  private static final String SOURCE = "source_byte";
+  private static final String E_SCAN_CANCELLED = "E_SCAN_CANCELLED";
+  private static final String E_INVALID_SCAN_OPTIONS = "E_INVALID_SCAN_OPTIONS";
   private Promise mPickerPromise;
+  private volatile boolean includeRawBytes;
+  private final ScanHistory history = new ScanHistory(ScanHistory.DEFAULT_CAPACITY);
+
+  private final ScanBatcher batcher = new ScanBatcher(Looper.getMainLooper(), new ScanBatcher.Listener() {
+    @Override
+    public void onScan(ScanBatcher.Scan scan) {
+      if (includeRawBytes) {
+        emit("onScanSuccess", toMap(scan, true));
+      } else {
+        emit("onScanSuccess", scan.value);
+      }
+    }
 
-  private BroadcastReceiver receiver = new BroadcastReceiver() {
     @Override
-    public void onReceive(Context context, Intent intent) {
-      String action = intent.getAction();
-      if (ACTION_DATA_CODE_RECEIVED.equals(action)) {
-        String code = intent.getStringExtra(DATA);
-        byte[] arr = intent.getByteArrayExtra(SOURCE);
-        if (code != null && !code.isEmpty()) {
-          sendEvent(code);
+    public void onBatch(List<ScanBatcher.Scan> scans) {
+      WritableArray payload = Arguments.createArray();
+      for (ScanBatcher.Scan scan : scans) {
+        payload.pushMap(toMap(scan, includeRawBytes));
+      }
+      emit("onScanBatch", payload);
+    }
+  });
+
+  private final SunmiConnection.ScanListener scanListener = new SunmiConnection.ScanListener() {
+    @Override
+    public void onScanReceived(@Nullable String code, @Nullable byte[] raw) {
+      if ((code == null || code.isEmpty()) && raw != null && raw.length > 0) {
+        // Binary payload the scanner could not decode as text; keep one char per byte.
+        code = new String(raw, StandardCharsets.ISO_8859_1);
+      }
+      if (code != null && !code.isEmpty()) {
+        ScanBatcher.Scan scan = batcher.offer(code, raw);
+        if (scan != null) {
+          history.add(scan);
         }
       }
     }
@@ -49,25 +77,32 @@ public class SunmiScanModule extends NativeSunmiScanModuleSpec {
   private final ActivityEventListener mActivityEventListener = new BaseActivityEventListener() {
     @Override
     public void onActivityResult(Activity activity, int requestCode, int resultCode, Intent intent) {
-      if (intent != null) {
-        Bundle bundle = intent.getExtras();
-        ArrayList<HashMap<String, String>> result = (ArrayList<HashMap<String, String>>) bundle.getSerializable("data");
-        if (null != result) {
-          Iterator<HashMap<String, String>> it = result.iterator();
-          while (it.hasNext()) {
-            HashMap hashMap = it.next();
-            sendEvent(hashMap.get("VALUE").toString());
-          }
-        }
+      if (requestCode != START_SCAN) {
+        return;
+      }
+      Promise promise = mPickerPromise;
+      mPickerPromise = null;
+      if (promise == null) {
+        return;
       }
+      if (resultCode != Activity.RESULT_OK) {
+        promise.reject(E_SCAN_CANCELLED, "Scan was cancelled");
+        return;
+      }
+      promise.resolve(toResultArray(intent));
     }
   };
 
   public SunmiScanModule(ReactApplicationContext context) {
     super(context);
-    reactContext = context;
-    reactContext.addActivityEventListener(mActivityEventListener);
-    registerReceiver();
+  }
+
+  /** Joins the process-wide scanner receiver; see {@link SunmiConnection}. */
+  @Override
+  public void initialize() {
+    super.initialize();
+    getReactApplicationContext().addActivityEventListener(mActivityEventListener);
+    SunmiConnection.get().acquireScanner(getReactApplicationContext(), scanListener);
   }
 
   @Override
@@ -75,6 +110,10 @@ public class SunmiScanModule extends NativeSunmiScanModuleSpec {
     return NAME;
   }
 
+  /**
+   * Opens the camera scanner. Resolves with every code read as {@code [{value, type}]}, in one
+   * payload, and rejects with {@code E_SCAN_CANCELLED} if the user backs out.
+   */
   @ReactMethod
   public void scan(final Promise promise) {
     Activity currentActivity = getCurrentActivity();
@@ -82,6 +121,9 @@ public class SunmiScanModule extends NativeSunmiScanModuleSpec {
       promise.reject(E_ACTIVITY_DOES_NOT_EXIST, "Activity doesn't exist");
       return;
     }
+    if (mPickerPromise != null) {
+      mPickerPromise.reject(E_SCAN_CANCELLED, "Scan was replaced by a new scan() call");
+    }
     mPickerPromise = promise;
     try {
       Intent intent = new Intent("com.sunmi.scan");
@@ -89,33 +131,112 @@ public class SunmiScanModule extends NativeSunmiScanModuleSpec {
       intent.putExtra("PLAY_SOUND", true);
       currentActivity.startActivityForResult(intent, START_SCAN);
     } catch (Exception e) {
-      mPickerPromise.reject("E_FAILED_TO_SHOW_SCAN", e);
+      mPickerPromise.reject(E_FAILED_TO_SHOW_SCAN, e);
       mPickerPromise = null;
     }
   }
 
-  private void registerReceiver() {
-    IntentFilter filter = new IntentFilter();
-    filter.addAction(ACTION_DATA_CODE_RECEIVED);
-    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-      reactContext.registerReceiver(receiver, filter, Context.RECEIVER_EXPORTED);
-    } else {
-      reactContext.registerReceiver(receiver, filter);
+  /**
+   * Configures how broadcast scans reach JS. With {@code enabled}, scans are collected for
+   * {@code windowMs} after the first one and emitted together as {@code onScanBatch}, or as soon as
+   * {@code maxBatchSize} are collected; otherwise each scan is emitted as {@code onScanSuccess}.
+   * Repeats of a code within {@code dedupeWindowMs} are dropped in both modes; 0 keeps them.
+   */
+  @ReactMethod
+  public void setScanBatching(ReadableMap options, Promise promise) {
+    try {
+      batcher.configure(
+        options.hasKey("enabled") && options.getBoolean("enabled"),
+        PrintCommand.optInt(options, "windowMs", (int) ScanBatcher.DEFAULT_WINDOW_MS),
+        PrintCommand.optInt(options, "maxBatchSize", ScanBatcher.DEFAULT_MAX_BATCH_SIZE),
+        PrintCommand.optInt(options, "dedupeWindowMs", 0)
+      );
+      promise.resolve(null);
+    } catch (IllegalArgumentException e) {
+      promise.reject(E_INVALID_SCAN_OPTIONS, e.getMessage(), e);
     }
   }
 
+  /**
+   * With {@code enabled}, scan events carry the bytes read by the scanner as base64 in {@code raw},
+   * and {@code onScanSuccess} sends a {@code {value, timestamp, raw}} object instead of the string.
+   * Use this for binary payloads, such as GS1 codes with FNC1 separators or non UTF-8 barcodes.
+   */
+  @ReactMethod
+  public void setRawScanBytes(boolean enabled, Promise promise) {
+    includeRawBytes = enabled;
+    promise.resolve(null);
+  }
+
+  /**
+   * Resolves with up to {@code count} of the most recent broadcast scans, newest first, including
+   * scans made before the caller started listening. Duplicates dropped by the dedupe window are
+   * not recorded.
+   */
+  @ReactMethod
+  public void getRecentScans(double count, Promise promise) {
+    WritableArray result = Arguments.createArray();
+    for (ScanBatcher.Scan scan : history.recent((int) count)) {
+      result.pushMap(toMap(scan, true));
+    }
+    promise.resolve(result);
+  }
+
+  /**
+   * Converts the scanner activity's result list, one {@code {TYPE, VALUE}} map per code read, into
+   * a single array so a multi-code scan crosses the bridge once.
+   */
+  @SuppressWarnings("unchecked")
+  private static WritableArray toResultArray(@Nullable Intent intent) {
+    WritableArray results = Arguments.createArray();
+    Bundle bundle = intent != null ? intent.getExtras() : null;
+    if (bundle == null) {
+      return results;
+    }
+    ArrayList<HashMap<String, String>> data = (ArrayList<HashMap<String, String>>) bundle.getSerializable("data");
+    if (data == null) {
+      return results;
+    }
+    for (HashMap<String, String> item : data) {
+      Object value = item.get("VALUE");
+      if (value == null) {
+        continue;
+      }
+      Object type = item.get("TYPE");
+      WritableMap map = Arguments.createMap();
+      map.putString("value", value.toString());
+      map.putString("type", type != null ? type.toString() : null);
+      results.pushMap(map);
+    }
+    return results;
+  }
+
+  private static WritableMap toMap(ScanBatcher.Scan scan, boolean includeRaw) {
+    WritableMap map = Arguments.createMap();
+    map.putString("value", scan.value);
+    map.putDouble("timestamp", scan.timestamp);
+    if (includeRaw && scan.raw != null) {
+      map.putString("raw", Base64.encodeToString(scan.raw, Base64.NO_WRAP));
+    }
+    return map;
+  }
+
   @Override
   public void onCatalystInstanceDestroy() {
     super.onCatalystInstanceDestroy();
-    reactContext.removeActivityEventListener(mActivityEventListener);
-    try {
-      reactContext.unregisterReceiver(receiver);
-    } catch (IllegalArgumentException ignored) {
-      // Receiver already unregistered
+    SunmiConnection.get().releaseScanner(scanListener);
+    batcher.stop();
+    getReactApplicationContext().removeActivityEventListener(mActivityEventListener);
+    if (mPickerPromise != null) {
+      mPickerPromise.reject(E_SCAN_CANCELLED, "Scan module was destroyed");
+      mPickerPromise = null;
     }
   }
 
-  private static void sendEvent(String msg) {
-    reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit("onScanSuccess", msg);
+  private void emit(String eventName, Object payload) {
+    ReactApplicationContext context = getReactApplicationContext();
+    if (context.hasActiveReactInstance()) {
+      context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(eventName, payload);
+    }
   }
 }
@@ -0,0 +1,586 @@
+package com.reactnativesunmiprinter;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prints raw ESC/POS to a network printer over TCP, the "raw" or JetDirect protocol on port 9100.
+ * Jobs go into a bounded queue served by one worker thread per connection. Each worker keeps its
+ * socket open between jobs and closes it after {@link Options#idleTimeoutMs} without work.
+ *
+ * <p>ESC/POS ops are encoded on a thread of the transport's own, with one reused encoder, so a job
+ * that decodes images never blocks the caller; the encoded bytes then join the queue.
+ *
+ * <p>Writes are pipelined: a worker takes every job already waiting and coalesces small ones into
+ * shared writes, so a burst of small jobs costs a few rounds of TCP segments instead of one per
+ * job. A job completes when the write holding its bytes has returned; the protocol has no
+ * acknowledgement, so that is all "sent" means. A write that blocks for longer than
+ * {@link Options#writeTimeoutMs} fails.
+ *
+ * <p>A kept-alive socket the printer has closed in the meantime is detected before it is reused.
+ * If a write still fails on a reused socket, the jobs in that write fail, since part of them may
+ * have been printed, and the jobs not written yet are retried once on a new socket. Any other
+ * failure fails the rest of the batch. With more than one connection, jobs can print out of order.
+ */
+final class TcpPrinterTransport implements PrinterTransport {
+
+  static final int DEFAULT_PORT = 9100;
+  /** Largest amount of queued data a worker takes at once. */
+  static final int MAX_BATCH_BYTES = 64 * 1024;
+  /** Jobs smaller than this are coalesced into one write. */
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  /** Completion of one job; called on a worker thread. */
+  interface Callback {
+    void onComplete(@Nullable Exception error);
+  }
+
+  static final class Options {
+    final String host;
+    int port = DEFAULT_PORT;
+    /** Sockets kept open to the printer, each with its own worker thread. */
+    int connections = 1;
+    int connectTimeoutMs = 3_000;
+    /** Time without jobs after which a socket is closed; 0 keeps it open. */
+    int idleTimeoutMs = 60_000;
+    /** Time a write may block, e.g. on a printer out of paper, before it fails; 0 waits forever. */
+    int writeTimeoutMs = 30_000;
+    int queueCapacity = PrintQueue.DEFAULT_CAPACITY;
+
+    Options(String host) {
+      this.host = host;
+    }
+
+    static Options fromMap(ReadableMap map) {
+      Options options = new Options(PrintCommand.requireString(map, "host"));
+      options.port = PrintCommand.optInt(map, "port", options.port);
+      options.connections = PrintCommand.optInt(map, "connections", options.connections);
+      options.connectTimeoutMs = PrintCommand.optInt(map, "connectTimeoutMs", options.connectTimeoutMs);
+      options.idleTimeoutMs = PrintCommand.optInt(map, "idleTimeoutMs", options.idleTimeoutMs);
+      options.writeTimeoutMs = PrintCommand.optInt(map, "writeTimeoutMs", options.writeTimeoutMs);
+      options.queueCapacity = PrintCommand.optInt(map, "queueCapacity", options.queueCapacity);
+      options.validate();
+      return options;
+    }
+
+    void validate() {
+      if (host.isEmpty()) {
+        throw new IllegalArgumentException("host must not be empty");
+      }
+      if (port <= 0 || port > 65535) {
+        throw new IllegalArgumentException("port must be between 1 and 65535");
+      }
+      if (connections <= 0 || connections > 8) {
+        throw new IllegalArgumentException("connections must be between 1 and 8");
+      }
+      if (connectTimeoutMs <= 0) {
+        throw new IllegalArgumentException("connectTimeoutMs must be positive");
+      }
+      if (idleTimeoutMs < 0) {
+        throw new IllegalArgumentException("idleTimeoutMs must not be negative");
+      }
+      if (writeTimeoutMs < 0) {
+        throw new IllegalArgumentException("writeTimeoutMs must not be negative");
+      }
+      if (queueCapacity <= 0) {
+        throw new IllegalArgumentException("queueCapacity must be positive");
+      }
+    }
+  }
+
+  /** Jobs one worker took from the queue, settled in order as they are written. */
+  private static final class Batch {
+    final List<Job> jobs = new ArrayList<>();
+    long startedAt;
+    /** Jobs before this index have been resolved or rejected. */
+    int settled;
+    /** Jobs before this index have been handed to a write, whether or not it succeeded. */
+    int attempted;
+
+    void reset(long now) {
+      jobs.clear();
+      startedAt = now;
+      settled = 0;
+      attempted = 0;
+    }
+  }
+
+  private static final class Job {
+    final String method;
+    final byte[] data;
+    final Callback callback;
+    final long submittedAt = System.nanoTime();
+
+    Job(String method, byte[] data, Callback callback) {
+      this.method = method;
+      this.data = data;
+      this.callback = callback;
+    }
+  }
+
+  /** Encodes one job's ESC/POS ops and queues the bytes; runs on the encoder thread. */
+  private final class EncodeJob implements Runnable {
+    final String method;
+    final Encoding encoding;
+    final Callback callback;
+
+    EncodeJob(String method, Encoding encoding, Callback callback) {
+      this.method = method;
+      this.encoding = encoding;
+      this.callback = callback;
+    }
+
+    @Override
+    public void run() {
+      byte[] data;
+      try {
+        data = encoding.encode(escPosEncoder);
+      } catch (RuntimeException e) {
+        Log.w(SunmiPrinterModule.TAG, "Could not encode " + method + " for printer '" + id + "'", e);
+        callback.onComplete(e);
+        return;
+      }
+      if (!submit(method, data, callback)) {
+        callback.onComplete(new IOException(queueFullMessage(method)));
+      }
+    }
+  }
+
+  private final String id;
+  private final Options options;
+  @Nullable private final PrinterMetrics metrics;
+  private final BlockingQueue<Job> queue;
+  private final Thread[] workers;
+  /** Closes the socket of a write that has blocked past {@link Options#writeTimeoutMs}. */
+  private final ScheduledThreadPoolExecutor watchdog;
+  /** Runs {@link EncodeJob}s one at a time, so {@link #escPosEncoder} is never shared. */
+  private final ThreadPoolExecutor encoder;
+  /** Only used on the encoder thread. */
+  private final EscPosEncoder escPosEncoder = new EscPosEncoder(4096);
+  /** Sockets currently open, so {@link #close} can unblock a worker stuck writing. */
+  private final Set<Socket> sockets = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private volatile boolean closed;
+
+  private final AtomicLong connectionsOpened = new AtomicLong();
+  private final AtomicLong reconnects = new AtomicLong();
+  private final AtomicLong jobs = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+  private final AtomicLong writes = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+
+  TcpPrinterTransport(String id, Options options, @Nullable PrinterMetrics metrics) {
+    options.validate();
+    this.id = id;
+    this.options = options;
+    this.metrics = metrics;
+    queue = new ArrayBlockingQueue<>(options.queueCapacity);
+    watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "SunmiPrinter-tcp-" + id + "-watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+    watchdog.setRemoveOnCancelPolicy(true);
+    encoder = new ThreadPoolExecutor(
+      1,
+      1,
+      0,
+      TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(options.queueCapacity),
+      runnable -> {
+        Thread thread = new Thread(runnable, "SunmiPrinter-tcp-" + id + "-encoder");
+        thread.setDaemon(true);
+        return thread;
+      }
+    );
+    workers = new Thread[options.connections];
+    for (int i = 0; i < workers.length; i++) {
+      workers[i] = new Thread(this::work, "SunmiPrinter-tcp-" + id + "-" + i);
+      workers[i].setDaemon(true);
+      workers[i].start();
+    }
+  }
+
+  @Override
+  public void send(String method, byte[] data, Promise promise) {
+    if (!submit(method, data, settling(promise))) {
+      rejectQueueFull(method, promise);
+    }
+  }
+
+  @Override
+  public void send(String method, Encoding encoding, Promise promise) {
+    if (!submit(method, encoding, settling(promise))) {
+      rejectQueueFull(method, promise);
+    }
+  }
+
+  private static Callback settling(Promise promise) {
+    return error -> {
+      if (error == null) {
+        promise.resolve(null);
+      } else {
+        promise.reject(SunmiPrinterModule.ERROR_CODE, error.getMessage(), error);
+      }
+    };
+  }
+
+  private String queueFullMessage(String method) {
+    return method + " rejected: queue for printer '" + id + "' is full (" + options.queueCapacity + " jobs)";
+  }
+
+  private void rejectQueueFull(String method, Promise promise) {
+    String message = queueFullMessage(method);
+    Log.w(SunmiPrinterModule.TAG, message);
+    promise.reject(SunmiPrinterModule.QUEUE_FULL_CODE, message);
+  }
+
+  /** Queues {@code data}; returns false, without calling {@code callback}, if the queue is full. */
+  boolean submit(String method, byte[] data, Callback callback) {
+    if (closed) {
+      callback.onComplete(closedError());
+      return true;
+    }
+    if (!queue.offer(new Job(method, data, callback))) {
+      return false;
+    }
+    if (closed) {
+      failQueued();
+    }
+    return true;
+  }
+
+  /**
+   * Queues {@code encoding} to be encoded on the encoder thread and its bytes then sent like
+   * {@link #submit(String, byte[], Callback)}; returns false, without calling {@code callback}, if
+   * the encoder's queue is full. An encoding error completes {@code callback} with it.
+   */
+  boolean submit(String method, Encoding encoding, Callback callback) {
+    if (closed) {
+      callback.onComplete(closedError());
+      return true;
+    }
+    try {
+      encoder.execute(new EncodeJob(method, encoding, callback));
+    } catch (RejectedExecutionException e) {
+      if (!closed) {
+        return false;
+      }
+      callback.onComplete(closedError());
+    }
+    return true;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    for (Runnable job : encoder.shutdownNow()) {
+      ((EncodeJob) job).callback.onComplete(closedError());
+    }
+    for (Thread worker : workers) {
+      worker.interrupt();
+    }
+    for (Socket socket : sockets) {
+      closeQuietly(socket);
+    }
+    watchdog.shutdownNow();
+    failQueued();
+  }
+
+  @Override
+  public WritableMap stats() {
+    WritableMap stats = Arguments.createMap();
+    stats.putString("type", "tcp");
+    stats.putString("host", options.host);
+    stats.putInt("port", options.port);
+    stats.putInt("openConnections", sockets.size());
+    stats.putDouble("connectionsOpened", connectionsOpened.get());
+    stats.putDouble("reconnects", reconnects.get());
+    stats.putDouble("jobs", jobs.get());
+    stats.putDouble("bytes", bytes.get());
+    stats.putDouble("writes", writes.get());
+    stats.putDouble("failures", failures.get());
+    stats.putInt("queued", queue.size());
+    return stats;
+  }
+
+  long connectionsOpened() {
+    return connectionsOpened.get();
+  }
+
+  long reconnects() {
+    return reconnects.get();
+  }
+
+  long writes() {
+    return writes.get();
+  }
+
+  long failures() {
+    return failures.get();
+  }
+
+  private IOException closedError() {
+    return new IOException("Printer '" + id + "' has been removed");
+  }
+
+  private void failQueued() {
+    List<Job> left = new ArrayList<>();
+    queue.drainTo(left);
+    settle(left, 0, left.size(), closedError(), 0);
+  }
+
+  /** Worker loop: one socket, kept open across batches until it idles out or fails. */
+  private void work() {
+    Socket socket = null;
+    OutputStream out = null;
+    Batch batch = new Batch();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try {
+      while (!closed) {
+        Job first = socket == null || options.idleTimeoutMs == 0
+          ? queue.take()
+          : queue.poll(options.idleTimeoutMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          Log.d(SunmiPrinterModule.TAG, "Closing idle connection to printer '" + id + "'");
+          socket = closeQuietly(socket);
+          continue;
+        }
+        batch.reset(System.nanoTime());
+        collectBatch(first, batch.jobs);
+
+        boolean reused = socket != null;
+        if (reused && isClosedByPeer(socket)) {
+          socket = closeQuietly(socket);
+          reused = false;
+          reconnects.incrementAndGet();
+        }
+        try {
+          if (socket == null) {
+            socket = connect();
+            out = socket.getOutputStream();
+          }
+          writeBatch(socket, out, batch, buffer);
+        } catch (IOException e) {
+          socket = closeQuietly(socket);
+          if (!reused || closed || e instanceof SocketTimeoutException) {
+            fail(batch, batch.jobs.size(), e);
+            continue;
+          }
+          // Jobs in the failed write may have partly reached the printer; sending them again could
+          // print them twice, so they fail. Jobs not written at all can safely go on a new socket.
+          fail(batch, batch.attempted, e);
+          if (batch.settled == batch.jobs.size()) {
+            continue;
+          }
+          Log.w(SunmiPrinterModule.TAG, "Kept-alive connection to printer '" + id + "' failed, reconnecting", e);
+          reconnects.incrementAndGet();
+          try {
+            socket = connect();
+            out = socket.getOutputStream();
+            writeBatch(socket, out, batch, buffer);
+          } catch (IOException retryError) {
+            socket = closeQuietly(socket);
+            fail(batch, batch.jobs.size(), retryError);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      closeQuietly(socket);
+    }
+  }
+
+  /** Adds {@code first} and whatever else is already queued, up to {@link #MAX_BATCH_BYTES}. */
+  private void collectBatch(Job first, List<Job> jobs) {
+    jobs.add(first);
+    int size = first.data.length;
+    while (size < MAX_BATCH_BYTES) {
+      Job next = queue.poll();
+      if (next == null) {
+        break;
+      }
+      jobs.add(next);
+      size += next.data.length;
+    }
+  }
+
+  /**
+   * Writes the jobs of {@code batch} not attempted yet, coalescing small ones in {@code buffer} so
+   * a burst goes out in few writes. Jobs are settled as soon as the write holding their last byte
+   * returns.
+   */
+  private void writeBatch(Socket socket, OutputStream out, Batch batch, byte[] buffer) throws IOException {
+    int buffered = 0;
+    int size = batch.jobs.size();
+    for (int i = batch.attempted; i < size; i++) {
+      byte[] data = batch.jobs.get(i).data;
+      if (buffered > 0 && buffered + data.length > buffer.length) {
+        write(socket, out, buffer, buffered, batch, i);
+        buffered = 0;
+      }
+      if (data.length >= buffer.length) {
+        write(socket, out, data, data.length, batch, i + 1);
+      } else {
+        System.arraycopy(data, 0, buffer, buffered, data.length);
+        buffered += data.length;
+      }
+    }
+    if (buffered > 0) {
+      write(socket, out, buffer, buffered, batch, size);
+    }
+  }
+
+  /**
+   * Writes {@code length} bytes holding the data of the batch's jobs up to {@code end}, then
+   * settles them. A write still blocked after {@link Options#writeTimeoutMs}, because the printer
+   * stopped reading, is ended by closing the socket and fails with a {@link SocketTimeoutException}.
+   */
+  private void write(Socket socket, OutputStream out, byte[] data, int length, Batch batch, int end)
+    throws IOException {
+    batch.attempted = end;
+    AtomicBoolean timedOut = new AtomicBoolean();
+    ScheduledFuture<?> deadline = null;
+    if (options.writeTimeoutMs > 0) {
+      try {
+        deadline = watchdog.schedule(
+          () -> {
+            timedOut.set(true);
+            closeQuietly(socket);
+          },
+          options.writeTimeoutMs,
+          TimeUnit.MILLISECONDS
+        );
+      } catch (RejectedExecutionException e) {
+        throw closedError();
+      }
+    }
+    try {
+      out.write(data, 0, length);
+    } catch (IOException e) {
+      if (timedOut.get()) {
+        throw new SocketTimeoutException(
+          "Printer '" + id + "' did not take data for " + options.writeTimeoutMs + " ms"
+        );
+      }
+      throw e;
+    } finally {
+      if (deadline != null) {
+        deadline.cancel(false);
+      }
+    }
+    writes.incrementAndGet();
+    settle(batch.jobs, batch.settled, end, null, batch.startedAt);
+    batch.settled = end;
+  }
+
+  private Socket connect() throws IOException {
+    Socket socket = new Socket();
+    try {
+      socket.setKeepAlive(true);
+      socket.setTcpNoDelay(true);
+      socket.connect(new InetSocketAddress(options.host, options.port), options.connectTimeoutMs);
+    } catch (IOException e) {
+      closeQuietly(socket);
+      throw new IOException("Could not connect to printer '" + id + "' at " + options.host + ":" + options.port, e);
+    }
+    sockets.add(socket);
+    connectionsOpened.incrementAndGet();
+    return socket;
+  }
+
+  /**
+   * Whether the printer closed {@code socket} while it sat idle. Reads whatever the printer sent
+   * (status bytes, if any) without waiting for more; end of stream means it is gone.
+   */
+  private static boolean isClosedByPeer(Socket socket) {
+    try {
+      InputStream in = socket.getInputStream();
+      socket.setSoTimeout(1);
+      byte[] scratch = new byte[256];
+      while (true) {
+        if (in.read(scratch) < 0) {
+          return true;
+        }
+      }
+    } catch (SocketTimeoutException e) {
+      return false;
+    } catch (IOException e) {
+      return true;
+    }
+  }
+
+  @Nullable
+  private Socket closeQuietly(@Nullable Socket socket) {
+    if (socket == null) {
+      return null;
+    }
+    sockets.remove(socket);
+    try {
+      socket.close();
+    } catch (IOException ignored) {
+      // Nothing left to release
+    }
+    return null;
+  }
+
+  /** Fails the batch's unsettled jobs up to {@code end}. */
+  private void fail(Batch batch, int end, IOException error) {
+    if (batch.settled >= end) {
+      return;
+    }
+    Log.w(SunmiPrinterModule.TAG, error.getMessage(), error);
+    failures.incrementAndGet();
+    settle(batch.jobs, batch.settled, end, error, batch.startedAt);
+    batch.settled = end;
+    batch.attempted = Math.max(batch.attempted, end);
+  }
+
+  private void settle(List<Job> list, int from, int to, @Nullable Exception error, long startedAt) {
+    long now = System.nanoTime();
+    for (int i = from; i < to; i++) {
+      Job job = list.get(i);
+      if (error == null) {
+        jobs.incrementAndGet();
+        bytes.addAndGet(job.data.length);
+      }
+      if (metrics != null && startedAt != 0) {
+        metrics.record(
+          job.method + "@" + id,
+          startedAt - job.submittedAt,
+          now - startedAt,
+          error == null ? job.data.length : 0,
+          error != null
+        );
+      }
+      job.callback.onComplete(error);
+    }
+  }
+}
@@ -6,6 +6,7 @@ import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.turbomodule.core.interfaces.TurboModule;
 
 public abstract class NativeSunmiPrinterSpec extends ReactContextBaseJavaModule implements TurboModule {
@@ -17,75 +18,139 @@ public abstract class NativeSunmiPrinterSpec extends ReactContextBaseJavaModule
   @NonNull
   public abstract String getName();
 
-  public abstract void printerInit();
+  public abstract void printerInit(Promise promise);
 
-  public abstract void printerSelfChecking();
+  public abstract void printerSelfChecking(Promise promise);
+
+  public abstract void getPrinterInfo(Promise promise);
 
   public abstract void getPrinterSerialNo(Promise promise);
 
   public abstract void getPrinterVersion(Promise promise);
 
+  public abstract void startStatusMonitor(Promise promise);
+
+  public abstract void stopStatusMonitor(Promise promise);
+
   public abstract void getServiceVersion(Promise promise);
 
   public abstract void getPrinterModal(Promise promise);
 
   public abstract void getPrinterPaper(Promise promise);
 
-  public abstract void getPrintedLength();
+  public abstract void getPrintedLength(Promise promise);
 
   public abstract void updatePrinterState(Promise promise);
 
+  public abstract void whenReady(double timeoutMs, Promise promise);
+
   public abstract void hasPrinter(Promise promise);
 
-  public abstract void sendRAWData(String data);
+  public abstract void getPrintQueueStats(Promise promise);
+
+  public abstract void getImageStats(Promise promise);
+
+  public abstract void getPrinterMetrics(Promise promise);
+
+  public abstract void resetPrinterMetrics(Promise promise);
+
+  public abstract void useSimulatedPrinter(ReadableMap options, Promise promise);
+
+  public abstract void getSimulatedPrinterReport(boolean clear, Promise promise);
+
+  public abstract void setSimulatedPrinterStatus(double status, Promise promise);
+
+  public abstract void sendRAWData(String data, Promise promise);
+
+  public abstract void setPrinterStyle(double key, double value, Promise promise);
+
+  public abstract void setAlignment(double alignment, Promise promise);
+
+  public abstract void setFontName(String typeface, Promise promise);
+
+  public abstract void setFontSize(double fontSize, Promise promise);
+
+  public abstract void setFontWeight(boolean isWeight, Promise promise);
+
+  public abstract void printerText(String text, Promise promise);
+
+  public abstract void printTextWithFont(String text, String typeface, double fontSize, Promise promise);
+
+  public abstract void printOriginalText(String text, Promise promise);
+
+  public abstract void printColumnsText(ReadableArray texts, ReadableArray widths, ReadableArray aligns, Promise promise);
+
+  public abstract void printColumnsString(ReadableArray texts, ReadableArray widths, ReadableArray aligns, Promise promise);
+
+  public abstract void printBitmap(String encodedString, double pixelWidth, Promise promise);
+
+  public abstract void printBitmapCustom(String encodedString, double pixelWidth, double type, Promise promise);
+
+  public abstract void printBitmapBase64Custom(String encodedString, double pixelWidth, double type, Promise promise);
+
+  public abstract void sendRAWDataChunked(String base64Data, double chunkSize, String jobId, Promise promise);
+
+  public abstract boolean installRawDataBinding();
+
+  public abstract void sendRAWDataStaged(double handle, Promise promise);
+
+  public abstract void printTable(ReadableArray rows, ReadableMap columnSpec, Promise promise);
+
+  public abstract void registerTemplate(String id, ReadableArray ops, Promise promise);
 
-  public abstract void setPrinterStyle(double key, double value);
+  public abstract void unregisterTemplate(String id, Promise promise);
 
-  public abstract void setAlignment(double alignment);
+  public abstract void printTemplate(String id, ReadableMap data, Promise promise);
 
-  public abstract void setFontName(String typeface);
+  public abstract void printEscPos(ReadableArray ops, Promise promise);
 
-  public abstract void setFontSize(double fontSize);
+  public abstract void addNetworkPrinter(String id, ReadableMap options, Promise promise);
 
-  public abstract void setFontWeight(boolean isWeight);
+  public abstract void removeNetworkPrinter(String id, Promise promise);
 
-  public abstract void printerText(String text);
+  public abstract void sendRAWDataTo(String printerId, String base64Data, Promise promise);
 
-  public abstract void printTextWithFont(String text, String typeface, double fontSize);
+  public abstract void printEscPosTo(String printerId, ReadableArray ops, Promise promise);
 
-  public abstract void printOriginalText(String text);
+  public abstract void printBitmapUri(String uri, double pixelWidth, Promise promise);
 
-  public abstract void printColumnsText(ReadableArray texts, ReadableArray widths, ReadableArray aligns);
+  public abstract void printBitmapUriCustom(String uri, double pixelWidth, double type, Promise promise);
 
-  public abstract void printColumnsString(ReadableArray texts, ReadableArray widths, ReadableArray aligns);
+  public abstract void printBitmapRaster(
+    String encodedString,
+    double pixelWidth,
+    double dither,
+    double threshold,
+    Promise promise
+  );
 
-  public abstract void printBitmap(String encodedString, double pixelWidth);
+  public abstract void preloadImage(String encodedString, double pixelWidth, double type, Promise promise);
 
-  public abstract void printBitmapCustom(String encodedString, double pixelWidth, double type);
+  public abstract void evictImage(String key, Promise promise);
 
-  public abstract void printBitmapBase64Custom(String encodedString, double pixelWidth, double type);
+  public abstract void printBarCode(String data, double symbology, double height, double width, double textPosition, Promise promise);
 
-  public abstract void printBarCode(String data, double symbology, double height, double width, double textPosition);
+  public abstract void printQRCode(String data, double modulesize, double errorlevel, Promise promise);
 
-  public abstract void printQRCode(String data, double modulesize, double errorlevel);
+  public abstract void print2DCode(String data, double symbology, double modulesize, double errorlevel, Promise promise);
 
-  public abstract void print2DCode(String data, double symbology, double modulesize, double errorlevel);
+  public abstract void printDocument(ReadableArray ops, Promise promise);
 
-  public abstract void commitPrint(ReadableArray transactions);
+  public abstract void commitPrint(ReadableArray transactions, Promise promise);
 
-  public abstract void enterPrinterBuffer(boolean clear);
+  public abstract void enterPrinterBuffer(boolean clear, Promise promise);
 
-  public abstract void exitPrinterBuffer(boolean commit);
+  public abstract void exitPrinterBuffer(boolean commit, Promise promise);
 
-  public abstract void commitPrinterBuffer();
+  public abstract void commitPrinterBuffer(Promise promise);
 
-  public abstract void commitPrinterBufferWithCallbacka();
+  public abstract void commitPrinterBufferWithCallbacka(Promise promise);
 
-  public abstract void lineWrap(double lines);
+  public abstract void lineWrap(double lines, Promise promise);
 
-  public abstract void cutPaper();
+  public abstract void cutPaper(Promise promise);
 
-  public abstract void openDrawer();
+  public abstract void openDrawer(Promise promise);
 
   public abstract void getDrawerStatus(Promise promise);
 
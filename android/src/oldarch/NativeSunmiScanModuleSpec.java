@@ -5,6 +5,7 @@ import androidx.annotation.NonNull;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.turbomodule.core.interfaces.TurboModule;
 
 public abstract class NativeSunmiScanModuleSpec extends ReactContextBaseJavaModule implements TurboModule {
@@ -17,4 +18,10 @@ public abstract class NativeSunmiScanModuleSpec extends ReactContextBaseJavaModu
   public abstract String getName();
 
   public abstract void scan(Promise promise);
+
+  public abstract void setScanBatching(ReadableMap options, Promise promise);
+
+  public abstract void setRawScanBytes(boolean enabled, Promise promise);
+
+  public abstract void getRecentScans(double count, Promise promise);
 }
@@ -0,0 +1,50 @@
+package com.reactnativesunmiprinter;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bridge array conversion used by the column methods, over {@link JavaOnlyArray}. Native arrays
+ * from the bridge add a JNI hop per element that this does not include.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArrayConversionBenchmark {
+
+  @Param({"3", "64"})
+  public int size;
+
+  JavaOnlyArray numbers;
+  JavaOnlyArray strings;
+
+  @Setup
+  public void setUp() {
+    numbers = new JavaOnlyArray();
+    strings = new JavaOnlyArray();
+    for (int i = 0; i < size; i++) {
+      numbers.pushDouble(i * 8);
+      strings.pushString("cell " + i);
+    }
+  }
+
+  @Benchmark
+  public int[] toIntArray() {
+    return SunmiPrinterModule.readableArrayToIntArray(numbers);
+  }
+
+  @Benchmark
+  public String[] toStringArray() {
+    return SunmiPrinterModule.readableArrayToStringArray(strings);
+  }
+}
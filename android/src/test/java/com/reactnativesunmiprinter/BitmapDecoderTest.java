@@ -0,0 +1,73 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.Base64;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.ByteArrayOutputStream;
+
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class BitmapDecoderTest {
+
+  static byte[] png(int width, int height) {
+    Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    bitmap.eraseColor(Color.WHITE);
+    for (int x = 0; x < width; x += 2) {
+      bitmap.setPixel(x, height / 2, Color.BLACK);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void downsamplesThenScalesToTargetWidth() {
+    BitmapDecoder decoder = new BitmapDecoder();
+    Bitmap bitmap = decoder.decode(png(800, 200), 384);
+
+    assertNotNull(bitmap);
+    assertEquals(384, bitmap.getWidth());
+    assertEquals(96, bitmap.getHeight());
+    assertEquals(2, decoder.lastSampleSize());
+    assertEquals(1, decoder.decodedCount());
+  }
+
+  @Test
+  public void stripsDataUriPrefix() {
+    String encoded = "data:image/png;base64," + Base64.encodeToString(png(64, 16), Base64.NO_WRAP);
+    Bitmap bitmap = new BitmapDecoder().decodeBase64(encoded, 0);
+
+    assertNotNull(bitmap);
+    assertEquals(64, bitmap.getWidth());
+  }
+
+  @Test
+  public void returnsNullForGarbage() {
+    assertNull(new BitmapDecoder().decode(new byte[] {1, 2, 3}, 384));
+  }
+
+  @Test
+  public void cacheDecodesEachImageOnce() {
+    BitmapDecoder decoder = new BitmapDecoder();
+    ImageCache cache = new ImageCache(decoder, ImageCache.DEFAULT_MAX_BYTES);
+    String encoded = Base64.encodeToString(png(400, 100), Base64.NO_WRAP);
+
+    Bitmap first = cache.obtain(encoded, 384, ImageCache.TYPE_DEFAULT);
+    Bitmap second = cache.obtain(encoded, 384, ImageCache.TYPE_DEFAULT);
+
+    assertSame(first, second);
+    assertEquals(1, decoder.decodedCount());
+    assertEquals(1, cache.hitCount());
+  }
+}
@@ -0,0 +1,59 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Test;
+
+public class ColumnLayoutTest {
+
+  @Test
+  public void distributeHandsOutRemainderLeftToRight() {
+    assertArrayEquals(new int[] {4, 3, 3}, ColumnLayout.distribute(new int[] {1, 1, 1}, 10));
+    assertArrayEquals(new int[] {8, 24}, ColumnLayout.distribute(new int[] {1, 3}, 32));
+  }
+
+  @Test
+  public void fullWidthCharactersCountTwice() {
+    assertEquals(5, ColumnLayout.displayWidth("中文a"));
+    assertEquals(1, ColumnLayout.displayWidth("é"));
+  }
+
+  @Test
+  public void wrapsAtLastSpaceAndInsideLongWords() {
+    StringBuilder[] lines = ColumnLayout.wrap("hello world", 8);
+    assertEquals(2, lines.length);
+    assertEquals("hello", lines[0].toString());
+    assertEquals("world", lines[1].toString());
+
+    lines = ColumnLayout.wrap("中文中文中", 4);
+    assertEquals(3, lines.length);
+    assertEquals("中", lines[2].toString());
+  }
+
+  @Test
+  public void formatsRowsWithAlignment() {
+    JavaOnlyMap spec = JavaOnlyMap.of(
+      "columns",
+      JavaOnlyArray.of(JavaOnlyMap.of("width", 1), JavaOnlyMap.of("width", 1, "align", ColumnLayout.ALIGN_RIGHT)),
+      "gap",
+      1
+    );
+    ColumnLayout layout = ColumnLayout.forSpec(spec, 11);
+    String text = layout.format(JavaOnlyArray.of(JavaOnlyArray.of("ab", "12"), JavaOnlyArray.of("可乐", "3.50")));
+
+    assertEquals("ab       12\n可乐   3.50\n", text);
+    assertEquals(layout, ColumnLayout.forSpec(spec, 11));
+  }
+
+  @Test
+  public void fullWidthCharactersInAOneCharacterColumnDoNotShiftTheRow() {
+    ColumnLayout layout = new ColumnLayout(new int[] {1, 3}, new int[] {ColumnLayout.ALIGN_LEFT, ColumnLayout.ALIGN_RIGHT}, 1);
+    String text = layout.format(JavaOnlyArray.of(JavaOnlyArray.of("中a", "12")));
+
+    assertEquals("?  12\na\n", text);
+  }
+}
@@ -0,0 +1,69 @@
+package com.reactnativesunmiprinter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/** Encoding a 40-line receipt with {@link EscPosEncoder} versus concatenating per-command arrays. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EscPosBenchmark {
+
+  static final int LINES = 40;
+
+  String[] lines;
+  EscPosEncoder encoder;
+  Charset gb18030;
+
+  @Setup
+  public void setUp() {
+    lines = receiptLines(LINES);
+    encoder = new EscPosEncoder(4096);
+    gb18030 = Charset.forName(EscPosEncoder.DEFAULT_CHARSET);
+  }
+
+  static String[] receiptLines(int count) {
+    String[] lines = new String[count];
+    for (int i = 0; i < count; i++) {
+      lines[i] = "商品 Item " + i + "      x" + (i % 5 + 1) + "      " + (i * 3 + 0.5) + "\n";
+    }
+    return lines;
+  }
+
+  @Benchmark
+  public byte[] escPosEncoder() {
+    encoder.reset().initialize();
+    for (int i = 0; i < lines.length; i++) {
+      encoder.bold(i == 0).text(lines[i]);
+    }
+    return encoder.cut(true, 0).toByteArray();
+  }
+
+  @Benchmark
+  @SuppressWarnings("deprecation")
+  public byte[] concatenatedArrays() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(ESCUtil.ESC);
+    out.write('@');
+    for (int i = 0; i < lines.length; i++) {
+      byte[] bold = i == 0 ? ESCUtil.boldOn() : ESCUtil.boldOff();
+      out.write(bold, 0, bold.length);
+      byte[] text = lines[i].getBytes(gb18030);
+      out.write(text, 0, text.length);
+    }
+    out.write(ESCUtil.GS);
+    out.write('V');
+    out.write(66);
+    out.write(0);
+    return out.toByteArray();
+  }
+}
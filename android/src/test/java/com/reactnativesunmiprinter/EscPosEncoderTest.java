@@ -0,0 +1,95 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+public class EscPosEncoderTest {
+
+  @Test
+  public void encodesCommandsAndGb18030TextInOrder() {
+    byte[] data = new EscPosEncoder(16).initialize().bold(true).text("A中").newline().toByteArray();
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    expected.write(ESCUtil.ESC);
+    expected.write('@');
+    expected.write(EscPosEncoder.BOLD_ON, 0, EscPosEncoder.BOLD_ON.length);
+    byte[] text = "A中".getBytes(Charset.forName("GB18030"));
+    expected.write(text, 0, text.length);
+    expected.write(ESCUtil.LF);
+    assertArrayEquals(expected.toByteArray(), data);
+  }
+
+  @Test
+  public void growsPastInitialCapacity() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      text.append("商品");
+    }
+    EscPosEncoder encoder = new EscPosEncoder(16).text(text);
+    assertEquals(4000, encoder.size());
+  }
+
+  @Test
+  public void resetDropsOversizedBufferAndKeepsSmallOne() {
+    EscPosEncoder encoder = new EscPosEncoder(64);
+    encoder.raw(new byte[EscPosEncoder.MAX_RETAINED_CAPACITY + 1]);
+    encoder.reset();
+    assertEquals(0, encoder.size());
+    assertTrue(encoder.capacity() <= EscPosEncoder.MAX_RETAINED_CAPACITY);
+
+    encoder.raw(new byte[1000]);
+    int capacity = encoder.capacity();
+    encoder.reset();
+    assertEquals(capacity, encoder.capacity());
+  }
+
+  @Test
+  public void resetRestoresDefaultCharset() {
+    EscPosEncoder encoder = new EscPosEncoder(16).charset("UTF-8").reset();
+    assertArrayEquals("中".getBytes(Charset.forName("GB18030")), encoder.text("中").toByteArray());
+  }
+
+  @Test
+  public void code128DataGetsCodeSetBUnlessItSelectsOne() {
+    byte[] header = {ESCUtil.GS, 'h', 80, ESCUtil.GS, 'w', 2, ESCUtil.GS, 'H', 2, ESCUtil.GS, 'k', 73};
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    expected.write(header, 0, header.length);
+    expected.write(5);
+    expected.write(new byte[] {'{', 'B', '1', '2', '3'}, 0, 5);
+    assertArrayEquals(
+      expected.toByteArray(),
+      new EscPosEncoder(16).barcode(EscPosEncoder.BARCODE_CODE128, "123", 80, 2, 2).toByteArray()
+    );
+
+    expected.reset();
+    expected.write(header, 0, header.length);
+    expected.write(6);
+    expected.write(new byte[] {'{', 'C', 12, 34, 56, 78}, 0, 6);
+    String codeSetC = "{C" + (char) 12 + (char) 34 + (char) 56 + (char) 78;
+    assertArrayEquals(
+      expected.toByteArray(),
+      new EscPosEncoder(16).barcode(EscPosEncoder.BARCODE_CODE128, codeSetC, 80, 2, 2).toByteArray()
+    );
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void code128PrefixCountsTowardsTheLengthLimit() {
+    StringBuilder data = new StringBuilder();
+    for (int i = 0; i < 254; i++) {
+      data.append('1');
+    }
+    new EscPosEncoder(16).barcode(EscPosEncoder.BARCODE_CODE128, data.toString(), 80, 2, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownBarcodeSystem() {
+    new EscPosEncoder(16).barcode(10, "123", 80, 2, 0);
+  }
+}
@@ -0,0 +1,275 @@
+package com.reactnativesunmiprinter;
+
+import android.graphics.Bitmap;
+import android.os.RemoteException;
+
+import com.sunmi.peripheral.printer.ICallback;
+import com.sunmi.peripheral.printer.SunmiPrinterService;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process stand-in for {@link SunmiPrinterService}. Every call is recorded and answered
+ * through its callback the way the real service does, after an optional simulated Binder cost
+ * (a fixed per-call latency plus a per-byte copy cost). Individual methods can be made to report
+ * a failure through {@code onRaiseException} or to throw {@link RemoteException}, and answers
+ * can be held back the way the service holds them while the printer buffer is open.
+ */
+final class FakeSunmiPrinterService implements InvocationHandler {
+
+  static final class Call {
+    final String method;
+    final Object[] args;
+
+    Call(String method, Object[] args) {
+      this.method = method;
+      this.args = args;
+    }
+
+    @Override
+    public String toString() {
+      return method;
+    }
+  }
+
+  private static final class Failure {
+    final int code;
+    final String message;
+
+    Failure(int code, String message) {
+      this.code = code;
+      this.message = message;
+    }
+  }
+
+  private final SunmiPrinterService service = (SunmiPrinterService) Proxy.newProxyInstance(
+    SunmiPrinterService.class.getClassLoader(),
+    new Class<?>[] {SunmiPrinterService.class},
+    this
+  );
+
+  private final List<Call> calls = new ArrayList<>();
+  private final ByteArrayOutputStream rawData = new ByteArrayOutputStream();
+  private final Map<String, Failure> failures = new HashMap<>();
+  private final Set<String> throwing = new HashSet<>();
+  private volatile boolean recording = true;
+  private volatile boolean holdingAnswers;
+  private volatile long callLatencyNanos;
+  private volatile long nanosPerByte;
+  private volatile int status = 1;
+  private volatile int paper = 1;
+
+  SunmiPrinterService service() {
+    return service;
+  }
+
+  /** Simulated cost of one Binder transaction. */
+  FakeSunmiPrinterService callLatency(long nanos) {
+    callLatencyNanos = nanos;
+    return this;
+  }
+
+  /** Simulated cost of copying one payload byte (raw data, strings, bitmap pixels) into a Parcel. */
+  FakeSunmiPrinterService nanosPerByte(long nanos) {
+    nanosPerByte = nanos;
+    return this;
+  }
+
+  /** Value returned by {@code updatePrinterState}. */
+  FakeSunmiPrinterService status(int value) {
+    status = value;
+    return this;
+  }
+
+  /** Value returned by {@code getPrinterPaper}: 1 for 58mm, 2 for 80mm. */
+  FakeSunmiPrinterService paper(int value) {
+    paper = value;
+    return this;
+  }
+
+  /** Benchmarks turn recording off so the call log does not grow without bound. */
+  FakeSunmiPrinterService recording(boolean enabled) {
+    recording = enabled;
+    return this;
+  }
+
+  /** Makes {@code method} report {@code code} through {@code onRaiseException}. */
+  synchronized FakeSunmiPrinterService fail(String method, int code, String message) {
+    failures.put(method, new Failure(code, message));
+    return this;
+  }
+
+  /** Makes {@code method} throw {@link RemoteException}, as a dead Binder would. */
+  synchronized FakeSunmiPrinterService throwOn(String method) {
+    throwing.add(method);
+    return this;
+  }
+
+  /** While set, callbacks are never answered, as inside an uncommitted printer buffer. */
+  FakeSunmiPrinterService holdAnswers(boolean hold) {
+    holdingAnswers = hold;
+    return this;
+  }
+
+  synchronized List<Call> calls() {
+    return new ArrayList<>(calls);
+  }
+
+  synchronized int callCount(String method) {
+    int count = 0;
+    for (Call call : calls) {
+      if (call.method.equals(method)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Everything received through {@code sendRAWData}, in order. */
+  synchronized byte[] rawData() {
+    return rawData.toByteArray();
+  }
+
+  synchronized void reset() {
+    calls.clear();
+    rawData.reset();
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    String name = method.getName();
+    if (method.getDeclaringClass() == Object.class) {
+      switch (name) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        default:
+          return "FakeSunmiPrinterService";
+      }
+    }
+    if ("asBinder".equals(name)) {
+      return null;
+    }
+    Failure failure;
+    boolean throwsRemote;
+    synchronized (this) {
+      if (recording) {
+        calls.add(new Call(name, args));
+      }
+      if ("sendRAWData".equals(name)) {
+        byte[] data = (byte[]) args[0];
+        rawData.write(data, 0, data.length);
+      }
+      failure = failures.get(name);
+      throwsRemote = throwing.contains(name);
+    }
+    spin(callLatencyNanos + nanosPerByte * payloadBytes(args));
+    if (throwsRemote) {
+      throw new RemoteException(name + " failed");
+    }
+    ICallback callback = findCallback(args);
+    if (callback != null && !holdingAnswers) {
+      answer(name, callback, failure);
+    }
+    return returnValue(name, method.getReturnType());
+  }
+
+  private static long payloadBytes(Object[] args) {
+    long bytes = 0;
+    if (args == null) {
+      return 0;
+    }
+    for (Object arg : args) {
+      if (arg instanceof byte[]) {
+        bytes += ((byte[]) arg).length;
+      } else if (arg instanceof String) {
+        bytes += ((String) arg).length() * 2L;
+      } else if (arg instanceof Bitmap) {
+        bytes += ((Bitmap) arg).getByteCount();
+      }
+    }
+    return bytes;
+  }
+
+  private static void spin(long nanos) {
+    if (nanos <= 0) {
+      return;
+    }
+    long end = System.nanoTime() + nanos;
+    while (System.nanoTime() < end) {
+      Thread.onSpinWait();
+    }
+  }
+
+  private static ICallback findCallback(Object[] args) {
+    if (args == null) {
+      return null;
+    }
+    for (Object arg : args) {
+      if (arg instanceof ICallback) {
+        return (ICallback) arg;
+      }
+    }
+    return null;
+  }
+
+  private void answer(String name, ICallback callback, Failure failure) throws RemoteException {
+    if (failure != null) {
+      callback.onRaiseException(failure.code, failure.message);
+      return;
+    }
+    switch (name) {
+      case "commitPrint":
+      case "commitPrinterBufferWithCallback":
+      case "exitPrinterBufferWithCallback":
+        callback.onPrintResult(0, "");
+        break;
+      case "getPrintedLength":
+        callback.onReturnString("0");
+        break;
+      default:
+        callback.onRunResult(true);
+        break;
+    }
+  }
+
+  private Object returnValue(String name, Class<?> type) {
+    switch (name) {
+      case "getServiceVersion":
+        return "4.0.0-fake";
+      case "getPrinterSerialNo":
+        return "FAKE0000001";
+      case "getPrinterVersion":
+        return "1.0.0-fake";
+      case "getPrinterModal":
+        return "FakePrinter";
+      case "updatePrinterState":
+        return status;
+      case "getPrinterPaper":
+        return paper;
+      case "getCutPaperTimes":
+        return callCount("cutPaper");
+      case "getOpenDrawerTimes":
+        return callCount("openDrawer");
+      default:
+        break;
+    }
+    if (type == int.class) {
+      return 0;
+    }
+    if (type == boolean.class) {
+      return false;
+    }
+    return null;
+  }
+}
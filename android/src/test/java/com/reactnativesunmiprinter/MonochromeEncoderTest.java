@@ -0,0 +1,94 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class MonochromeEncoderTest {
+
+  private static final int BLACK = 0xFF000000;
+  private static final int WHITE = 0xFFFFFFFF;
+
+  private static byte[] encode(int[] pixels, int width, int height, int dither) {
+    byte[] out = new byte[MonochromeEncoder.rasterSize(width, height)];
+    MonochromeEncoder.encodeRaster(
+      (y, row) -> System.arraycopy(pixels, y * width, row, 0, width),
+      width,
+      height,
+      dither,
+      MonochromeEncoder.DEFAULT_THRESHOLD,
+      out,
+      0
+    );
+    return out;
+  }
+
+  @Test
+  public void packsBlackPixelsMostSignificantBitFirst() {
+    int[] pixels = new int[10];
+    Arrays.fill(pixels, WHITE);
+    pixels[0] = BLACK;
+    pixels[9] = BLACK;
+
+    byte[] out = encode(pixels, 10, 1, MonochromeEncoder.DITHER_THRESHOLD);
+
+    assertArrayEquals(new byte[] {ESCUtil.GS, 'v', '0', 0, 2, 0, 1, 0, (byte) 0x80, 0x40}, out);
+  }
+
+  @Test
+  public void splitsTallImagesIntoBands() {
+    int height = MonochromeEncoder.MAX_BAND_HEIGHT + 44;
+    int[] pixels = new int[8 * height];
+    Arrays.fill(pixels, BLACK);
+
+    byte[] out = encode(pixels, 8, height, MonochromeEncoder.DITHER_THRESHOLD);
+
+    assertEquals(2 * 8 + height, out.length);
+    int second = 8 + MonochromeEncoder.MAX_BAND_HEIGHT;
+    assertEquals(ESCUtil.GS, out[second]);
+    assertEquals(44, out[second + 6]);
+    assertEquals((byte) 0xFF, out[out.length - 1]);
+  }
+
+  @Test
+  public void transparentPixelsPrintWhite() {
+    assertEquals(255, MonochromeEncoder.luminance(0x00000000));
+    assertEquals(0, MonochromeEncoder.luminance(BLACK));
+  }
+
+  @Test
+  public void ditheredMidGrayPrintsAboutHalfTheDots() {
+    int[] pixels = new int[64 * 64];
+    Arrays.fill(pixels, 0xFF808080);
+    for (int dither : new int[] {MonochromeEncoder.DITHER_FLOYD_STEINBERG, MonochromeEncoder.DITHER_ORDERED}) {
+      byte[] out = encode(pixels, 64, 64, dither);
+      int black = 0;
+      for (int i = 8; i < out.length; i++) {
+        black += Integer.bitCount(out[i] & 0xFF);
+      }
+      assertTrue("dither " + dither + " printed " + black + " dots", Math.abs(black - 2048) < 128);
+    }
+  }
+
+  @Test
+  public void clearsReusedOutputBuffer() {
+    int[] pixels = new int[8];
+    Arrays.fill(pixels, WHITE);
+    byte[] out = new byte[MonochromeEncoder.rasterSize(8, 1)];
+    Arrays.fill(out, (byte) 0xFF);
+    MonochromeEncoder.encodeRaster(
+      (y, row) -> System.arraycopy(pixels, 0, row, 0, 8),
+      8,
+      1,
+      MonochromeEncoder.DITHER_THRESHOLD,
+      MonochromeEncoder.DEFAULT_THRESHOLD,
+      out,
+      0
+    );
+    assertEquals(0, out[8]);
+  }
+}
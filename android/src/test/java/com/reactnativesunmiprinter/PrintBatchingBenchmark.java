@@ -0,0 +1,62 @@
+package com.reactnativesunmiprinter;
+
+import android.os.RemoteException;
+
+import com.sunmi.peripheral.printer.SunmiPrinterService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One service call per receipt line versus one ESC/POS payload, against
+ * {@link FakeSunmiPrinterService} with a simulated Binder cost. {@code callLatencyNanos} of 0
+ * measures only the module's own work; 50 µs is in the range of a real Binder round trip.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrintBatchingBenchmark {
+
+  @Param({"0", "50000"})
+  public long callLatencyNanos;
+
+  String[] lines;
+  SunmiPrinterService service;
+  EscPosEncoder encoder;
+
+  @Setup
+  public void setUp() {
+    lines = EscPosBenchmark.receiptLines(EscPosBenchmark.LINES);
+    service = new FakeSunmiPrinterService()
+      .recording(false)
+      .callLatency(callLatencyNanos)
+      .nanosPerByte(1)
+      .service();
+    encoder = new EscPosEncoder(4096);
+  }
+
+  @Benchmark
+  public void unbatched() throws RemoteException {
+    for (String line : lines) {
+      service.printText(line, null);
+    }
+    service.cutPaper(null);
+  }
+
+  @Benchmark
+  public void batched() throws RemoteException {
+    encoder.reset();
+    for (String line : lines) {
+      encoder.text(line);
+    }
+    service.sendRAWData(encoder.cut(true, 0).toByteArray(), null);
+  }
+}
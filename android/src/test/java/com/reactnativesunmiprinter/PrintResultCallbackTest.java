@@ -0,0 +1,77 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+import android.os.RemoteException;
+
+import com.facebook.react.bridge.Promise;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class PrintResultCallbackTest {
+
+  /** Every resolve and reject, as "resolve" or "reject:<code>". */
+  private final List<String> settlements = new ArrayList<>();
+
+  private final Promise promise = (Promise) Proxy.newProxyInstance(
+    Promise.class.getClassLoader(),
+    new Class<?>[] {Promise.class},
+    (proxy, method, args) -> {
+      if (method.getName().equals("resolve")) {
+        settlements.add("resolve");
+      } else if (method.getName().equals("reject")) {
+        settlements.add("reject:" + (args[0] instanceof String ? args[0] : ""));
+      }
+      return null;
+    }
+  );
+
+  private static void idleFor(long millis) {
+    shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+  }
+
+  @Test
+  public void rejectsOnceWhenTheServiceNeverAnswers() {
+    PrintResultCallback.forCommand(promise);
+
+    idleFor(PrintResultCallback.COMMAND_TIMEOUT_MS - 1);
+    assertEquals(List.of(), settlements);
+    idleFor(2);
+    assertEquals(List.of("reject:" + PrintResultCallback.TIMEOUT_CODE), settlements);
+  }
+
+  @Test
+  public void answeredCallbackDoesNotTimeOut() throws Exception {
+    FakeSunmiPrinterService fake = new FakeSunmiPrinterService();
+    fake.service().printText("x", PrintResultCallback.forCommand(promise));
+
+    idleFor(PrintResultCallback.PRINT_TIMEOUT_MS);
+    assertEquals(List.of("resolve"), settlements);
+  }
+
+  @Test
+  public void failedCallIsRejectedOnceAndNotAgainAtTheDeadline() {
+    FakeSunmiPrinterService fake = new FakeSunmiPrinterService().throwOn("printText");
+    PrintResultCallback callback = PrintResultCallback.forCommand(promise);
+    try {
+      fake.service().printText("x", callback);
+      fail("expected RemoteException");
+    } catch (RemoteException e) {
+      callback.fail(e);
+    }
+
+    idleFor(PrintResultCallback.PRINT_TIMEOUT_MS);
+    assertEquals(List.of("reject:" + SunmiPrinterModule.ERROR_CODE), settlements);
+  }
+}
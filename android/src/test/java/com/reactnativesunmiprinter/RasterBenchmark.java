@@ -0,0 +1,53 @@
+package com.reactnativesunmiprinter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raster encoding of an already decoded 384px wide image (a full 58mm line) for each dither mode.
+ * Decoding and scaling themselves are native BitmapFactory code and are not measured on the JVM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RasterBenchmark {
+
+  static final int WIDTH = 384;
+
+  @Param({"0", "1", "2"})
+  public int dither;
+
+  @Param({"200", "1200"})
+  public int height;
+
+  int[] pixels;
+  byte[] out;
+  MonochromeEncoder.RowSource rows;
+
+  @Setup
+  public void setUp() {
+    pixels = new int[WIDTH * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        int gray = (x * 255 / WIDTH + y) & 0xFF;
+        pixels[y * WIDTH + x] = 0xFF000000 | gray << 16 | gray << 8 | gray;
+      }
+    }
+    out = new byte[MonochromeEncoder.rasterSize(WIDTH, height)];
+    rows = (y, row) -> System.arraycopy(pixels, y * WIDTH, row, 0, WIDTH);
+  }
+
+  @Benchmark
+  public byte[] encodeRaster() {
+    MonochromeEncoder.encodeRaster(rows, WIDTH, height, dither, MonochromeEncoder.DEFAULT_THRESHOLD, out, 0);
+    return out;
+  }
+}
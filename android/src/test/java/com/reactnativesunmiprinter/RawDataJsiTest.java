@@ -0,0 +1,89 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class RawDataJsiTest {
+
+  /** Stand-ins for the addresses of two JS runtimes. */
+  private static final long RUNTIME = 1;
+  private static final long OTHER_RUNTIME = 2;
+
+  @Test
+  public void stagedPayloadIsTakenOnce() {
+    byte[] data = {0x1b, 0x40, 0x0a};
+    int handle = RawDataJsi.stage(RUNTIME, data);
+
+    assertArrayEquals(data, RawDataJsi.take(handle));
+    assertNull(RawDataJsi.take(handle));
+  }
+
+  @Test
+  public void handlesAreDistinct() {
+    int first = RawDataJsi.stage(RUNTIME, new byte[1]);
+    int second = RawDataJsi.stage(RUNTIME, new byte[1]);
+
+    assertNotEquals(first, second);
+    RawDataJsi.take(first);
+    RawDataJsi.take(second);
+  }
+
+  @Test
+  public void burstsAreNotEvicted() {
+    RawDataJsi.clear(RUNTIME);
+    int[] handles = new int[100];
+    for (int i = 0; i < handles.length; i++) {
+      handles[i] = RawDataJsi.stage(RUNTIME, new byte[] {(byte) i});
+    }
+
+    for (int i = 0; i < handles.length; i++) {
+      assertArrayEquals(new byte[] {(byte) i}, RawDataJsi.take(handles[i]));
+    }
+  }
+
+  @Test
+  public void stagingFailsOnceTheByteLimitIsReached() {
+    RawDataJsi.clear(RUNTIME);
+    int half = (int) (RawDataJsi.MAX_STAGED_BYTES / 2);
+    int first = RawDataJsi.stage(RUNTIME, new byte[half]);
+    int second = RawDataJsi.stage(RUNTIME, new byte[half]);
+
+    assertEquals(RawDataJsi.STAGE_FULL, RawDataJsi.stage(RUNTIME, new byte[1]));
+    assertNotNull(RawDataJsi.take(first));
+    assertNotEquals(RawDataJsi.STAGE_FULL, RawDataJsi.stage(RUNTIME, new byte[1]));
+    assertNotNull(RawDataJsi.take(second));
+    RawDataJsi.clear(RUNTIME);
+  }
+
+  @Test
+  public void oversizedPayloadIsAcceptedWhenNothingElseIsStaged() {
+    RawDataJsi.clear(RUNTIME);
+    int handle = RawDataJsi.stage(RUNTIME, new byte[(int) RawDataJsi.MAX_STAGED_BYTES + 1]);
+
+    assertNotEquals(RawDataJsi.STAGE_FULL, handle);
+    assertNotNull(RawDataJsi.take(handle));
+  }
+
+  @Test
+  public void clearOnlyDropsTheGivenRuntimesPayloads() {
+    RawDataJsi.clear(RUNTIME);
+    int own = RawDataJsi.stage(RUNTIME, new byte[] {1});
+    int other = RawDataJsi.stage(OTHER_RUNTIME, new byte[] {2});
+
+    RawDataJsi.clear(RUNTIME);
+
+    assertNull(RawDataJsi.take(own));
+    assertArrayEquals(new byte[] {2}, RawDataJsi.take(other));
+  }
+
+  @Test
+  public void installWithoutRuntimeIsUnavailable() {
+    assertFalse(RawDataJsi.install(0));
+  }
+}
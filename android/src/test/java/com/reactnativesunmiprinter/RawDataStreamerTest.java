@@ -0,0 +1,107 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class RawDataStreamerTest {
+
+  private static byte[] payload(int length) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) i;
+    }
+    return data;
+  }
+
+  @Test
+  public void sendsEveryChunkInOrderAndReportsProgress() throws Exception {
+    FakeSunmiPrinterService fake = new FakeSunmiPrinterService();
+    byte[] data = payload(1000);
+    List<Integer> progress = new ArrayList<>();
+
+    RawDataStreamer.stream(
+      fake.service(),
+      RawDataStreamer.bytes(data),
+      512,
+      (sent, total, index, count) -> progress.add(sent)
+    );
+
+    assertEquals(2, fake.callCount("sendRAWData"));
+    assertArrayEquals(data, fake.rawData());
+    assertEquals(List.of(510, 1000), progress);
+  }
+
+  @Test
+  public void base64SourceDecodesPerChunk() throws Exception {
+    FakeSunmiPrinterService fake = new FakeSunmiPrinterService();
+    byte[] data = payload(2000);
+    String encoded = android.util.Base64.encodeToString(data, android.util.Base64.DEFAULT);
+
+    RawDataStreamer.stream(fake.service(), RawDataStreamer.base64(encoded), 600, null);
+
+    assertEquals(4, fake.callCount("sendRAWData"));
+    assertArrayEquals(data, fake.rawData());
+  }
+
+  @Test
+  public void base64SourceAcceptsAMissingPadding() throws Exception {
+    for (int length : new int[] {2000, 2002}) {
+      FakeSunmiPrinterService fake = new FakeSunmiPrinterService();
+      byte[] data = payload(length);
+      String encoded = android.util.Base64.encodeToString(data, android.util.Base64.NO_WRAP | android.util.Base64.NO_PADDING);
+      RawDataStreamer.Source source = RawDataStreamer.base64(encoded);
+
+      RawDataStreamer.stream(fake.service(), source, 600, null);
+
+      assertEquals(length, source.length());
+      assertArrayEquals(data, fake.rawData());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void base64SourceRejectsALoneTrailingCharacter() {
+    RawDataStreamer.base64("QUJD" + "R");
+  }
+
+  @Test
+  public void unacknowledgedStreamDoesNotWaitForAnswers() throws Exception {
+    FakeSunmiPrinterService fake = new FakeSunmiPrinterService().holdAnswers(true);
+    byte[] data = payload(5000);
+    long startedAt = System.nanoTime();
+
+    RawDataStreamer.stream(fake.service(), RawDataStreamer.bytes(data), 1024, null, false);
+
+    assertTrue(System.nanoTime() - startedAt < RawDataStreamer.CHUNK_TIMEOUT_MS * 1_000_000L);
+    assertEquals(5, fake.callCount("sendRAWData"));
+    assertArrayEquals(data, fake.rawData());
+  }
+
+  @Test
+  public void stopsAtTheFirstRejectedChunk() throws Exception {
+    FakeSunmiPrinterService fake = new FakeSunmiPrinterService().fail("sendRAWData", 4, "out of paper");
+    try {
+      RawDataStreamer.stream(fake.service(), RawDataStreamer.bytes(payload(5000)), 1024, null);
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("chunk 1/5"));
+    }
+    assertEquals(1, fake.callCount("sendRAWData"));
+  }
+
+  @Test
+  public void chunkSizeIsClampedToAMultipleOfThree() {
+    assertEquals(510, RawDataStreamer.alignChunkSize(1));
+    assertEquals(RawDataStreamer.DEFAULT_CHUNK_SIZE - RawDataStreamer.DEFAULT_CHUNK_SIZE % 3, RawDataStreamer.alignChunkSize(0));
+    assertEquals(0, RawDataStreamer.alignChunkSize(Integer.MAX_VALUE) % 3);
+  }
+}
@@ -0,0 +1,127 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReceiptTemplateTest {
+
+  private static JavaOnlyMap text(String text) {
+    return JavaOnlyMap.of("type", PrintCommand.PRINTER_TEXT, "text", text);
+  }
+
+  private static List<String> render(JavaOnlyArray ops, JavaOnlyMap data) {
+    List<String> texts = new ArrayList<>();
+    for (PrintCommand command : ReceiptTemplate.compile(ops).render(data)) {
+      texts.add(command.text);
+    }
+    return texts;
+  }
+
+  @Test
+  public void substitutesPlaceholdersAndLeavesMissingKeysEmpty() {
+    List<String> texts = render(
+      JavaOnlyArray.of(text("Hi {{name}}, table {{ table }}{{missing}}!")),
+      JavaOnlyMap.of("name", "Ana", "table", "4")
+    );
+
+    assertEquals(List.of("Hi Ana, table 4!"), texts);
+  }
+
+  @Test
+  public void formatsWholeNumbersWithoutAFractionAndOthersAsDoubles() {
+    List<String> texts = render(
+      JavaOnlyArray.of(text("{{count}}|{{whole}}|{{price}}|{{huge}}|{{paid}}")),
+      JavaOnlyMap.of("count", 7, "whole", 3.0, "price", 2.5, "huge", 1e16, "paid", true)
+    );
+
+    assertEquals(List.of("7|3|2.5|1.0E16|true"), texts);
+  }
+
+  @Test
+  public void repeatShadowsOuterKeysAndFallsBackToThem() {
+    JavaOnlyArray ops = JavaOnlyArray.of(
+      JavaOnlyMap.of("type", ReceiptTemplate.REPEAT, "each", "items", "ops", JavaOnlyArray.of(text("{{name}} x{{qty}} {{currency}}")))
+    );
+    JavaOnlyMap data = JavaOnlyMap.of(
+      "name", "Shop",
+      "currency", "EUR",
+      "items", JavaOnlyArray.of(JavaOnlyMap.of("name", "Tea", "qty", 2), JavaOnlyMap.of("qty", 1), "not a map")
+    );
+
+    assertEquals(List.of("Tea x2 EUR", "Shop x1 EUR", "Shop x EUR"), render(ops, data));
+  }
+
+  @Test
+  public void ifRendersOnlyForTruthyValues() {
+    JavaOnlyArray ops = new JavaOnlyArray();
+    String[] keys = {"yes", "one", "word", "list", "map", "no", "zero", "empty", "none", "missing"};
+    for (String key : keys) {
+      ops.pushMap(JavaOnlyMap.of("type", ReceiptTemplate.IF, "key", key, "ops", JavaOnlyArray.of(text(key))));
+    }
+    JavaOnlyMap data = JavaOnlyMap.of(
+      "yes", true,
+      "one", 1,
+      "word", "x",
+      "list", JavaOnlyArray.of(1),
+      "map", new JavaOnlyMap(),
+      "no", false,
+      "zero", 0,
+      "empty", "",
+      "none", new JavaOnlyArray()
+    );
+
+    assertEquals(List.of("yes", "one", "word", "list", "map"), render(ops, data));
+  }
+
+  @Test
+  public void unclosedPlaceholderIsKeptAsText() {
+    List<String> texts = render(
+      JavaOnlyArray.of(text("Total {{sum"), text("{{a}} and {{")),
+      JavaOnlyMap.of("sum", 1, "a", "A")
+    );
+
+    assertEquals(List.of("Total {{sum", "A and {{"), texts);
+  }
+
+  @Test
+  public void substitutesColumnTextsAndReusesStaticCommands() {
+    JavaOnlyArray ops = JavaOnlyArray.of(
+      text("static"),
+      JavaOnlyMap.of(
+        "type", PrintCommand.PRINT_COLUMNS_TEXT,
+        "texts", JavaOnlyArray.of("{{item}}", "fixed"),
+        "widths", JavaOnlyArray.of(20, 12),
+        "aligns", JavaOnlyArray.of(0, 2)
+      )
+    );
+    ReceiptTemplate template = ReceiptTemplate.compile(ops);
+
+    List<PrintCommand> first = template.render(JavaOnlyMap.of("item", "Tea"));
+    List<PrintCommand> second = template.render(JavaOnlyMap.of("item", "Cake"));
+
+    assertSame(first.get(0), second.get(0));
+    assertArrayEquals(new String[] {"Tea", "fixed"}, first.get(1).texts);
+    assertArrayEquals(new String[] {"Cake", "fixed"}, second.get(1).texts);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsANullOp() {
+    ReceiptTemplate.compile(JavaOnlyArray.of(text("a"), null));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsANullOpInsideARepeat() {
+    ReceiptTemplate.compile(JavaOnlyArray.of(
+      JavaOnlyMap.of("type", ReceiptTemplate.REPEAT, "each", "items", "ops", JavaOnlyArray.of((Object) null))
+    ));
+  }
+}
@@ -0,0 +1,123 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class ScanBatcherTest {
+
+  private final List<String> singles = new ArrayList<>();
+  private final List<List<String>> batches = new ArrayList<>();
+
+  private final ScanBatcher batcher = new ScanBatcher(Looper.getMainLooper(), new ScanBatcher.Listener() {
+    @Override
+    public void onScan(ScanBatcher.Scan scan) {
+      singles.add(scan.value);
+    }
+
+    @Override
+    public void onBatch(List<ScanBatcher.Scan> scans) {
+      List<String> values = new ArrayList<>();
+      for (ScanBatcher.Scan scan : scans) {
+        values.add(scan.value);
+      }
+      batches.add(values);
+    }
+  });
+
+  private static void idleFor(long millis) {
+    shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+  }
+
+  @Test
+  public void deliversEachScanWhenBatchingIsOff() {
+    batcher.offer("A", null);
+    batcher.offer("A", null);
+    batcher.offer("B", null);
+
+    assertEquals(List.of("A", "A", "B"), singles);
+    assertEquals(0, batches.size());
+  }
+
+  @Test
+  public void collectsScansWithinTheWindow() {
+    batcher.configure(true, 100, 50, 0);
+
+    batcher.offer("A", null);
+    idleFor(40);
+    batcher.offer("B", null);
+    idleFor(40);
+    assertEquals(0, batches.size());
+
+    idleFor(20);
+    batcher.offer("C", null);
+    idleFor(100);
+
+    assertEquals(List.of(List.of("A", "B"), List.of("C")), batches);
+    assertEquals(0, singles.size());
+  }
+
+  @Test
+  public void fullBatchIsDeliveredImmediately() {
+    batcher.configure(true, 1000, 3, 0);
+
+    for (String value : new String[] {"A", "B", "C", "D"}) {
+      batcher.offer(value, null);
+    }
+    assertEquals(List.of(List.of("A", "B", "C")), batches);
+
+    idleFor(1000);
+    assertEquals(List.of(List.of("A", "B", "C"), List.of("D")), batches);
+  }
+
+  @Test
+  public void dropsRepeatsWithinTheDedupeWindow() {
+    batcher.configure(false, 0, 1, 500);
+
+    batcher.offer("A", null);
+    idleFor(100);
+    batcher.offer("A", null);
+    batcher.offer("B", null);
+    idleFor(300);
+    batcher.offer("A", null);
+    idleFor(200);
+    batcher.offer("A", null);
+
+    assertEquals(List.of("A", "B", "A"), singles);
+    assertEquals(2, batcher.droppedCount());
+  }
+
+  @Test
+  public void turningBatchingOffDeliversCollectedScans() {
+    batcher.configure(true, 1000, 50, 0);
+    batcher.offer("A", null);
+
+    batcher.configure(false, 1000, 50, 0);
+    idleFor(0);
+    batcher.offer("B", null);
+
+    assertEquals(List.of(List.of("A")), batches);
+    assertEquals(List.of("B"), singles);
+  }
+
+  @Test
+  public void rejectsInvalidOptions() {
+    try {
+      batcher.configure(true, 100, 0, 0);
+      fail("expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // maxBatchSize must be at least 1
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ScanHistoryTest {
+
+  private static ScanBatcher.Scan scan(String value) {
+    return new ScanBatcher.Scan(value, null, 0);
+  }
+
+  private static List<String> values(List<ScanBatcher.Scan> scans) {
+    List<String> result = new ArrayList<>();
+    for (ScanBatcher.Scan scan : scans) {
+      result.add(scan.value);
+    }
+    return result;
+  }
+
+  @Test
+  public void returnsNewestFirst() {
+    ScanHistory history = new ScanHistory(4);
+    history.add(scan("A"));
+    history.add(scan("B"));
+    history.add(scan("C"));
+
+    assertEquals(List.of("C", "B", "A"), values(history.recent(10)));
+    assertEquals(List.of("C", "B"), values(history.recent(2)));
+    assertTrue(history.recent(0).isEmpty());
+  }
+
+  @Test
+  public void overwritesOldestWhenFull() {
+    ScanHistory history = new ScanHistory(3);
+    for (String value : new String[] {"A", "B", "C", "D", "E"}) {
+      history.add(scan(value));
+    }
+
+    assertEquals(List.of("E", "D", "C"), values(history.recent(5)));
+  }
+}
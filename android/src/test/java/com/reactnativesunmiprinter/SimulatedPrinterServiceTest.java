@@ -0,0 +1,182 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.IBinder;
+
+import com.sunmi.peripheral.printer.ICallback;
+import com.sunmi.peripheral.printer.SunmiPrinterService;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SimulatedPrinterServiceTest {
+
+  /** 10 lines of 30 dots: 37.5 mm of paper per receipt. */
+  private static final int LINES_PER_RECEIPT = 10;
+
+  private SimulatedPrinterService simulator;
+
+  @After
+  public void tearDown() {
+    if (simulator != null) {
+      simulator.shutdown();
+    }
+  }
+
+  private SunmiPrinterService start(SimulatedPrinterService.Options options) {
+    simulator = new SimulatedPrinterService(options);
+    return simulator.service();
+  }
+
+  private static SimulatedPrinterService.Options options(double feedSpeed) {
+    SimulatedPrinterService.Options options = new SimulatedPrinterService.Options();
+    options.feedSpeedMmPerSecond = feedSpeed;
+    return options;
+  }
+
+  private static byte[] receipt(int number) {
+    EscPosEncoder encoder = new EscPosEncoder(256);
+    for (int line = 0; line < LINES_PER_RECEIPT; line++) {
+      encoder.text("Receipt " + number + " line " + line).newline();
+    }
+    return encoder.cut(true, 0).toByteArray();
+  }
+
+  private void awaitReceipts(long count, long timeoutMs) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    while (simulator.receiptCount() < count) {
+      assertTrue("printed " + simulator.receiptCount() + " of " + count, System.currentTimeMillis() < deadline);
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  public void throughputFollowsFeedSpeed() throws Exception {
+    SunmiPrinterService service = start(options(400));
+    for (int i = 0; i < 10; i++) {
+      service.sendRAWData(receipt(i), null);
+    }
+    awaitReceipts(10, 5_000);
+
+    // 37.5 mm at 400 mm/s is 93.75 ms per receipt, 640 receipts per minute.
+    double perMinute = simulator.receiptsPerMinute();
+    assertTrue("receipts per minute: " + perMinute, perMinute > 540 && perMinute <= 650);
+    List<String> texts = simulator.receiptTexts();
+    assertEquals(10, texts.size());
+    assertTrue(texts.get(3), texts.get(3).startsWith("Receipt 3 line 0\nReceipt 3 line 1\n"));
+  }
+
+  @Test
+  public void fullBufferBlocksTheCaller() throws Exception {
+    SimulatedPrinterService.Options options = options(400);
+    options.bufferBytes = 400;
+    SunmiPrinterService service = start(options);
+    byte[] data = receipt(0);
+
+    long startedAt = System.nanoTime();
+    for (int i = 0; i < 5; i++) {
+      service.sendRAWData(data, null);
+    }
+    long blockedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+    assertTrue(simulator.bufferHighWaterBytes() <= options.bufferBytes);
+    // Only two receipts fit, so the caller waited for at least two to print.
+    assertTrue("blocked " + blockedMs + " ms", blockedMs >= 150);
+    awaitReceipts(5, 5_000);
+  }
+
+  @Test
+  public void runsOutOfPaperUntilReloaded() throws Exception {
+    SimulatedPrinterService.Options options = options(1_000);
+    options.paperLengthMm = 80;
+    SunmiPrinterService service = start(options);
+    for (int i = 0; i < 3; i++) {
+      service.sendRAWData(receipt(i), null);
+    }
+    long deadline = System.currentTimeMillis() + 2_000;
+    while (simulator.status() != SimulatedPrinterService.STATUS_OUT_OF_PAPER) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.sleep(5);
+    }
+    assertEquals(2, simulator.receiptCount());
+
+    RecordingCallback rejected = new RecordingCallback();
+    service.sendRAWData(receipt(3), rejected);
+    assertEquals(SimulatedPrinterService.STATUS_OUT_OF_PAPER, rejected.raisedCode);
+
+    simulator.setStatus(SimulatedPrinterService.STATUS_NORMAL);
+    service.sendRAWData(receipt(4), null);
+    awaitReceipts(3, 2_000);
+  }
+
+  @Test
+  public void overheatingPausesForTheCooldown() throws Exception {
+    SimulatedPrinterService.Options options = options(1_000);
+    options.overheatAfterMs = 30;
+    options.cooldownMs = 300;
+    SunmiPrinterService service = start(options);
+
+    long startedAt = System.nanoTime();
+    for (int i = 0; i < 4; i++) {
+      service.sendRAWData(receipt(i), null);
+    }
+    awaitReceipts(4, 5_000);
+    long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+    // 4 x 37.5 ms of printing plus at least one 300 ms cooldown.
+    assertTrue("elapsed " + elapsedMs + " ms", elapsedMs >= 450);
+    assertEquals(SimulatedPrinterService.STATUS_NORMAL, simulator.status());
+  }
+
+  @Test
+  public void bufferedTransactionReportsAfterPrinting() throws Exception {
+    SunmiPrinterService service = start(options(1_000));
+    service.enterPrinterBuffer(true);
+    service.printText("first\n", null);
+    service.printText("second\n", null);
+    service.cutPaper(null);
+    assertEquals(0, simulator.receiptCount());
+
+    RecordingCallback callback = new RecordingCallback();
+    service.exitPrinterBufferWithCallback(true, callback);
+
+    assertTrue(callback.printed.await(2, TimeUnit.SECONDS));
+    assertEquals(0, callback.printCode.get());
+    assertEquals("first\nsecond\n", simulator.receiptTexts().get(0));
+  }
+
+  private static final class RecordingCallback implements ICallback {
+    final CountDownLatch printed = new CountDownLatch(1);
+    final AtomicInteger printCode = new AtomicInteger(-1);
+    volatile int raisedCode;
+
+    @Override
+    public void onRunResult(boolean isSuccess) {}
+
+    @Override
+    public void onReturnString(String result) {}
+
+    @Override
+    public void onRaiseException(int code, String msg) {
+      raisedCode = code;
+    }
+
+    @Override
+    public void onPrintResult(int code, String msg) {
+      printCode.set(code);
+      printed.countDown();
+    }
+
+    @Override
+    public IBinder asBinder() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Looper;
+
+import com.sunmi.peripheral.printer.InnerPrinterCallback;
+import com.sunmi.peripheral.printer.SunmiPrinterService;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SunmiConnectionTest {
+
+  private final Application app = RuntimeEnvironment.getApplication();
+  private final SunmiConnection connection = SunmiConnection.get();
+
+  /** Counts binds; the test delivers the connection itself. */
+  private static final class FakeBinder implements SunmiConnection.ServiceBinder {
+    int binds;
+    int unbinds;
+    boolean available = true;
+
+    @Override
+    public boolean bind(Context context, InnerPrinterCallback callback) {
+      binds++;
+      return available;
+    }
+
+    @Override
+    public void unbind(Context context, InnerPrinterCallback callback) {
+      unbinds++;
+    }
+  }
+
+  /** Records what a module would be told, in order. */
+  private static final class RecordingListener implements SunmiConnection.PrinterListener {
+    final List<String> events = new ArrayList<>();
+
+    @Override
+    public void onServiceConnected(SunmiPrinterService service) {
+      events.add("connected");
+    }
+
+    @Override
+    public void onServiceDisconnected() {
+      events.add("disconnected");
+    }
+
+    @Override
+    public void onServiceUnavailable(String reason) {
+      events.add("unavailable");
+    }
+  }
+
+  private final FakeBinder binder = new FakeBinder();
+  private final SunmiConnection printerConnection = new SunmiConnection(binder);
+  private final SunmiPrinterService service = new FakeSunmiPrinterService().service();
+
+  private static void idleFor(long millis) {
+    shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+  }
+
+  private void broadcast(String code, byte[] raw) {
+    app.sendBroadcast(
+      new Intent(SunmiConnection.ACTION_DATA_CODE_RECEIVED).putExtra("data", code).putExtra("source_byte", raw)
+    );
+    shadowOf(Looper.getMainLooper()).idle();
+  }
+
+  @Test
+  public void oneReceiverFansOutToEveryListener() {
+    List<String> first = new ArrayList<>();
+    List<byte[]> second = new ArrayList<>();
+    SunmiConnection.ScanListener a = (code, raw) -> first.add(code);
+    SunmiConnection.ScanListener b = (code, raw) -> second.add(raw);
+
+    connection.acquireScanner(app, a);
+    connection.acquireScanner(app, b);
+    try {
+      assertEquals(1, shadowOf(app).getRegisteredReceivers().size());
+
+      broadcast("123", new byte[] {1, 2, 3});
+
+      assertEquals(List.of("123"), first);
+      assertEquals(1, second.size());
+      assertArrayEquals(new byte[] {1, 2, 3}, second.get(0));
+    } finally {
+      connection.releaseScanner(a);
+      connection.releaseScanner(b);
+    }
+  }
+
+  @Test
+  public void receiverIsUnregisteredWithTheLastListener() {
+    List<String> received = new ArrayList<>();
+    SunmiConnection.ScanListener a = (code, raw) -> received.add("a:" + code);
+    SunmiConnection.ScanListener b = (code, raw) -> received.add("b:" + code);
+
+    connection.acquireScanner(app, a);
+    connection.acquireScanner(app, b);
+    connection.acquireScanner(app, a);
+    connection.releaseScanner(a);
+    assertEquals(1, shadowOf(app).getRegisteredReceivers().size());
+
+    broadcast("X", null);
+    assertEquals(List.of("b:X"), received);
+
+    connection.releaseScanner(b);
+    connection.releaseScanner(b);
+    assertEquals(0, shadowOf(app).getRegisteredReceivers().size());
+  }
+
+  @Test
+  public void printerIsBoundOnceAndUnboundWithTheLastListener() {
+    RecordingListener a = new RecordingListener();
+    RecordingListener b = new RecordingListener();
+
+    printerConnection.acquirePrinter(app, a);
+    printerConnection.acquirePrinter(app, b);
+    printerConnection.acquirePrinter(app, a);
+    assertEquals(1, binder.binds);
+
+    printerConnection.onServiceConnected(service);
+    assertEquals(List.of("connected"), a.events);
+    assertEquals(List.of("connected"), b.events);
+
+    printerConnection.releasePrinter(a);
+    assertEquals(0, binder.unbinds);
+    printerConnection.releasePrinter(b);
+    printerConnection.releasePrinter(b);
+    assertEquals(1, binder.unbinds);
+  }
+
+  @Test
+  public void listenerJoiningLaterIsToldTheServiceIsUp() {
+    RecordingListener first = new RecordingListener();
+    printerConnection.acquirePrinter(app, first);
+    printerConnection.onServiceConnected(service);
+
+    RecordingListener late = new RecordingListener();
+    printerConnection.acquirePrinter(app, late);
+
+    assertEquals(List.of("connected"), late.events);
+    assertEquals(1, binder.binds);
+    printerConnection.releasePrinter(first);
+    printerConnection.releasePrinter(late);
+  }
+
+  @Test
+  public void slowConnectIsNotCutShortByTheRebindBackoff() {
+    RecordingListener listener = new RecordingListener();
+    printerConnection.acquirePrinter(app, listener);
+    printerConnection.onServiceConnected(service);
+    printerConnection.onServiceDisconnected();
+
+    idleFor(SunmiConnection.MIN_REBIND_DELAY_MS);
+    assertEquals(2, binder.binds);
+
+    idleFor(SunmiConnection.CONNECT_TIMEOUT_MS - 1);
+    assertEquals(2, binder.binds);
+    printerConnection.onServiceConnected(service);
+
+    idleFor(SunmiConnection.CONNECT_TIMEOUT_MS);
+    assertEquals(2, binder.binds);
+    assertEquals(List.of("connected", "disconnected", "connected"), listener.events);
+    printerConnection.releasePrinter(listener);
+  }
+
+  @Test
+  public void bindThatNeverConnectsIsRetriedAfterTheTimeout() {
+    RecordingListener listener = new RecordingListener();
+    printerConnection.acquirePrinter(app, listener);
+
+    idleFor(SunmiConnection.CONNECT_TIMEOUT_MS);
+
+    assertEquals(2, binder.binds);
+    assertEquals(1, binder.unbinds);
+    printerConnection.releasePrinter(listener);
+  }
+
+  @Test
+  public void connectingClearsAnEarlierUnavailableService() {
+    RecordingListener listener = new RecordingListener();
+    printerConnection.acquirePrinter(app, listener);
+    printerConnection.onServiceConnected(service);
+    printerConnection.onServiceDisconnected();
+    binder.available = false;
+    idleFor(SunmiConnection.MIN_REBIND_DELAY_MS);
+    assertEquals(List.of("connected", "disconnected", "unavailable"), listener.events);
+
+    // The system still delivers the service later, then loses it again
+    printerConnection.onServiceConnected(service);
+    printerConnection.onServiceDisconnected();
+    RecordingListener late = new RecordingListener();
+    printerConnection.acquirePrinter(app, late);
+
+    assertEquals(List.of(), late.events);
+    printerConnection.releasePrinter(listener);
+    printerConnection.releasePrinter(late);
+  }
+}
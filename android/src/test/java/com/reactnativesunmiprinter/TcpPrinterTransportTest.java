@@ -0,0 +1,407 @@
+package com.reactnativesunmiprinter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(RobolectricTestRunner.class)
+public class TcpPrinterTransportTest {
+
+  private static final long TIMEOUT_MS = 5_000;
+
+  /** Stands in for a network printer: accepts connections and records what each one received. */
+  private static final class FakeNetworkPrinter {
+    final ServerSocket server;
+    final List<Connection> connections = new ArrayList<>();
+
+    static final class Connection {
+      final Socket socket;
+      final ByteArrayOutputStream received = new ByteArrayOutputStream();
+      volatile boolean closedByClient;
+
+      Connection(Socket socket) {
+        this.socket = socket;
+      }
+
+      synchronized byte[] received() {
+        return received.toByteArray();
+      }
+    }
+
+    /** While set, connections are accepted but not read, so the client's writes back up. */
+    volatile CountDownLatch readGate = new CountDownLatch(0);
+    /** When set, the first connection is reset once it has received this many bytes. */
+    volatile int resetFirstConnectionAfter = -1;
+
+    FakeNetworkPrinter() throws IOException {
+      server = new ServerSocket(0);
+      Thread acceptor = new Thread(this::accept, "fake-printer");
+      acceptor.setDaemon(true);
+      acceptor.start();
+    }
+
+    int port() {
+      return server.getLocalPort();
+    }
+
+    private void accept() {
+      try {
+        while (true) {
+          Connection connection = new Connection(server.accept());
+          synchronized (this) {
+            connections.add(connection);
+            notifyAll();
+          }
+          Thread reader = new Thread(() -> read(connection));
+          reader.setDaemon(true);
+          reader.start();
+        }
+      } catch (IOException ignored) {
+        // Server closed
+      }
+    }
+
+    private void read(Connection connection) {
+      try {
+        readGate.await();
+        InputStream in = connection.socket.getInputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+          int total;
+          synchronized (connection) {
+            connection.received.write(buffer, 0, read);
+            total = connection.received.size();
+          }
+          int resetAfter = resetFirstConnectionAfter;
+          if (resetAfter >= 0 && total >= resetAfter && connection == awaitConnection(0)) {
+            connection.socket.setSoLinger(true, 0);
+            connection.socket.close();
+            break;
+          }
+          synchronized (this) {
+            notifyAll();
+          }
+        }
+        connection.closedByClient = true;
+      } catch (IOException | InterruptedException ignored) {
+        // Closed by the test
+      }
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+
+    synchronized Connection awaitConnection(int index) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+      while (connections.size() <= index && System.currentTimeMillis() < deadline) {
+        wait(50);
+      }
+      assertTrue("connection " + index + " was never opened", connections.size() > index);
+      return connections.get(index);
+    }
+
+    synchronized byte[] awaitBytes(int index, int length) throws InterruptedException {
+      Connection connection = awaitConnection(index);
+      long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+      while (connection.received().length < length && System.currentTimeMillis() < deadline) {
+        wait(50);
+      }
+      return connection.received();
+    }
+
+    synchronized void awaitClosedByClient(int index) throws InterruptedException {
+      Connection connection = awaitConnection(index);
+      long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+      while (!connection.closedByClient && System.currentTimeMillis() < deadline) {
+        wait(50);
+      }
+      assertTrue("connection " + index + " was not closed", connection.closedByClient);
+    }
+
+    synchronized int connectionCount() {
+      return connections.size();
+    }
+
+    void close() throws IOException {
+      server.close();
+      synchronized (this) {
+        for (Connection connection : connections) {
+          connection.socket.close();
+        }
+      }
+    }
+  }
+
+  /** Collects job completions. */
+  private static final class Completions implements TcpPrinterTransport.Callback {
+    final CountDownLatch done;
+    final AtomicReference<Exception> error = new AtomicReference<>();
+
+    Completions(int jobs) {
+      done = new CountDownLatch(jobs);
+    }
+
+    @Override
+    public void onComplete(@Nullable Exception failure) {
+      if (failure != null) {
+        error.compareAndSet(null, failure);
+      }
+      done.countDown();
+    }
+
+    void await() throws InterruptedException {
+      assertTrue("jobs did not complete", done.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  private FakeNetworkPrinter printer;
+  private TcpPrinterTransport transport;
+
+  @Before
+  public void setUp() throws IOException {
+    printer = new FakeNetworkPrinter();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if (transport != null) {
+      transport.close();
+    }
+    printer.close();
+  }
+
+  private TcpPrinterTransport open(int idleTimeoutMs) {
+    TcpPrinterTransport.Options options = new TcpPrinterTransport.Options("127.0.0.1");
+    options.port = printer.port();
+    options.idleTimeoutMs = idleTimeoutMs;
+    transport = new TcpPrinterTransport("test", options, new PrinterMetrics());
+    return transport;
+  }
+
+  private static byte[] job(int index, int length) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) (index + i);
+    }
+    return data;
+  }
+
+  @Test
+  public void pipelinesQueuedJobsInOrderOverOneConnection() throws Exception {
+    open(60_000);
+    printer.readGate = new CountDownLatch(1);
+    // Big enough to fill the socket buffers, so the worker is still writing it while the rest queue
+    byte[] first = job(0, 8 * 1024 * 1024);
+    List<byte[]> rest = new ArrayList<>();
+    Completions completions = new Completions(21);
+
+    assertTrue(transport.submit("sendRAWData", first, completions));
+    printer.awaitConnection(0);
+    for (int i = 1; i <= 20; i++) {
+      byte[] data = job(i, 100);
+      rest.add(data);
+      assertTrue(transport.submit("sendRAWData", data, completions));
+    }
+    printer.readGate.countDown();
+    completions.await();
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    expected.write(first);
+    for (byte[] data : rest) {
+      expected.write(data);
+    }
+    assertNull(completions.error.get());
+    assertArrayEquals(expected.toByteArray(), printer.awaitBytes(0, expected.size()));
+    assertEquals(1, printer.connectionCount());
+    assertTrue("writes: " + transport.writes(), transport.writes() <= 2);
+  }
+
+  @Test
+  public void keepsTheConnectionOpenBetweenJobs() throws Exception {
+    open(60_000);
+    Completions firstJob = new Completions(1);
+    transport.submit("sendRAWData", new byte[] {1, 2}, firstJob);
+    firstJob.await();
+    Completions secondJob = new Completions(1);
+    transport.submit("sendRAWData", new byte[] {3}, secondJob);
+    secondJob.await();
+
+    assertArrayEquals(new byte[] {1, 2, 3}, printer.awaitBytes(0, 3));
+    assertEquals(1, transport.connectionsOpened());
+    assertEquals(1, printer.connectionCount());
+  }
+
+  @Test
+  public void reconnectsWhenThePrinterClosedTheIdleConnection() throws Exception {
+    open(60_000);
+    Completions firstJob = new Completions(1);
+    transport.submit("sendRAWData", new byte[] {1}, firstJob);
+    firstJob.await();
+    printer.awaitBytes(0, 1);
+    printer.awaitConnection(0).socket.close();
+    Thread.sleep(50);
+
+    Completions secondJob = new Completions(1);
+    transport.submit("sendRAWData", new byte[] {2}, secondJob);
+    secondJob.await();
+
+    assertNull(secondJob.error.get());
+    assertArrayEquals(new byte[] {2}, printer.awaitBytes(1, 1));
+    assertEquals(2, transport.connectionsOpened());
+    assertEquals(1, transport.reconnects());
+  }
+
+  @Test
+  public void doesNotResendJobsThatWereBeingWrittenWhenTheConnectionFailed() throws Exception {
+    open(60_000);
+    Completions firstJob = new Completions(1);
+    transport.submit("sendRAWData", new byte[] {1}, firstJob);
+    firstJob.await();
+    printer.awaitBytes(0, 1);
+    printer.resetFirstConnectionAfter = 64 * 1024;
+
+    Completions big = new Completions(1);
+    Completions small = new Completions(1);
+    transport.submit("sendRAWData", job(0, 8 * 1024 * 1024), big);
+    transport.submit("sendRAWData", new byte[] {7, 7, 7}, small);
+    big.await();
+    small.await();
+
+    assertNotNull(big.error.get());
+    assertNull(small.error.get());
+    assertArrayEquals(new byte[] {7, 7, 7}, printer.awaitBytes(1, 3));
+  }
+
+  @Test
+  public void failsAWriteThePrinterStopsReading() throws Exception {
+    TcpPrinterTransport.Options options = new TcpPrinterTransport.Options("127.0.0.1");
+    options.port = printer.port();
+    options.writeTimeoutMs = 300;
+    transport = new TcpPrinterTransport("stuck", options, null);
+    printer.readGate = new CountDownLatch(1);
+
+    Completions completions = new Completions(1);
+    transport.submit("sendRAWData", job(0, 8 * 1024 * 1024), completions);
+    completions.await();
+
+    assertTrue(String.valueOf(completions.error.get()), completions.error.get() instanceof SocketTimeoutException);
+    assertEquals(1, transport.failures());
+    printer.readGate.countDown();
+  }
+
+  @Test
+  public void encodesJobsOffTheCallingThreadWithOneEncoder() throws Exception {
+    open(60_000);
+    List<Thread> threads = new ArrayList<>();
+    List<EscPosEncoder> encoders = new ArrayList<>();
+    PrinterTransport.Encoding encoding = out -> {
+      synchronized (threads) {
+        threads.add(Thread.currentThread());
+        encoders.add(out);
+      }
+      return out.reset().text("ok").toByteArray();
+    };
+    Completions completions = new Completions(2);
+
+    assertTrue(transport.submit("printEscPos", encoding, completions));
+    assertTrue(transport.submit("printEscPos", encoding, completions));
+    completions.await();
+
+    assertNull(completions.error.get());
+    assertArrayEquals("okok".getBytes("US-ASCII"), printer.awaitBytes(0, 4));
+    synchronized (threads) {
+      assertNotEquals(Thread.currentThread(), threads.get(0));
+      assertSame(encoders.get(0), encoders.get(1));
+    }
+  }
+
+  @Test
+  public void failsAJobWhoseEncodingThrows() throws Exception {
+    open(60_000);
+    Completions failed = new Completions(1);
+    transport.submit("printEscPos", out -> {
+      throw new IllegalArgumentException("bad op");
+    }, failed);
+    failed.await();
+    Completions next = new Completions(1);
+    transport.submit("printEscPos", out -> new byte[] {1}, next);
+    next.await();
+
+    assertTrue(String.valueOf(failed.error.get()), failed.error.get() instanceof IllegalArgumentException);
+    assertNull(next.error.get());
+    assertArrayEquals(new byte[] {1}, printer.awaitBytes(0, 1));
+  }
+
+  @Test
+  public void closesTheConnectionAfterTheIdleTimeout() throws Exception {
+    open(100);
+    Completions completions = new Completions(1);
+    transport.submit("sendRAWData", new byte[] {1}, completions);
+    completions.await();
+
+    printer.awaitClosedByClient(0);
+  }
+
+  @Test
+  public void failsJobsWhenThePrinterIsUnreachable() throws Exception {
+    // A bound socket that is not listening holds the port, so connecting to it is refused
+    try (Socket unreachable = new Socket()) {
+      unreachable.bind(null);
+      TcpPrinterTransport.Options options = new TcpPrinterTransport.Options("127.0.0.1");
+      options.port = unreachable.getLocalPort();
+      options.connectTimeoutMs = 500;
+      transport = new TcpPrinterTransport("offline", options, null);
+
+      Completions completions = new Completions(1);
+      transport.submit("sendRAWData", new byte[] {1}, completions);
+      completions.await();
+
+      assertNotNull(completions.error.get());
+      assertEquals(1, transport.failures());
+    }
+  }
+
+  @Test
+  public void rejectsJobsAfterClose() throws Exception {
+    open(60_000);
+    transport.close();
+
+    Completions completions = new Completions(1);
+    transport.submit("sendRAWData", new byte[] {1}, completions);
+    completions.await();
+
+    assertNotNull(completions.error.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsAnInvalidPort() {
+    TcpPrinterTransport.Options options = new TcpPrinterTransport.Options("127.0.0.1");
+    options.port = 70_000;
+    new TcpPrinterTransport("bad", options, null);
+  }
+}
@@ -64,8 +64,8 @@ export default function App() {
         style={{ ...styles.button, marginTop: 10 }}
         onPress={() => {
           SunmiScan.scan()
-            .then(() => {
-              console.log('Scan triggered');
+            .then((results) => {
+              console.log('Scan results', results);
             })
             .catch((error: unknown) => {
               console.log('error---->', error);
@@ -2,68 +2,133 @@ import type { TurboModule } from 'react-native';
 import { TurboModuleRegistry } from 'react-native';
 
 export interface Spec extends TurboModule {
-  printerInit(): void;
-  printerSelfChecking(): void;
+  printerInit(): Promise<void>;
+  printerSelfChecking(): Promise<void>;
+  getPrinterInfo(): Promise<Object>;
   getPrinterSerialNo(): Promise<string>;
   getPrinterVersion(): Promise<string>;
   getServiceVersion(): Promise<string>;
   getPrinterModal(): Promise<string>;
   getPrinterPaper(): Promise<string>;
-  getPrintedLength(): void;
+  getPrintedLength(): Promise<string>;
   updatePrinterState(): Promise<number>;
+  startStatusMonitor(): Promise<void>;
+  stopStatusMonitor(): Promise<void>;
   hasPrinter(): Promise<boolean>;
-  sendRAWData(data: string): void;
-  setPrinterStyle(key: number, value: number): void;
-  setAlignment(alignment: number): void;
-  setFontName(typeface: string): void;
-  setFontSize(fontSize: number): void;
-  setFontWeight(isWeight: boolean): void;
-  printerText(text: string): void;
-  printTextWithFont(text: string, typeface: string, fontSize: number): void;
-  printOriginalText(text: string): void;
+  whenReady(timeoutMs: number): Promise<void>;
+  getPrintQueueStats(): Promise<Object>;
+  getImageStats(): Promise<Object>;
+  getPrinterMetrics(): Promise<Object>;
+  resetPrinterMetrics(): Promise<void>;
+  useSimulatedPrinter(options: Object): Promise<void>;
+  getSimulatedPrinterReport(clear: boolean): Promise<Object>;
+  setSimulatedPrinterStatus(status: number): Promise<void>;
+  sendRAWData(data: string): Promise<void>;
+  sendRAWDataChunked(
+    data: string,
+    chunkSize: number,
+    jobId: string
+  ): Promise<void>;
+  installRawDataBinding(): boolean;
+  sendRAWDataStaged(handle: number): Promise<void>;
+  setPrinterStyle(key: number, value: number): Promise<void>;
+  setAlignment(alignment: number): Promise<void>;
+  setFontName(typeface: string): Promise<void>;
+  setFontSize(fontSize: number): Promise<void>;
+  setFontWeight(isWeight: boolean): Promise<void>;
+  printerText(text: string): Promise<void>;
+  printTextWithFont(
+    text: string,
+    typeface: string,
+    fontSize: number
+  ): Promise<void>;
+  printOriginalText(text: string): Promise<void>;
   printColumnsText(
     texts: ReadonlyArray<string>,
     widths: ReadonlyArray<number>,
     aligns: ReadonlyArray<number>
-  ): void;
+  ): Promise<void>;
   printColumnsString(
     texts: ReadonlyArray<string>,
     widths: ReadonlyArray<number>,
     aligns: ReadonlyArray<number>
-  ): void;
-  printBitmap(encodedString: string, pixelWidth: number): void;
+  ): Promise<void>;
+  printTable(
+    rows: ReadonlyArray<ReadonlyArray<string>>,
+    columnSpec: Object
+  ): Promise<void>;
+  printBitmap(encodedString: string, pixelWidth: number): Promise<void>;
   printBitmapCustom(
     encodedString: string,
     pixelWidth: number,
     type: number
-  ): void;
+  ): Promise<void>;
   printBitmapBase64Custom(
     encodedString: string,
     pixelWidth: number,
     type: number
-  ): void;
+  ): Promise<void>;
+  printEscPos(ops: ReadonlyArray<Record<string, unknown>>): Promise<void>;
+  addNetworkPrinter(id: string, options: Object): Promise<void>;
+  removeNetworkPrinter(id: string): Promise<boolean>;
+  sendRAWDataTo(printerId: string, data: string): Promise<void>;
+  printEscPosTo(
+    printerId: string,
+    ops: ReadonlyArray<Record<string, unknown>>
+  ): Promise<void>;
+  printBitmapUri(uri: string, pixelWidth: number): Promise<void>;
+  printBitmapUriCustom(
+    uri: string,
+    pixelWidth: number,
+    type: number
+  ): Promise<void>;
+  printBitmapRaster(
+    encodedString: string,
+    pixelWidth: number,
+    dither: number,
+    threshold: number
+  ): Promise<void>;
+  preloadImage(
+    encodedString: string,
+    pixelWidth: number,
+    type: number
+  ): Promise<string>;
+  evictImage(key: string): Promise<boolean>;
   printBarCode(
     data: string,
     symbology: number,
     height: number,
     width: number,
     textPosition: number
-  ): void;
-  printQRCode(data: string, modulesize: number, errorlevel: number): void;
+  ): Promise<void>;
+  printQRCode(
+    data: string,
+    modulesize: number,
+    errorlevel: number
+  ): Promise<void>;
   print2DCode(
     data: string,
     symbology: number,
     modulesize: number,
     errorlevel: number
-  ): void;
-  commitPrint(transactions: ReadonlyArray<Record<string, unknown>>): void;
-  enterPrinterBuffer(clear: boolean): void;
-  exitPrinterBuffer(commit: boolean): void;
-  commitPrinterBuffer(): void;
-  commitPrinterBufferWithCallbacka(): void;
-  lineWrap(lines: number): void;
-  cutPaper(): void;
-  openDrawer(): void;
+  ): Promise<void>;
+  printDocument(ops: ReadonlyArray<Record<string, unknown>>): Promise<string>;
+  registerTemplate(
+    id: string,
+    ops: ReadonlyArray<Record<string, unknown>>
+  ): Promise<void>;
+  unregisterTemplate(id: string): Promise<boolean>;
+  printTemplate(id: string, data: Object): Promise<string>;
+  commitPrint(
+    transactions: ReadonlyArray<Record<string, unknown>>
+  ): Promise<string>;
+  enterPrinterBuffer(clear: boolean): Promise<void>;
+  exitPrinterBuffer(commit: boolean): Promise<void>;
+  commitPrinterBuffer(): Promise<void>;
+  commitPrinterBufferWithCallbacka(): Promise<string>;
+  lineWrap(lines: number): Promise<void>;
+  cutPaper(): Promise<void>;
+  openDrawer(): Promise<void>;
   getDrawerStatus(): Promise<number>;
   getCutPaperTimes(): Promise<number>;
 }
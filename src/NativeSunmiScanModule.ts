@@ -2,7 +2,10 @@ import type { TurboModule } from 'react-native';
 import { TurboModuleRegistry } from 'react-native';
 
 export interface Spec extends TurboModule {
-  scan(): Promise<void>;
+  scan(): Promise<Object[]>;
+  setScanBatching(options: Object): Promise<void>;
+  setRawScanBytes(enabled: boolean): Promise<void>;
+  getRecentScans(count: number): Promise<Object[]>;
 }
 
 export default TurboModuleRegistry.getEnforcing<Spec>('SunmiScanModule');
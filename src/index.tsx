@@ -70,6 +70,21 @@ const createUnsupportedScanModule = (): SunmiScanType => ({
       '[SunmiPrinter] scan is only available on Android devices.'
     );
   },
+  async setScanBatching() {
+    throw new Error(
+      '[SunmiPrinter] setScanBatching is only available on Android devices.'
+    );
+  },
+  async setRawScanBytes() {
+    throw new Error(
+      '[SunmiPrinter] setRawScanBytes is only available on Android devices.'
+    );
+  },
+  async getRecentScans() {
+    throw new Error(
+      '[SunmiPrinter] getRecentScans is only available on Android devices.'
+    );
+  },
 });
 
 const effectiveSunmiPrinterModule =
@@ -126,22 +141,434 @@ export enum PrinterStyleValue {
   DISABLE = 2,
 }
 
+export enum DitherMode {
+  // 固定阈值
+  THRESHOLD = 0,
+  // Floyd–Steinberg 误差扩散
+  FLOYD_STEINBERG = 1,
+  // 有序抖动（Bayer 8x8）
+  ORDERED = 2,
+}
+
 export enum AlignValue {
   LEFT = 0,
   CENTER = 1,
   RIGHT = 2,
 }
 
+/**
+ * printDocument 的单条指令，type 与同名方法对应，其余字段与该方法的参数同名
+ */
+export type PrintDocumentOp =
+  | { type: 'printerInit' }
+  | { type: 'printerText'; text: string }
+  | {
+      type: 'printTextWithFont';
+      text: string;
+      typeface?: string;
+      fontSize: number;
+    }
+  | { type: 'printOriginalText'; text: string }
+  | { type: 'setAlignment'; alignment: AlignValue }
+  | { type: 'setFontName'; typeface: string }
+  | { type: 'setFontSize'; fontSize: number }
+  | { type: 'setFontWeight'; isWeight: boolean }
+  | {
+      type: 'setPrinterStyle';
+      key: PrinterStyleKey;
+      value: PrinterStyleValue | number;
+    }
+  | {
+      type: 'printColumnsText' | 'printColumnsString';
+      texts: string[];
+      widths: number[];
+      aligns: number[];
+    }
+  | {
+      type: 'printBarCode';
+      data: string;
+      symbology: number;
+      height: number;
+      width: number;
+      textPosition: number;
+    }
+  | {
+      type: 'printQRCode';
+      data: string;
+      modulesize: number;
+      errorlevel: number;
+    }
+  | {
+      type: 'print2DCode';
+      data: string;
+      symbology: number;
+      modulesize: number;
+      errorlevel: number;
+    }
+  | { type: 'printBitmap'; encodedString: string; pixelWidth: number }
+  | {
+      type: 'printBitmapCustom';
+      encodedString: string;
+      pixelWidth: number;
+      imageType: number;
+    }
+  | {
+      type: 'printBitmapUri';
+      uri: string;
+      pixelWidth: number;
+      imageType?: number;
+    }
+  | {
+      type: 'printBitmapRaster';
+      encodedString: string;
+      pixelWidth: number;
+      dither: DitherMode;
+      threshold?: number;
+    }
+  | { type: 'sendRAWData'; data: string }
+  | { type: 'lineWrap'; lines: number }
+  | { type: 'cutPaper' }
+  | { type: 'openDrawer' };
+
+/**
+ * 模板指令，字符串字段可包含 {{name}} 占位符
+ */
+export type TemplateOp =
+  | PrintDocumentOp
+  | { type: 'repeat'; each: string; ops: ReadonlyArray<TemplateOp> }
+  | { type: 'if'; key: string; ops: ReadonlyArray<TemplateOp> };
+
+/**
+ * printEscPos 的单条 ESC/POS 指令
+ */
+export type EscPosOp =
+  | { type: 'initialize' }
+  | { type: 'text'; text: string }
+  | { type: 'newline' }
+  | { type: 'feed'; lines: number }
+  | { type: 'bold' | 'inverse' | 'upsideDown'; on: boolean }
+  | { type: 'underline'; thickness: 0 | 1 | 2 }
+  | { type: 'textSize'; width: number; height: number }
+  | { type: 'align'; alignment: AlignValue }
+  | { type: 'lineSpacing'; dots: number }
+  | { type: 'defaultLineSpacing' }
+  | { type: 'codePage'; page: number }
+  | { type: 'charset'; name: string }
+  | {
+      type: 'image';
+      encodedString: string;
+      pixelWidth: number;
+      dither?: DitherMode;
+      threshold?: number;
+    }
+  | {
+      type: 'imageUri';
+      uri: string;
+      pixelWidth: number;
+      dither?: DitherMode;
+      threshold?: number;
+    }
+  | {
+      type: 'barcode';
+      data: string;
+      /**
+       * GS k 条码类型 65–73（默认 73 即 CODE128），与 printBarCode 的 0–8 不同。
+       * CODE128 数据不以 {A / {B / {C 开头时按 {B 发送
+       */
+      system?: number;
+      height?: number;
+      width?: number;
+      textPosition?: number;
+    }
+  | {
+      type: 'qrCode';
+      data: string;
+      moduleSize?: number;
+      errorLevel?: number;
+    }
+  | { type: 'cut'; partial?: boolean; feed?: number }
+  | { type: 'openDrawer' }
+  | { type: 'raw'; data: string };
+
+/**
+ * printTable 的列定义
+ */
+export type TableColumnSpec = {
+  // 各列的相对宽度及对齐方式
+  columns: ReadonlyArray<{ width?: number; align?: AlignValue }>;
+  // 列间距（字符数），默认 1
+  gap?: number;
+  // 每行字符数，默认按纸张宽度（58mm 为 32，80mm 为 48）
+  charsPerLine?: number;
+};
+
+/**
+ * commitPrint 的单个事务，对应打印服务的 TransBean
+ */
+export type PrintTransaction = {
+  type: number;
+  text?: string;
+  data?: string;
+};
+
+/**
+ * 打印队列状态，等待时间单位为毫秒
+ */
+export type PrintQueueStats = {
+  depth: number;
+  capacity: number;
+  busy: boolean;
+  waitingForService: number;
+  submitted: number;
+  completed: number;
+  rejected: number;
+  lastWaitMs: number;
+  maxWaitMs: number;
+  averageWaitMs: number;
+};
+
+/**
+ * getPrinterInfo 返回的打印机信息
+ */
+export type PrinterInfo = {
+  serialNo: string;
+  printerVersion: string;
+  model: string;
+  paper: '58mm' | '80mm';
+  serviceVersion: string;
+};
+
+/**
+ * onPrinterStatusChanged 事件内容，status 与 updatePrinterState 返回值相同，服务未连接时为 -1
+ */
+export type PrinterStatusEvent = {
+  status: number;
+  name:
+    | 'DISCONNECTED'
+    | 'NORMAL'
+    | 'PREPARING'
+    | 'COMMUNICATION_ERROR'
+    | 'OUT_OF_PAPER'
+    | 'OVERHEATED'
+    | 'COVER_OPEN'
+    | 'CUTTER_ERROR'
+    | 'CUTTER_RECOVERED'
+    | 'NO_BLACK_MARK'
+    | 'NO_PRINTER'
+    | 'FIRMWARE_UPDATE_FAILED'
+    | 'UNKNOWN';
+  previous: number;
+};
+
+/**
+ * onRawDataProgress 事件内容
+ */
+export type RawDataProgress = {
+  jobId: string;
+  sentBytes: number;
+  totalBytes: number;
+  chunk: number;
+  chunks: number;
+};
+
+/**
+ * 图片解码统计，峰值为解码单张图片时同时占用的内存（字节）
+ */
+export type ImageStats = {
+  decoded: number;
+  lastPeakBytes: number;
+  maxPeakBytes: number;
+  lastSampleSize: number;
+  cacheHits: number;
+  cacheMisses: number;
+  cacheEntries: number;
+  cacheBytes: number;
+  cacheMaxBytes: number;
+};
+
+/**
+ * 单个方法的调用统计，耗时单位为毫秒。histogram[i] 为耗时小于 histogramBoundsUs[i] 微秒的调用数，
+ * 百分位为所在区间的上界
+ */
+export type MethodMetrics = {
+  calls: number;
+  errors: number;
+  totalMs: number;
+  meanMs: number;
+  maxMs: number;
+  p50Ms: number;
+  p95Ms: number;
+  p99Ms: number;
+  averageWaitMs: number;
+  maxWaitMs: number;
+  bytes: number;
+  histogram: number[];
+};
+
+/**
+ * getPrinterMetrics 返回的统计，methods 以方法名为 key
+ */
+export type PrinterMetrics = {
+  methods: { [method: string]: MethodMetrics };
+  histogramBoundsUs: number[];
+  totalCalls: number;
+  totalBytes: number;
+  sinceMs: number;
+  queue: PrintQueueStats;
+  images: ImageStats;
+  connection: ConnectionStats;
+  /** 各打印机的发送统计，以打印机 id 为 key，内置打印机为 sunmi */
+  transports: { [printerId: string]: TransportStats };
+};
+
+/**
+ * getPrinterMetrics 中单台打印机的发送统计
+ */
+export type TransportStats =
+  | (PrintQueueStats & { type: 'sunmi' })
+  | {
+      type: 'tcp';
+      host: string;
+      port: number;
+      /** 当前保持的连接数 */
+      openConnections: number;
+      /** 累计建立的连接数 */
+      connectionsOpened: number;
+      /** 长连接失效后重连的次数 */
+      reconnects: number;
+      jobs: number;
+      bytes: number;
+      /** 实际写入 socket 的次数，小于 jobs 说明多个任务合并发送 */
+      writes: number;
+      failures: number;
+      queued: number;
+    };
+
+/**
+ * addNetworkPrinter 的参数，除 host 外均可省略
+ */
+export type NetworkPrinterOptions = {
+  host: string;
+  /** 默认 9100 */
+  port?: number;
+  /** 同时保持的连接数（1–8），多于 1 时任务可能乱序，默认 1 */
+  connections?: number;
+  /** 连接超时（毫秒），默认 3000 */
+  connectTimeoutMs?: number;
+  /** 空闲多久后断开连接（毫秒），0 表示一直保持，默认 60000 */
+  idleTimeoutMs?: number;
+  /** 单次写入的超时（毫秒），打印机停止接收（如缺纸）时任务失败，0 表示不限，默认 30000 */
+  writeTimeoutMs?: number;
+  /** 等待发送的任务上限，默认 64 */
+  queueCapacity?: number;
+};
+
+/**
+ * 打印服务绑定情况，见 getPrinterMetrics
+ */
+export type ConnectionStats = {
+  /** AndroidManifest 中 com.reactnativesunmiprinter.BIND_MODE 的取值 */
+  bindMode: 'lazy' | 'background';
+  connected: boolean;
+  /** 共用连接的模块实例数 */
+  modules: number;
+  /** 绑定次数（含重连） */
+  binds: number;
+  /** 最近一次 bindService 调用本身的耗时（毫秒） */
+  bindCallMs: number;
+  /** 最近一次从开始绑定到服务连接的耗时（毫秒），未连接时为 0 */
+  connectMs: number;
+};
+
+/**
+ * setScanBatching 的参数，均可省略
+ */
+export type ScanBatchOptions = {
+  /** 是否合并扫码结果，默认 false */
+  enabled?: boolean;
+  /** 从第一次扫码起的合并窗口（毫秒），默认 150 */
+  windowMs?: number;
+  /** 每批最多条数，达到后立即发送，默认 50 */
+  maxBatchSize?: number;
+  /** 同一条码在此时间内（毫秒）重复出现时丢弃，0 表示不去重，默认 0 */
+  dedupeWindowMs?: number;
+};
+
+/**
+ * scan 返回的一条识别结果
+ */
+export type ScanResult = {
+  value: string;
+  /** 码制，例如 QR_CODE、EAN_13 */
+  type: string | null;
+};
+
+/**
+ * 一条广播扫码结果，见 onScanBatch 事件和 getRecentScans
+ */
+export type ScanEvent = {
+  value: string;
+  /** 扫码时间（毫秒时间戳） */
+  timestamp: number;
+  /** 扫码头原始字节（base64），开启 setRawScanBytes 时提供，getRecentScans 始终提供 */
+  raw?: string;
+};
+
+/**
+ * useSimulatedPrinter 的参数，均可省略
+ */
+export type SimulatedPrinterOptions = {
+  /** 走纸速度（毫米/秒），默认 80 */
+  feedSpeedMmPerSecond?: number;
+  /** 打印机缓冲区大小（字节），满时调用会阻塞，默认 65536 */
+  bufferBytes?: number;
+  /** 58 或 80，默认 58 */
+  paperWidthMm?: number;
+  /** 纸卷长度（毫米），用完后进入缺纸状态，0 表示不限，默认 0 */
+  paperLengthMm?: number;
+  /** 连续打印多久后过热（毫秒），0 表示不过热，默认 0 */
+  overheatAfterMs?: number;
+  /** 过热后的冷却时间（毫秒），默认 5000 */
+  cooldownMs?: number;
+};
+
+/**
+ * getSimulatedPrinterReport 返回的模拟打印结果，每张小票为两次切纸之间的内容
+ */
+export type SimulatedPrinterReport = {
+  status: number;
+  name: PrinterStatusEvent['name'];
+  receipts: number;
+  receiptsPerMinute: number;
+  printedMm: number;
+  bytes: number;
+  calls: number;
+  failedCalls: number;
+  bufferBytes: number;
+  bufferedBytes: number;
+  bufferHighWaterBytes: number;
+  blockedMs: number;
+  overheats: number;
+  elapsedMs: number;
+  printed: { text: string; lengthMm: number; printedAtMs: number }[];
+};
+
 type SunmiPrinterType = {
   /*
    * 初始化打印机，重置打印逻辑程序，但不清空缓存区数据，因此
    * 未完成的打印工作将在重置后继续
    */
-  printerInit: () => void;
+  printerInit: () => Promise<void>;
   /**
    * 打印自检
    */
-  printerSelfChecking: () => void;
+  printerSelfChecking: () => Promise<void>;
+  /**
+   * 获取打印机信息
+   * @description 序号、固件版本、型号、纸张规格及服务版本在服务连接时读取一次并缓存，
+   * 重新连接后才会刷新，单独的 getPrinterSerialNo 等方法也使用该缓存。
+   */
+  getPrinterInfo: () => Promise<PrinterInfo>;
   /*
    * 获取打印机序号
    * */
@@ -171,16 +598,57 @@ type SunmiPrinterType = {
    * ⽬前可获取到上电以来的打印⻓度，由于台式机和⼿持机的硬件区别，获取打印结果的返回略有
    * 不同，即⼿持机通过ICallback callback接⼝获取打印⻓度，台式机通过返回值直接获取⻓度。
    */
-  getPrintedLength: () => void;
+  getPrintedLength: () => Promise<string>;
   /**
    * 获取打印机的最新状态
    */
   updatePrinterState: () => Promise<number>;
+  /**
+   * 开始监听打印机状态
+   * @description 在原生层按需轮询打印机状态（打印时加快，空闲时逐步放慢），状态变化时
+   * 发送 onPrinterStatusChanged 事件，无需在 JS 中定时调用 updatePrinterState。
+   */
+  startStatusMonitor: () => Promise<void>;
+  /**
+   * 停止监听打印机状态
+   */
+  stopStatusMonitor: () => Promise<void>;
   /**
    * 打印ESC/POS格式指令
+   * @description 超过 256KB 的数据会自动分块发送
    * @param data
    */
-  sendRAWData: (data: string) => void;
+  sendRAWData: (data: string) => Promise<void>;
+  /**
+   * 分块发送ESC/POS格式指令
+   * @description 将数据按 chunkSize 字节分块依次发送，上一块确认后才发送下一块，
+   * 每块完成后发送 onRawDataProgress 事件，适合大型报表及图片。
+   *
+   * @param data
+   * @description base64字符串
+   * @param chunkSize
+   * @description 每块字节数，范围 512 - 262144，默认 16384（传 0）
+   * @param jobId
+   * @description 在 onRawDataProgress 事件中用于区分任务
+   */
+  sendRAWDataChunked: (
+    data: string,
+    chunkSize: number,
+    jobId: string
+  ) => Promise<void>;
+  /**
+   * 安装 JSI 原始数据通道，供 sendRAWDataBuffer 使用，一般无需直接调用
+   *
+   * @description 同步调用；不可用时（旧架构或远程调试）返回 false
+   */
+  installRawDataBinding: () => boolean;
+  /**
+   * 发送已通过 JSI 暂存的 ESC/POS 数据，一般无需直接调用，请使用 sendRAWDataBuffer
+   *
+   * @param handle
+   * @description __sunmiPrinterStageRawData 返回的句柄
+   */
+  sendRAWDataStaged: (handle: number) => Promise<void>;
   /**
    * 设置打印机的样式
    * @param key
@@ -191,7 +659,7 @@ type SunmiPrinterType = {
   setPrinterStyle: (
     key: PrinterStyleKey,
     val: PrinterStyleValue | number
-  ) => void;
+  ) => Promise<void>;
   /**
    * 设置对齐模式
    * 全局⽅法，对之后执⾏的打印有影响，打印机初始化时取消相关设置。
@@ -199,13 +667,13 @@ type SunmiPrinterType = {
    * @param align
    * @description 对⻬⽅式：AlignValue.LEFT => 居左；AlignValue.CENTER => 居中;AlignValue.RIGHT => 居右
    */
-  setAlignment: (align: AlignValue) => void;
+  setAlignment: (align: AlignValue) => Promise<void>;
   /**
    * 设置自定义字体
    * @param typeface
    * @description 指定要使⽤的⾃定义字体名称，⽬前仅⽀持⽮量字体，字体需预置在应⽤assets⽬录
    */
-  setFontName: (typeface: string) => void;
+  setFontName: (typeface: string) => Promise<void>;
   /**
    * 设置字体大小
    *
@@ -213,14 +681,14 @@ type SunmiPrinterType = {
    * @description 全局⽅法，对之后打印有影响，初始化能取消设置，字体⼤⼩是超出标准国际指令的打印⽅式，
    * 调整字体⼤⼩会影响字符宽度，每⾏字符数量也会随之改变，因此按等宽字体形成的排版可能会错乱。
    */
-  setFontSize: (size: number) => void;
+  setFontSize: (size: number) => Promise<void>;
   /**
    * 设置与取消加粗
    *
    * @param isWeight
    * @default false
    */
-  setFontWeight: (isWeight: boolean) => void;
+  setFontWeight: (isWeight: boolean) => Promise<void>;
   /**
    * 打印文字
    * 若要修改打印⽂本的样式（如：对⻬⽅式、字体⼤⼩、加粗等），请在调⽤printText⽅法前设
@@ -228,7 +696,7 @@ type SunmiPrinterType = {
    *
    * @param text
    */
-  printerText: (text: string) => void;
+  printerText: (text: string) => Promise<void>;
   /**
    * 打印指定字体，⼤⼩的⽂本
    * 字体设置只对本次有效
@@ -241,7 +709,11 @@ type SunmiPrinterType = {
    * @param fontsize
    * @description 字体⼤⼩，只对该⽅法有效。
    */
-  printTextWithFont: (text: string, typeface: string, fontsize: number) => void;
+  printTextWithFont: (
+    text: string,
+    typeface: string,
+    fontsize: number
+  ) => Promise<void>;
   /**
    * 打印矢量文字
    * ⽂字按⽮量⽂字宽度原样输出，即每个字符不等宽。
@@ -249,7 +721,7 @@ type SunmiPrinterType = {
    * @param text
    * @description ⽂字按⽮量⽂字宽度原样输出，即每个字符不等宽。
    */
-  printOriginalText: (text: string) => void;
+  printOriginalText: (text: string) => Promise<void>;
   /**
    * 打印表格的一行（不支持阿拉伯字符）
    *
@@ -264,7 +736,7 @@ type SunmiPrinterType = {
     texts: string[],
     widths: number[],
     aligns: number[]
-  ) => void;
+  ) => Promise<void>;
   /**
    * 打印表格的⼀⾏，可以指定列宽、对齐⽅式
    *
@@ -279,7 +751,7 @@ type SunmiPrinterType = {
     texts: string[],
     widths: number[],
     aligns: number[]
-  ) => void;
+  ) => Promise<void>;
   /**
    * 打印⼀维条码
    *
@@ -302,7 +774,7 @@ type SunmiPrinterType = {
     height: number,
     width: number,
     textPosition: number
-  ) => void;
+  ) => Promise<void>;
   /**
    * 打印QR条码
    * @description 普通打印状态下在调⽤该⽅法后会直接输出打印，每个⼆维码块为 4 个像素点（⼩于 4 扫码解析
@@ -315,7 +787,11 @@ type SunmiPrinterType = {
    * @param errorlevel
    * @description ⼆维码纠错等级(0 - 3)：0 -> 纠错级别 L ( 7%), 1 -> 纠错级别 M (15%), 2 -> 纠错级别 Q (25%), 3 -> 纠错级别 H (30%)
    */
-  printQRCode: (data: string, modulesize: number, errorlevel: number) => void;
+  printQRCode: (
+    data: string,
+    modulesize: number,
+    errorlevel: number
+  ) => Promise<void>;
   /**
    * 打印⼆维条码
    * @description 普通打印状态下在调⽤该⽅法后会直接输出打印；此接⼝在4.1.2版本后⽀持;
@@ -334,40 +810,76 @@ type SunmiPrinterType = {
     sysmbology: number,
     modulesize: number,
     errorlevel: number
-  ) => void;
+  ) => Promise<void>;
   /**
    * 包事务打印专⽤接⼝
+   * @description 整个任务列表通过一次调用提交，打印完成后返回结果。
    *
    * @param tranBean
-   * @description 任务列表
+   * @description 任务列表，data 为 base64 编码的原始数据
+   */
+  commitPrint: (list: ReadonlyArray<PrintTransaction>) => Promise<string>;
+  /**
+   * 批量打印整张小票
+   * @description 所有指令在一次调用中传给原生层，并在同一个事务（enterPrinterBuffer /
+   * commitPrinterBufferWithCallback）中提交，打印完成后返回结果。已调用 enterPrinterBuffer
+   * 且尚未 exitPrinterBuffer 时会被 reject。
+   *
+   * @param ops
+   * @description 打印指令列表
    */
-  commitPrint: (list: ReadonlyArray<Record<string, unknown>>) => void;
+  printDocument: (ops: ReadonlyArray<PrintDocumentOp>) => Promise<string>;
+  /**
+   * 注册小票模板
+   * @description 模板在原生层编译并缓存，相同 id 会覆盖之前的模板。text、data、encodedString
+   * 及 texts 中可使用 {{name}} 占位符；repeat 指令按数组逐项渲染，if 指令在字段有值时渲染。
+   *
+   * @param id
+   * @param ops
+   */
+  registerTemplate: (
+    id: string,
+    ops: ReadonlyArray<TemplateOp>
+  ) => Promise<void>;
+  /**
+   * 删除小票模板
+   * @param id
+   */
+  unregisterTemplate: (id: string) => Promise<boolean>;
+  /**
+   * 按模板打印小票
+   * @description 使用 data 渲染模板，并与 printDocument 一样在一个打印缓冲事务中打印
+   *
+   * @param id
+   * @param data
+   */
+  printTemplate: (id: string, data: Record<string, unknown>) => Promise<string>;
   /**
    * 进⼊事务模式
    *
    * @param clear
    * @description 是否清除缓冲区内容：true -> 清除上⼀次事务打印未提交的内容；false -> 不清除上⼀次事务打印未提交的内容，下次提交将包含上次的内容。
    */
-  enterPrinterBuffer: (clear: boolean) => void;
+  enterPrinterBuffer: (clear: boolean) => Promise<void>;
   /**
    * exitPrinterBuffer
    * @support 除V1设备
    * @param commit
    * @description 是否打印出缓冲区内容：true -> 会打印出事务队列中的所有内容；false -> 不会打印事务队列中的内容，此内容将保存直到下次提交。
    */
-  exitPrinterBuffer: (commit: boolean) => void;
+  exitPrinterBuffer: (commit: boolean) => Promise<void>;
   /**
    * 提交事务打印
    * @support 除V1设备
    * @description 将事务队列中的所有内容提交并打印，之后仍然处于事务打印模式。
    */
-  commitPrinterBuffer: () => void;
+  commitPrinterBuffer: () => Promise<void>;
   /**
    * 提交事务打印并回调结果
    *
    * @support 除V1版本
    */
-  commitPrinterBufferWithCallbacka: () => void;
+  commitPrinterBufferWithCallbacka: () => Promise<string>;
   /**
    * 打印机⾛纸n⾏
    * @description 强制换⾏，结束之前的打印内容后⾛纸 n ⾏。
@@ -375,13 +887,13 @@ type SunmiPrinterType = {
    * @param num
    * @description 走纸行数
    */
-  lineWrap: (num: number) => void;
+  lineWrap: (num: number) => Promise<void>;
   /**
    * 切纸
    * @supported 仅⽀持台式机带切⼑功能机器
    * @description 由于打印头和切⼑有⼀定距离，调⽤接⼝将⾃动补全这段距离；
    */
-  cutPaper: () => void;
+  cutPaper: () => Promise<void>;
   /**
    * 获取切⼑次数
    */
@@ -390,13 +902,26 @@ type SunmiPrinterType = {
    * 打开钱箱
    * @supported 仅⽀持台式机带钱箱功能机器。
    */
-  openDrawer: () => void;
+  openDrawer: () => Promise<void>;
   /**
    * 获取当前的钱箱状态
    * @supported ⽬前仅对S2、T2、T2mini机器 v4.0.0版本以上⽀持此接⼝
    * @description 可以通过此接⼝在部分具有连接钱箱功能的机型上获取钱箱开关状态,
    */
   getDrawerStatus: () => Promise<number>;
+  /**
+   * 打印表格
+   * @description 在原生层按列宽折行、补齐空格（中文等全角字符按两个字符宽度计算），
+   * 整张表格作为一段文本一次发送，适合商品明细等多行表格。
+   *
+   * @param rows
+   * @description 每行为一个字符串数组
+   * @param columnSpec
+   */
+  printTable: (
+    rows: ReadonlyArray<ReadonlyArray<string>>,
+    columnSpec: TableColumnSpec
+  ) => Promise<void>;
   /**
    * 打印图片
    * 图⽚最⼤像素需要宽x⾼⼩于250万，且宽度根据纸张规格设置（58为384像素，80为576像素），
@@ -405,7 +930,7 @@ type SunmiPrinterType = {
    * @param encodedString
    * @param pixelWidth
    */
-  printBitmap: (encodedString: string, pixelWidth: number) => void;
+  printBitmap: (encodedString: string, pixelWidth: number) => Promise<void>;
   /**
    * 打印图⽚(2)
    * 图⽚像素分辨率⼩于200万，且宽度根据纸张规格设置（58为384像素，80为576像素），如果超
@@ -421,7 +946,7 @@ type SunmiPrinterType = {
     encodedString: string,
     pixelWidth: number,
     type: number
-  ) => void;
+  ) => Promise<void>;
   /**
    * 打印图⽚(3)
    * 图⽚像素分辨率⼩于200万，且宽度根据纸张规格设置（58为384像素，80为576像素），如果超
@@ -435,19 +960,278 @@ type SunmiPrinterType = {
     encodedString: string,
     pixelWidth: number,
     type: number
-  ) => void;
+  ) => Promise<void>;
+  /**
+   * 以 ESC/POS 指令打印
+   * @description 所有指令在原生层编码为一段连续的字节数据，通过一次 sendRAWData 发送。
+   * 文本默认使用 GB18030 编码，可通过 charset 指令切换。
+   *
+   * @param ops
+   */
+  printEscPos: (ops: ReadonlyArray<EscPosOp>) => Promise<void>;
+  /**
+   * 添加网络打印机（ESC/POS 原始 TCP，默认端口 9100）
+   * @description 首次发送时建立连接并保持，连续的任务合并写入同一连接。
+   * 已有同名打印机时替换之；sunmi 为内置打印机，不可使用。
+   *
+   * @param id
+   * @description 打印机 id，用于 sendRAWDataTo、printEscPosTo
+   * @param options
+   */
+  addNetworkPrinter: (
+    id: string,
+    options: NetworkPrinterOptions
+  ) => Promise<void>;
+  /**
+   * 移除网络打印机，尚未发送的任务将被拒绝
+   *
+   * @param id
+   * @description 返回是否存在该打印机
+   */
+  removeNetworkPrinter: (id: string) => Promise<boolean>;
+  /**
+   * 向指定打印机发送 ESC/POS 原始数据
+   *
+   * @param printerId
+   * @description addNetworkPrinter 的 id，或 sunmi 表示内置打印机
+   * @param data
+   * @description base64 编码的数据
+   */
+  sendRAWDataTo: (printerId: string, data: string) => Promise<void>;
+  /**
+   * 以 ESC/POS 指令在指定打印机上打印，指令同 printEscPos
+   *
+   * @param printerId
+   * @description addNetworkPrinter 的 id，或 sunmi 表示内置打印机
+   * @param ops
+   */
+  printEscPosTo: (
+    printerId: string,
+    ops: ReadonlyArray<EscPosOp>
+  ) => Promise<void>;
+  /**
+   * 通过文件地址打印图片
+   * @description 支持 file:// 、content:// 地址及绝对路径，图片在原生层直接从文件解码，
+   * 无需在 JS 中读取并转换为 base64。
+   *
+   * @param uri
+   * @param pixelWidth
+   */
+  printBitmapUri: (uri: string, pixelWidth: number) => Promise<void>;
+  /**
+   * 通过文件地址打印图片(2)
+   * @description 同 printBitmapUri，type 与 printBitmapCustom 相同
+   *
+   * @param uri
+   * @param pixelWidth
+   * @param type
+   */
+  printBitmapUriCustom: (
+    uri: string,
+    pixelWidth: number,
+    type: number
+  ) => Promise<void>;
+  /**
+   * 以单色光栅方式打印图片
+   * @description 图片在本地转换为 1 位点阵，以 ESC/POS GS v 0 指令通过 sendRAWData 发送，
+   * 传输数据量约为彩色图片的 1/32，适合 logo 等需要控制抖动效果的图片。
+   *
+   * @param encodedString
+   * @description base64字符串，支持包含 data URI 头
+   * @param pixelWidth
+   * @description 目标像素宽度（58为384像素，80为576像素）
+   * @param dither
+   * @description 抖动方式，见 DitherMode
+   * @param threshold
+   * @description 灰度阈值 0-255，低于该值的像素打印为黑色，一般使用 128
+   */
+  printBitmapRaster: (
+    encodedString: string,
+    pixelWidth: number,
+    dither: DitherMode,
+    threshold: number
+  ) => Promise<void>;
   /**
    * 是否存在打印机服务
    */
   hasPrinter: () => Promise<boolean>;
+  /**
+   * 等待打印服务连接
+   * @description 服务连接后 resolve，超时后以 E_PRINTER_NOT_READY reject。服务连接前发起的
+   * 打印调用会暂存（最多 64 个），连接后按顺序执行，无需先调用此方法；服务断开后会自动重新绑定。
+   *
+   * @param timeoutMs
+   * @description 超时时间（毫秒），0 表示一直等待
+   */
+  whenReady: (timeoutMs: number) => Promise<void>;
+  /**
+   * 获取打印队列状态
+   * @description 所有打印调用都在独立的打印线程中按顺序执行，队列已满时新的调用会被拒绝
+   * （E_PRINT_QUEUE_FULL），可根据 depth / capacity 控制提交速度。
+   */
+  getPrintQueueStats: () => Promise<PrintQueueStats>;
+  /**
+   * 获取图片解码及缓存统计
+   * @description 图片先读取尺寸，按目标宽度降采样解码，不透明图片使用 RGB_565，
+   * 可通过峰值内存评估低内存设备上的开销。
+   */
+  getImageStats: () => Promise<ImageStats>;
+  /**
+   * 获取打印调用统计
+   * @description 按方法统计调用次数、失败次数、耗时（含对数直方图和 p50/p95/p99）、排队等待时间
+   * 及发送给打印服务的字节数（原始数据和图片），并附带打印队列和图片统计。统计开销很小，可在生产环境中常开。
+   */
+  getPrinterMetrics: () => Promise<PrinterMetrics>;
+  /**
+   * 清空打印调用统计
+   * @description 只清空按方法的统计，打印队列和图片统计不受影响
+   */
+  resetPrinterMetrics: () => Promise<void>;
+  /**
+   * 使用模拟打印机
+   * @description 用进程内的模拟热敏打印机代替商米打印服务，无需设备即可压测打印流程。模拟打印机
+   * 接受相同的调用和 ESC/POS 数据，按走纸速度打印，模拟缓冲区、缺纸和过热，并记录打印内容。
+   * 再次调用会重新开始模拟，真实打印服务在模块重建前不会重新绑定。
+   *
+   * @param options
+   */
+  useSimulatedPrinter: (options: SimulatedPrinterOptions) => Promise<void>;
+  /**
+   * 获取模拟打印结果
+   *
+   * @param clear
+   * @description 为 true 时清空统计，重新开始计算
+   */
+  getSimulatedPrinterReport: (
+    clear: boolean
+  ) => Promise<SimulatedPrinterReport>;
+  /**
+   * 设置模拟打印机状态
+   *
+   * @param status
+   * @description 1 装纸并清除错误，4 缺纸，5 过热（冷却后恢复）
+   */
+  setSimulatedPrinterStatus: (status: number) => Promise<void>;
+  /**
+   * 预加载图片
+   * @description 提前解码图片并放入缓存（LRU，按内容哈希、宽度和类型区分），之后以相同参数调用
+   * printBitmap / printBitmapCustom 时不再重复解码。
+   *
+   * @param encodedString
+   * @description base64字符串，支持包含 data URI 头
+   * @param pixelWidth
+   * @param type
+   * @description 与 printBitmapCustom 的 type 相同，printBitmap 使用 -1
+   * @returns 缓存 key
+   */
+  preloadImage: (
+    encodedString: string,
+    pixelWidth: number,
+    type: number
+  ) => Promise<string>;
+  /**
+   * 从缓存中移除图片
+   *
+   * @param key
+   * @description preloadImage 返回的缓存 key
+   */
+  evictImage: (key: string) => Promise<boolean>;
 };
 
 type SunmiScanType = {
   /**
    * 摄像头扫码
+   *
+   * @description 返回本次识别到的全部条码；用户取消时以 E_SCAN_CANCELLED 拒绝
    */
-  scan: () => Promise<void>;
+  scan: () => Promise<ScanResult[]>;
+  /**
+   * 设置广播扫码的合并与去重
+   *
+   * @param options
+   * @description 开启 enabled 后，窗口内的扫码结果合并为一次 onScanBatch 事件（ScanEvent 数组）；
+   * 否则每次扫码触发 onScanSuccess。dedupeWindowMs 内重复的条码会被丢弃
+   */
+  setScanBatching: (options: ScanBatchOptions) => Promise<void>;
+  /**
+   * 在扫码事件中附带扫码头原始数据
+   *
+   * @param enabled
+   * @description 开启后事件中的 raw 字段为原始字节的 base64，onScanSuccess 改为发送 ScanEvent 对象。
+   * 适用于 GS1（含 FNC1）等二进制或非 UTF-8 条码
+   */
+  setRawScanBytes: (enabled: boolean) => Promise<void>;
+  /**
+   * 获取最近的广播扫码结果（最新的在前，最多保留 64 条）
+   *
+   * @param count
+   * @description 返回条数
+   */
+  getRecentScans: (count: number) => Promise<ScanEvent[]>;
 };
 export const SunmiScan = effectiveSunmiScanModule as SunmiScanType;
 
+type StageRawData = (data: ArrayBuffer | ArrayBufferView) => number;
+
+let stageRawData: StageRawData | null | undefined;
+
+const getStageRawData = (): StageRawData | null => {
+  if (stageRawData === undefined) {
+    try {
+      stageRawData = (
+        effectiveSunmiPrinterModule as SunmiPrinterType
+      ).installRawDataBinding()
+        ? (global as any).__sunmiPrinterStageRawData ?? null
+        : null;
+    } catch (error) {
+      stageRawData = null;
+    }
+  }
+  return stageRawData;
+};
+
+const BASE64_ALPHABET =
+  'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/';
+
+const toBase64 = (bytes: Uint8Array): string => {
+  const parts: string[] = [];
+  for (let i = 0; i < bytes.length; i += 3) {
+    const a = bytes[i];
+    const b = i + 1 < bytes.length ? bytes[i + 1] : 0;
+    const c = i + 2 < bytes.length ? bytes[i + 2] : 0;
+    const triple = (a << 16) | (b << 8) | c;
+    parts.push(
+      BASE64_ALPHABET[(triple >> 18) & 63] +
+        BASE64_ALPHABET[(triple >> 12) & 63] +
+        (i + 1 < bytes.length ? BASE64_ALPHABET[(triple >> 6) & 63] : '=') +
+        (i + 2 < bytes.length ? BASE64_ALPHABET[triple & 63] : '=')
+    );
+  }
+  return parts.join('');
+};
+
+/**
+ * 发送ESC/POS格式指令（二进制）
+ * @description 新架构下通过 JSI 直接复制 ArrayBuffer 的字节，无需 base64 编解码；
+ * 不可用时自动改为 base64 并调用 sendRAWData。
+ * 等待发送的数据超过 32 MB 时，新的调用会被拒绝，不会丢弃之前的数据。
+ *
+ * @param data
+ * @description ArrayBuffer 或 Uint8Array 等 TypedArray
+ */
+export const sendRAWDataBuffer = async (
+  data: ArrayBuffer | ArrayBufferView
+): Promise<void> => {
+  const module = effectiveSunmiPrinterModule as SunmiPrinterType;
+  const stage = getStageRawData();
+  if (stage) {
+    return module.sendRAWDataStaged(stage(data));
+  }
+  const bytes =
+    data instanceof ArrayBuffer
+      ? new Uint8Array(data)
+      : new Uint8Array(data.buffer, data.byteOffset, data.byteLength);
+  return module.sendRAWData(toBase64(bytes));
+};
+
 export default effectiveSunmiPrinterModule as SunmiPrinterType;